@@ -1,6 +1,7 @@
 package fr.neocle.extensions;
 
 import fr.neocle.flexgateway.api.extension.BaseExtension;
+import fr.neocle.flexgateway.api.extension.ThreadingRequirement;
 import fr.neocle.flexgateway.api.extension.enhancer.BaseEndpointEnhancer;
 import fr.neocle.flexgateway.api.extension.handler.ActionHandler;
 import fr.neocle.flexgateway.api.extension.provider.DataProvider;
@@ -588,12 +589,33 @@ public class LuckPermsExtension extends BaseExtension {
             return "player";
         }
 
+        // Only uses the LuckPerms API, which is thread safe, so no need for the main thread
+        @Override
+        public ThreadingRequirement getThreadingRequirement() {
+            return ThreadingRequirement.IO;
+        }
+
+        @Override
+        public Set<String> getWrittenKeys() {
+            return Set.of("luckperms");
+        }
+
         @Override
         public void enhanceResponse(JsonObject response, JsonObject originalData, String identifier, Map<String, String> parameters) {
-            Player player = Bukkit.getPlayer(identifier);
-            if (player == null) return;
+            if (!originalData.has("uuid")) return;
 
-            User user = luckPerms.getUserManager().getUser(player.getUniqueId());
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(originalData.get("uuid").getAsString());
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+
+            // Online players are already loaded, offline ones are read from LuckPerms storage
+            User user = luckPerms.getUserManager().getUser(uuid);
+            if (user == null) {
+                user = luckPerms.getUserManager().loadUser(uuid).join();
+            }
             if (user == null) return;
 
             // Add LuckPerms data
@@ -64,6 +64,13 @@ public abstract class BaseExtension implements FlexGatewayExtension {
         return context.registerBaseEndpointEnhancer(enhancer);
     }
 
+    /**
+     * Convenience method to invalidate cached results by tag
+     */
+    protected final void invalidateCacheTags(String... tags) {
+        context.invalidateCacheTags(tags);
+    }
+
     /**
      * Convenience method to save a resource
      */
@@ -66,6 +66,12 @@ public interface ExtensionContext {
      */
     boolean unregisterBaseEndpointEnhancer(String baseEndpoint, String enhancementKey);
 
+    /**
+     * Drop the cached results of this extension's providers and enhancers carrying any of these tags
+     * Call it when the data behind them changes, see {@link fr.neocle.flexgateway.api.cache.CachePolicy}
+     */
+    void invalidateCacheTags(String... tags);
+
     /**
      * Get extension configuration
      */
@@ -0,0 +1,22 @@
+package fr.neocle.flexgateway.api;
+
+/**
+ * Where the loader may run a provider or action handler
+ */
+public enum ThreadingRequirement {
+
+    /**
+     * Reads or changes Bukkit state, runs on the main thread
+     */
+    MAIN,
+
+    /**
+     * Thread safe and quick, runs on the HTTP thread handling the request
+     */
+    ASYNC_SAFE,
+
+    /**
+     * Blocks on a database, files or the network, runs on the extension I/O pool
+     */
+    IO
+}
@@ -0,0 +1,63 @@
+package fr.neocle.flexgateway.api.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * How long the loader may reuse a provider's data or an enhancer's additions
+ * Example: CachePolicy.ttl(30000).keyedBy("group").taggedWith("groups")
+ */
+public final class CachePolicy {
+
+    private final long ttlMillis;
+    private final Set<String> keyParameters;
+    private final Set<String> tags;
+
+    private CachePolicy(long ttlMillis, Set<String> keyParameters, Set<String> tags) {
+        this.ttlMillis = ttlMillis;
+        this.keyParameters = keyParameters;
+        this.tags = tags;
+    }
+
+    /**
+     * Cache results for the given time, keyed by every query parameter
+     */
+    public static CachePolicy ttl(long ttlMillis) {
+        return new CachePolicy(ttlMillis, null, Collections.emptySet());
+    }
+
+    /**
+     * Only these query parameters change the result, the others are ignored for the cache key
+     */
+    public CachePolicy keyedBy(String... parameters) {
+        return new CachePolicy(ttlMillis, toSet(parameters), tags);
+    }
+
+    /**
+     * Tags passed to ExtensionContext.invalidateCacheTags to drop these results before they expire
+     */
+    public CachePolicy taggedWith(String... tags) {
+        return new CachePolicy(ttlMillis, keyParameters, toSet(tags));
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Get the parameters making up the cache key, null for all of them
+     */
+    public Set<String> getKeyParameters() {
+        return keyParameters;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    private static Set<String> toSet(String... values) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(values)));
+    }
+}
@@ -1,6 +1,11 @@
 package fr.neocle.flexgateway.api.enhancer;
 
 import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.api.ThreadingRequirement;
+import fr.neocle.flexgateway.api.cache.CachePolicy;
+
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Interface for extensions to enhance base plugin endpoints
@@ -17,6 +22,7 @@ public interface BaseEndpointEnhancer {
     /**
      * Enhance the base endpoint response with additional data
      * You can add multiple properties directly to the response object
+     * Nested objects and arrays are shared with the original data: replace them, do not modify them
      * @param response The response object to enhance (modify this directly)
      * @param originalData The original response data (read-only reference)
      * @param identifier Optional identifier (e.g., player name for /api/player/{name})
@@ -32,8 +38,34 @@ public interface BaseEndpointEnhancer {
     /**
      * Priority for this enhancement (higher numbers = processed later)
      * Useful if multiple extensions enhance the same endpoint
+     * Read once when the enhancer is registered, like the threading requirement and keys
      */
     default int getPriority() {
         return 100;
     }
+
+    /**
+     * Get the thread this enhancer has to run on
+     * Enhancers that are not MAIN and declare their written keys can run in parallel with others
+     */
+    default ThreadingRequirement getThreadingRequirement() {
+        return ThreadingRequirement.MAIN;
+    }
+
+    /**
+     * Get the top-level keys this enhancer adds to the response, empty if unknown
+     * An enhancer running in parallel gets an empty response object to fill with these keys,
+     * and does not see what other enhancers of the same endpoint added
+     */
+    default Set<String> getWrittenKeys() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Get how long the added keys can be reused for the same identifier, null to enhance every request
+     * A cached enhancer gets an empty response object to fill, like parallel enhancers
+     */
+    default CachePolicy getCachePolicy() {
+        return null;
+    }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package fr.neocle.flexgateway.api.handler;
 
 import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.api.ThreadingRequirement;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Interface for handling POST/PUT/DELETE actions through the API
@@ -16,12 +19,35 @@ public interface ActionHandler {
 
     /**
      * Handle the action
+     * Implement either this method or {@link #handleActionAsync}, handlers with neither are rejected
      * @param method HTTP method (POST, PUT, DELETE)
      * @param parameters Query parameters
      * @param body Request body as JsonObject (null if no body)
      * @return Response data
      */
-    JsonObject handleAction(String method, Map<String, String> parameters, JsonObject body);
+    default JsonObject handleAction(String method, Map<String, String> parameters, JsonObject body) {
+        return handleActionAsync(method, parameters, body).toCompletableFuture().join();
+    }
+
+    /**
+     * Handle the action without blocking, e.g. through an asynchronous plugin API
+     * Called on the thread given by {@link #getThreadingRequirement()}
+     * @param method HTTP method (POST, PUT, DELETE)
+     * @param parameters Query parameters
+     * @param body Request body as JsonObject (null if no body)
+     * @return Stage completed with the response data
+     */
+    default CompletionStage<JsonObject> handleActionAsync(String method, Map<String, String> parameters, JsonObject body) {
+        return CompletableFuture.completedFuture(handleAction(method, parameters, body));
+    }
+
+    /**
+     * Get the thread this handler has to run on
+     * Handlers that do not touch Bukkit state should not use MAIN, it costs tick time
+     */
+    default ThreadingRequirement getThreadingRequirement() {
+        return ThreadingRequirement.MAIN;
+    }
 
     /**
      * Get supported HTTP methods for this endpoint
@@ -0,0 +1,79 @@
+package fr.neocle.flexgateway.api.loader;
+
+/**
+ * Limits of one extension and the breaker skipping it after repeated failures or budget
+ * violations. Once open it rejects calls until openMillis have passed, then lets a single
+ * call through: a success closes it again, a failure reopens it.
+ */
+final class CircuitBreaker {
+
+    private final long budgetMillis;
+    private final long timeoutMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // Guarded by this
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialRunning;
+    private long trips;
+
+    CircuitBreaker(long budgetMillis, long timeoutMillis, int failureThreshold, long openMillis) {
+        this.budgetMillis = Math.max(1L, budgetMillis);
+        this.timeoutMillis = Math.max(1L, timeoutMillis);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0L, openMillis);
+    }
+
+    /** Time an enhancer may take */
+    long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /** Time a provider or action may take */
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        if (openUntil == 0) {
+            return true;
+        }
+        if (trialRunning || System.currentTimeMillis() < openUntil) {
+            return false;
+        }
+        trialRunning = true;
+        return true;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openUntil = 0;
+        trialRunning = false;
+    }
+
+    /**
+     * Returns true when this failure opened the breaker.
+     */
+    synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (trialRunning || (openUntil == 0 && consecutiveFailures >= failureThreshold)) {
+            openUntil = System.currentTimeMillis() + openMillis;
+            trialRunning = false;
+            trips++;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized String getState() {
+        if (openUntil == 0) {
+            return "closed";
+        }
+        return trialRunning || System.currentTimeMillis() >= openUntil ? "half_open" : "open";
+    }
+
+    synchronized long getTrips() {
+        return trips;
+    }
+}
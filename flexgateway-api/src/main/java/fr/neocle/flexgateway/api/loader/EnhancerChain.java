@@ -0,0 +1,103 @@
+package fr.neocle.flexgateway.api.loader;
+
+import fr.neocle.flexgateway.api.ThreadingRequirement;
+import fr.neocle.flexgateway.api.enhancer.BaseEndpointEnhancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Enhancers of one base endpoint sorted by priority, split into stages that run one after the
+ * other. Consecutive enhancers that are not bound to the main thread and write distinct keys
+ * share a parallel stage; the others run serially on the main thread. Chains are immutable,
+ * registering an enhancer builds a new one.
+ */
+final class EnhancerChain {
+
+    static final class Stage {
+        final BaseEndpointEnhancer[] enhancers;
+        final boolean parallel;
+
+        Stage(List<BaseEndpointEnhancer> enhancers, boolean parallel) {
+            this.enhancers = enhancers.toArray(new BaseEndpointEnhancer[0]);
+            this.parallel = parallel;
+        }
+    }
+
+    private final BaseEndpointEnhancer[] enhancers;
+    private final Stage[] stages;
+
+    private EnhancerChain(BaseEndpointEnhancer[] enhancers) {
+        this.enhancers = enhancers;
+        this.stages = plan(enhancers);
+    }
+
+    static EnhancerChain of(BaseEndpointEnhancer enhancer) {
+        return new EnhancerChain(new BaseEndpointEnhancer[]{enhancer});
+    }
+
+    EnhancerChain with(BaseEndpointEnhancer enhancer) {
+        BaseEndpointEnhancer[] added = Arrays.copyOf(enhancers, enhancers.length + 1);
+        added[added.length - 1] = enhancer;
+        // Stable, so equal priorities keep their registration order (higher numbers processed later)
+        Arrays.sort(added, Comparator.comparingInt(BaseEndpointEnhancer::getPriority));
+        return new EnhancerChain(added);
+    }
+
+    /**
+     * Get a chain without the matching enhancers, null when none are left.
+     */
+    EnhancerChain without(Predicate<BaseEndpointEnhancer> filter) {
+        BaseEndpointEnhancer[] kept = Arrays.stream(enhancers)
+                .filter(filter.negate())
+                .toArray(BaseEndpointEnhancer[]::new);
+        if (kept.length == enhancers.length) {
+            return this;
+        }
+        return kept.length == 0 ? null : new EnhancerChain(kept);
+    }
+
+    BaseEndpointEnhancer[] getEnhancers() {
+        return enhancers;
+    }
+
+    Stage[] getStages() {
+        return stages;
+    }
+
+    private static Stage[] plan(BaseEndpointEnhancer[] enhancers) {
+        List<Stage> stages = new ArrayList<>();
+        List<BaseEndpointEnhancer> current = new ArrayList<>();
+        Set<String> currentKeys = new HashSet<>();
+        boolean currentParallel = false;
+
+        for (BaseEndpointEnhancer enhancer : enhancers) {
+            Set<String> keys = enhancer.getWrittenKeys();
+            boolean parallel = enhancer.getThreadingRequirement() != ThreadingRequirement.MAIN
+                    && keys != null && !keys.isEmpty();
+
+            // A key written twice means the later enhancer has to see the earlier one's result
+            boolean conflict = parallel && keys.stream().anyMatch(currentKeys::contains);
+            if (!current.isEmpty() && (parallel != currentParallel || conflict)) {
+                stages.add(new Stage(current, currentParallel));
+                current = new ArrayList<>();
+                currentKeys.clear();
+            }
+
+            current.add(enhancer);
+            currentParallel = parallel;
+            if (parallel) {
+                currentKeys.addAll(keys);
+            }
+        }
+        if (!current.isEmpty()) {
+            stages.add(new Stage(current, currentParallel));
+        }
+        return stages.toArray(new Stage[0]);
+    }
+}
@@ -0,0 +1,104 @@
+package fr.neocle.flexgateway.api.loader;
+
+import com.google.gson.JsonElement;
+import fr.neocle.flexgateway.api.cache.CachePolicy;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of providers and enhancers that declared a cache policy. Keys start with the
+ * extension name and tags are scoped to it, so one extension cannot drop another's results.
+ * Cached values are shared between requests and must not be modified.
+ */
+final class ExtensionCache {
+
+    private static final class Entry {
+        final JsonElement value;
+        final long expiresAt;
+        final Set<String> tags;
+
+        Entry(JsonElement value, long expiresAt, Set<String> tags) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.tags = tags;
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ExtensionCache(int maxEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * Build the key of a result: owner, what produced it and the parameters the policy keys on
+     */
+    static String key(String extensionName, String source, String identifier, Map<String, String> parameters, CachePolicy policy) {
+        Map<String, String> keyed = new TreeMap<>();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if (policy.getKeyParameters() == null || policy.getKeyParameters().contains(parameter.getKey())) {
+                keyed.put(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return extensionName + "/" + source + "/" + (identifier != null ? identifier : "") + "?" + keyed;
+    }
+
+    JsonElement get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.currentTimeMillis() > entry.expiresAt) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    void put(String key, JsonElement value, CachePolicy policy) {
+        if (policy.getTtlMillis() <= 0 || value == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            entries.values().removeIf(entry -> now > entry.expiresAt);
+            if (entries.size() >= maxEntries) {
+                // Full of live results, this one is simply recomputed next time
+                return;
+            }
+        }
+        entries.put(key, new Entry(value, now + policy.getTtlMillis(), policy.getTags()));
+    }
+
+    void invalidateTags(String extensionName, Set<String> tags) {
+        String prefix = extensionName + "/";
+        entries.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix)
+                && entry.getValue().tags.stream().anyMatch(tags::contains));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+}
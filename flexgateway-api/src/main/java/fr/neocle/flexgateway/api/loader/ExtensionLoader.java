@@ -4,11 +4,15 @@ import fr.neocle.flexgateway.api.config.ExtensionConfig;
 import fr.neocle.flexgateway.api.config.ExtensionConfigImpl;
 import fr.neocle.flexgateway.api.ExtensionContext;
 import fr.neocle.flexgateway.api.FlexGatewayExtension;
+import fr.neocle.flexgateway.api.ThreadingRequirement;
+import fr.neocle.flexgateway.api.cache.CachePolicy;
 import fr.neocle.flexgateway.api.enhancer.BaseEndpointEnhancer;
 import fr.neocle.flexgateway.api.handler.ActionHandler;
 import fr.neocle.flexgateway.api.provider.DataProvider;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
@@ -17,22 +21,61 @@ import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Logger;
 
 public class ExtensionLoader {
 
+    // Values of "extensionStatus" in enhanced responses
+    private static final String STATUS_SKIPPED = "skipped";
+    private static final String STATUS_FAILED = "failed";
+    private static final String STATUS_SLOW = "over_budget";
+    private static final String STATUS_TIMEOUT = "timeout";
+
     private final JavaPlugin plugin;
     private final File extensionsFolder;
     private final Map<String, LoadedExtension> loadedExtensions = new ConcurrentHashMap<>();
     private final Map<String, Map<String, DataProvider>> dataProviders = new ConcurrentHashMap<>();
     private final Map<String, Map<String, ActionHandler>> actionHandlers = new ConcurrentHashMap<>();
-    private final Map<String, List<BaseEndpointEnhancer>> baseEndpointEnhancers = new ConcurrentHashMap<>();
+    // Sorted and planned when registering, chains are replaced and never modified once published
+    private final Map<String, EnhancerChain> baseEndpointEnhancers = new ConcurrentHashMap<>();
+    // Name of the extension each enhancer belongs to, for its cache entries
+    private final Map<BaseEndpointEnhancer, String> enhancerOwners = new ConcurrentHashMap<>();
+    private final ExtensionCache cache;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Executor mainThreadExecutor;
+    // Providers and handlers declaring IO and parallel enhancers, kept off the HTTP threads and the main thread
+    private final ExecutorService ioExecutor;
 
     public ExtensionLoader(JavaPlugin plugin) {
+        this(plugin, task -> plugin.getServer().getScheduler().runTask(plugin, task), 4);
+    }
+
+    /**
+     * @param mainThreadExecutor Runs tasks on the server main thread
+     * @param ioThreads Size of the pool running IO providers and handlers
+     */
+    public ExtensionLoader(JavaPlugin plugin, Executor mainThreadExecutor, int ioThreads) {
         this.plugin = plugin;
+        this.mainThreadExecutor = mainThreadExecutor;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.ioExecutor = Executors.newFixedThreadPool(Math.max(1, ioThreads), runnable -> {
+            Thread thread = new Thread(runnable, "FlexGateway-Extension-IO-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = new ExtensionCache(plugin.getConfig().getInt("extensions.cache_max_entries", 10000));
         this.extensionsFolder = new File(plugin.getDataFolder(), "extensions");
 
         if (!extensionsFolder.exists()) {
@@ -152,35 +195,317 @@ public class ExtensionLoader {
         dataProviders.clear();
         actionHandlers.clear();
         baseEndpointEnhancers.clear();
+        enhancerOwners.clear();
+        breakers.clear();
+        cache.clear();
+        ioExecutor.shutdownNow();
     }
 
-    // Enhanced data methods for base endpoints
-    public JsonObject enhanceBaseEndpoint(String baseEndpoint, JsonObject originalData, String identifier, Map<String, String> parameters) {
-        List<BaseEndpointEnhancer> enhancers = baseEndpointEnhancers.get(baseEndpoint);
-        if (enhancers == null || enhancers.isEmpty()) {
-            return originalData;
+    /**
+     * Get a provider's data, from the cache when its policy allows it, otherwise running it
+     * on the thread it declared. Fails with a RejectedExecutionException while the
+     * extension's circuit breaker is open and a TimeoutException past its time limit.
+     */
+    public CompletableFuture<JsonElement> fetchData(String extensionName, DataProvider provider, Map<String, String> parameters) {
+        CachePolicy policy = provider.getCachePolicy();
+        if (policy == null) {
+            return guard(extensionName, provider.getThreadingRequirement(), () -> provider.getDataAsync(parameters));
         }
 
-        // Sort by priority (higher numbers processed later)
-        enhancers.sort(Comparator.comparingInt(BaseEndpointEnhancer::getPriority));
+        String key = ExtensionCache.key(extensionName.toLowerCase(), "data/" + provider.getEndpoint().toLowerCase(),
+                null, parameters, policy);
+        JsonElement cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return guard(extensionName, provider.getThreadingRequirement(), () -> provider.getDataAsync(parameters)).thenApply(data -> {
+            cache.put(key, data, policy);
+            return data;
+        });
+    }
 
-        // Create a copy to work with
-        JsonObject enhanced = originalData.deepCopy();
+    /**
+     * Run an action handler on the thread it declared, guarded like {@link #fetchData}
+     */
+    public CompletableFuture<JsonObject> invokeAction(String extensionName, ActionHandler handler, String method,
+                                                      Map<String, String> parameters, JsonObject body) {
+        return guard(extensionName, handler.getThreadingRequirement(), () -> handler.handleActionAsync(method, parameters, body));
+    }
 
-        for (BaseEndpointEnhancer enhancer : enhancers) {
+    private <T> CompletableFuture<T> guard(String extensionName, ThreadingRequirement requirement, Supplier<CompletionStage<T>> call) {
+        String owner = extensionName.toLowerCase();
+        CircuitBreaker breaker = breaker(owner);
+        if (!breaker.allowRequest()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Extension " + owner + " is temporarily disabled"));
+        }
+        // The call itself cannot be stopped, past the limit its result is just not waited for
+        return invoke(requirement, call)
+                .orTimeout(breaker.getTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, throwable) -> record(owner, throwable == null ? null : STATUS_FAILED, null));
+    }
+
+    private <T> CompletableFuture<T> invoke(ThreadingRequirement requirement, Supplier<CompletionStage<T>> call) {
+        if (requirement == ThreadingRequirement.ASYNC_SAFE) {
             try {
-                // Pass the response object to be modified directly
-                enhancer.enhanceResponse(enhanced, originalData, identifier, parameters);
-                plugin.getLogger().fine("Enhanced " + baseEndpoint + " with enhancer from priority " + enhancer.getPriority());
+                return call.get().toCompletableFuture();
             } catch (Exception e) {
-                plugin.getLogger().warning("Error in base endpoint enhancer: " + e.getMessage());
-                e.printStackTrace();
+                return CompletableFuture.failedFuture(e);
             }
         }
 
+        Executor executor = requirement == ThreadingRequirement.IO ? ioExecutor : mainThreadExecutor;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    call.get().whenComplete((value, throwable) -> {
+                        if (throwable != null) {
+                            result.completeExceptionally(throwable);
+                        } else {
+                            result.complete(value);
+                        }
+                    });
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            // Pool shut down or main thread queue stopped
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    public boolean hasEnhancers(String baseEndpoint) {
+        return baseEndpointEnhancers.containsKey(baseEndpoint);
+    }
+
+    // Enhanced data methods for base endpoints
+    public JsonObject enhanceBaseEndpoint(String baseEndpoint, JsonObject originalData, String identifier, Map<String, String> parameters) {
+        EnhancerChain chain = baseEndpointEnhancers.get(baseEndpoint);
+        if (chain == null) {
+            return originalData;
+        }
+
+        JsonObject enhanced = shallowCopy(originalData);
+        Map<String, String> statuses = new ConcurrentHashMap<>();
+        for (BaseEndpointEnhancer enhancer : chain.getEnhancers()) {
+            // Pass the response object to be modified directly
+            runGuarded(baseEndpoint, enhancer, enhanced, originalData, identifier, parameters, statuses);
+        }
+        addExtensionStatus(enhanced, statuses);
+
         return enhanced;
     }
 
+    /**
+     * Enhance a base endpoint response, running each stage of the chain on the thread it needs:
+     * serial stages on the main thread, parallel stages on the IO pool. Parallel enhancers fill
+     * their own fragment, merged into the response in priority order once the stage is over.
+     * Enhancers skipped, failed or over their budget are listed under "extensionStatus".
+     */
+    public CompletableFuture<JsonObject> enhanceBaseEndpointAsync(String baseEndpoint, JsonObject originalData, String identifier, Map<String, String> parameters) {
+        EnhancerChain chain = baseEndpointEnhancers.get(baseEndpoint);
+        if (chain == null) {
+            return CompletableFuture.completedFuture(originalData);
+        }
+
+        // Stages run one after the other, so only one thread touches the response at a time
+        JsonObject enhanced = shallowCopy(originalData);
+        Map<String, String> statuses = new ConcurrentHashMap<>();
+        CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+        for (EnhancerChain.Stage stage : chain.getStages()) {
+            done = done.thenCompose(ignored -> stage.parallel
+                    ? runParallelStage(baseEndpoint, stage, enhanced, originalData, identifier, parameters, statuses)
+                    : invoke(ThreadingRequirement.MAIN, () -> {
+                        for (BaseEndpointEnhancer enhancer : stage.enhancers) {
+                            runGuarded(baseEndpoint, enhancer, enhanced, originalData, identifier, parameters, statuses);
+                        }
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }));
+        }
+        return done.thenApply(ignored -> {
+            addExtensionStatus(enhanced, statuses);
+            return enhanced;
+        });
+    }
+
+    private CompletableFuture<Void> runParallelStage(String baseEndpoint, EnhancerChain.Stage stage, JsonObject enhanced,
+                                                     JsonObject originalData, String identifier, Map<String, String> parameters,
+                                                     Map<String, String> statuses) {
+        List<CompletableFuture<Fragment>> fragments = new ArrayList<>(stage.enhancers.length);
+        for (BaseEndpointEnhancer enhancer : stage.enhancers) {
+            String owner = ownerOf(enhancer);
+            CircuitBreaker breaker = breaker(owner);
+            if (!breaker.allowRequest()) {
+                statuses.put(owner, STATUS_SKIPPED);
+                fragments.add(CompletableFuture.completedFuture(Fragment.SKIPPED));
+                continue;
+            }
+
+            // A lone quick enhancer is not worth a thread hop
+            ThreadingRequirement requirement = stage.enhancers.length == 1 ? enhancer.getThreadingRequirement() : ThreadingRequirement.IO;
+            fragments.add(invoke(requirement, () -> {
+                JsonObject values = new JsonObject();
+                String status = applyEnhancer(baseEndpoint, enhancer, values, originalData, identifier, parameters, breaker);
+                return CompletableFuture.completedFuture(new Fragment(values, status));
+            }).exceptionally(throwable -> {
+                plugin.getLogger().warning("Could not run base endpoint enhancer: " + throwable.getMessage());
+                return new Fragment(null, STATUS_FAILED);
+            }).completeOnTimeout(Fragment.TIMED_OUT, breaker.getBudgetMillis(), TimeUnit.MILLISECONDS));
+        }
+
+        return CompletableFuture.allOf(fragments.toArray(new CompletableFuture[0])).thenRun(() -> {
+            // Same order as the chain, so the result does not depend on which enhancer finished first
+            for (int i = 0; i < fragments.size(); i++) {
+                Fragment fragment = fragments.get(i).join();
+                if (fragment == Fragment.SKIPPED) {
+                    continue;
+                }
+                record(ownerOf(stage.enhancers[i]), fragment.status, statuses);
+                if (fragment.values != null && !STATUS_FAILED.equals(fragment.status)) {
+                    for (Map.Entry<String, JsonElement> entry : fragment.values.entrySet()) {
+                        enhanced.add(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        });
+    }
+
+    // Serial enhancers run to completion, going over the budget counts against the extension
+    private void runGuarded(String baseEndpoint, BaseEndpointEnhancer enhancer, JsonObject response, JsonObject originalData,
+                            String identifier, Map<String, String> parameters, Map<String, String> statuses) {
+        String owner = ownerOf(enhancer);
+        CircuitBreaker breaker = breaker(owner);
+        if (!breaker.allowRequest()) {
+            statuses.put(owner, STATUS_SKIPPED);
+            return;
+        }
+        record(owner, applyEnhancer(baseEndpoint, enhancer, response, originalData, identifier, parameters, breaker), statuses);
+    }
+
+    /**
+     * Run an enhancer, or reuse its cached fragment. Returns null when it went well, otherwise
+     * {@link #STATUS_FAILED} or {@link #STATUS_SLOW}.
+     */
+    private String applyEnhancer(String baseEndpoint, BaseEndpointEnhancer enhancer, JsonObject response, JsonObject originalData,
+                                 String identifier, Map<String, String> parameters, CircuitBreaker breaker) {
+        long start = System.nanoTime();
+        boolean applied = applyCached(baseEndpoint, enhancer, response, originalData, identifier, parameters);
+        if (!applied) {
+            return STATUS_FAILED;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMillis > breaker.getBudgetMillis()) {
+            plugin.getLogger().warning("Base endpoint enhancer for " + baseEndpoint + " from " + ownerOf(enhancer)
+                    + " took " + elapsedMillis + "ms (budget: " + breaker.getBudgetMillis() + "ms)");
+            return STATUS_SLOW;
+        }
+        return null;
+    }
+
+    private boolean applyCached(String baseEndpoint, BaseEndpointEnhancer enhancer, JsonObject response,
+                                JsonObject originalData, String identifier, Map<String, String> parameters) {
+        CachePolicy policy = enhancer.getCachePolicy();
+        if (policy == null) {
+            return runEnhancer(baseEndpoint, enhancer, response, originalData, identifier, parameters);
+        }
+
+        // Cached enhancers fill a fragment of their own, reused until it expires
+        String key = ExtensionCache.key(ownerOf(enhancer),
+                "enhancer/" + baseEndpoint + "/" + enhancer.getClass().getName(), identifier, parameters, policy);
+        JsonElement fragment = cache.get(key);
+        if (fragment == null) {
+            JsonObject values = new JsonObject();
+            if (!runEnhancer(baseEndpoint, enhancer, values, originalData, identifier, parameters)) {
+                return false;
+            }
+            cache.put(key, values, policy);
+            fragment = values;
+        }
+        for (Map.Entry<String, JsonElement> entry : fragment.getAsJsonObject().entrySet()) {
+            response.add(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private boolean runEnhancer(String baseEndpoint, BaseEndpointEnhancer enhancer, JsonObject response,
+                                JsonObject originalData, String identifier, Map<String, String> parameters) {
+        try {
+            enhancer.enhanceResponse(response, originalData, identifier, parameters);
+            plugin.getLogger().fine("Enhanced " + baseEndpoint + " with enhancer from priority " + enhancer.getPriority());
+            return true;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error in base endpoint enhancer: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private String ownerOf(BaseEndpointEnhancer enhancer) {
+        return enhancerOwners.getOrDefault(enhancer, "unknown");
+    }
+
+    private CircuitBreaker breaker(String extensionName) {
+        return breakers.computeIfAbsent(extensionName, name -> {
+            // extensions.limits.overrides.<extension>.* takes precedence over extensions.limits.*
+            String defaults = "extensions.limits.";
+            String overrides = defaults + "overrides." + name + ".";
+            FileConfiguration config = plugin.getConfig();
+            return new CircuitBreaker(
+                    config.getLong(overrides + "enhancer_budget_ms", config.getLong(defaults + "enhancer_budget_ms", 50L)),
+                    config.getLong(overrides + "provider_timeout_ms", config.getLong(defaults + "provider_timeout_ms", 5000L)),
+                    config.getInt(overrides + "failure_threshold", config.getInt(defaults + "failure_threshold", 5)),
+                    config.getLong(overrides + "open_ms", config.getLong(defaults + "open_ms", 30000L)));
+        });
+    }
+
+    private void record(String owner, String status, Map<String, String> statuses) {
+        CircuitBreaker breaker = breaker(owner);
+        if (status == null) {
+            breaker.recordSuccess();
+            return;
+        }
+        if (statuses != null) {
+            statuses.put(owner, status);
+        }
+        if (breaker.recordFailure()) {
+            plugin.getLogger().warning("Extension " + owner + " failed or went over its time limit too often, skipping it for a while");
+        }
+    }
+
+    private static void addExtensionStatus(JsonObject response, Map<String, String> statuses) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        JsonObject status = new JsonObject();
+        new TreeMap<>(statuses).forEach(status::addProperty);
+        response.add("extensionStatus", status);
+    }
+
+    // Result of a parallel enhancer, values are null when it did not complete
+    private static final class Fragment {
+        static final Fragment SKIPPED = new Fragment(null, STATUS_SKIPPED);
+        static final Fragment TIMED_OUT = new Fragment(null, STATUS_TIMEOUT);
+
+        final JsonObject values;
+        final String status;
+
+        Fragment(JsonObject values, String status) {
+            this.values = values;
+            this.status = status;
+        }
+    }
+
+    // Enhancers add top-level fields, nested values are shared with the original data
+    private static JsonObject shallowCopy(JsonObject data) {
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : data.entrySet()) {
+            copy.add(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
     /**
      * Read extension manifest from JAR
      */
@@ -249,6 +574,9 @@ public class ExtensionLoader {
             FlexGatewayExtension extension = loadedExtension.extension;
             JsonObject extInfo = extension.getInfo();
             extInfo.addProperty("enabled", loadedExtension.enabled);
+            CircuitBreaker breaker = breaker(extension.getName().toLowerCase());
+            extInfo.addProperty("circuit", breaker.getState());
+            extInfo.addProperty("circuitTrips", breaker.getTrips());
             extInfo.addProperty("jarFile", loadedExtension.jarFile.getName());
 
             // Add endpoint information
@@ -294,8 +622,8 @@ public class ExtensionLoader {
             extInfo.add("actionEndpoints", actionEndpoints);
 
             JsonArray baseEnhancements = new JsonArray();
-            for (Map.Entry<String, List<BaseEndpointEnhancer>> entry : baseEndpointEnhancers.entrySet()) {
-                for (BaseEndpointEnhancer enhancer : entry.getValue()) {
+            for (EnhancerChain chain : baseEndpointEnhancers.values()) {
+                for (BaseEndpointEnhancer enhancer : chain.getEnhancers()) {
                     // Check if this enhancer belongs to this extension (simple check by class loader)
                     if (enhancer.getClass().getClassLoader() == loadedExtension.classLoader) {
                         JsonObject enhancement = new JsonObject();
@@ -314,6 +642,12 @@ public class ExtensionLoader {
         info.add("extensions", extensionsList);
         info.addProperty("count", loadedExtensions.size());
 
+        JsonObject cacheInfo = new JsonObject();
+        cacheInfo.addProperty("entries", cache.size());
+        cacheInfo.addProperty("hits", cache.getHits());
+        cacheInfo.addProperty("misses", cache.getMisses());
+        info.add("cache", cacheInfo);
+
         return info;
     }
 
@@ -390,6 +724,11 @@ public class ExtensionLoader {
                 logger.warning("Data provider endpoint '" + endpoint + "' already exists");
                 return false;
             }
+            if (!overrides(provider, DataProvider.class, "getData", Map.class)
+                    && !overrides(provider, DataProvider.class, "getDataAsync", Map.class)) {
+                logger.warning("Data provider '" + endpoint + "' implements neither getData nor getDataAsync");
+                return false;
+            }
 
             providers.put(endpoint, provider);
             logger.info("Registered data provider: " + endpoint);
@@ -406,18 +745,33 @@ public class ExtensionLoader {
                 logger.warning("Action handler endpoint '" + endpoint + "' already exists");
                 return false;
             }
+            if (!overrides(handler, ActionHandler.class, "handleAction", String.class, Map.class, JsonObject.class)
+                    && !overrides(handler, ActionHandler.class, "handleActionAsync", String.class, Map.class, JsonObject.class)) {
+                logger.warning("Action handler '" + endpoint + "' implements neither handleAction nor handleActionAsync");
+                return false;
+            }
 
             handlers.put(endpoint, handler);
             logger.info("Registered action handler: " + endpoint);
             return true;
         }
 
+        // The sync and async methods default to each other, with neither implemented a call never returns
+        private boolean overrides(Object implementation, Class<?> api, String method, Class<?>... parameterTypes) {
+            try {
+                return implementation.getClass().getMethod(method, parameterTypes).getDeclaringClass() != api;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+
         @Override
         public boolean registerBaseEndpointEnhancer(BaseEndpointEnhancer enhancer) {
             String baseEndpoint = enhancer.getBaseEndpoint().toLowerCase();
-            List<BaseEndpointEnhancer> enhancers = baseEndpointEnhancers.computeIfAbsent(baseEndpoint, k -> new ArrayList<>());
+            enhancerOwners.put(enhancer, extension.getName().toLowerCase());
+            baseEndpointEnhancers.compute(baseEndpoint, (k, current) ->
+                    current == null ? EnhancerChain.of(enhancer) : current.with(enhancer));
 
-            enhancers.add(enhancer);
             logger.info("Registered base endpoint enhancer for: " + baseEndpoint + " (priority: " + enhancer.getPriority() + ")");
             return true;
         }
@@ -425,12 +779,19 @@ public class ExtensionLoader {
         @Override
         public boolean unregisterBaseEndpointEnhancer(String baseEndpoint, String enhancementKey) {
             // This method signature is no longer relevant, but keep for compatibility
-            List<BaseEndpointEnhancer> enhancers = baseEndpointEnhancers.get(baseEndpoint.toLowerCase());
-            if (enhancers == null) return false;
-
             // Remove all enhancers from this extension's class loader
-            boolean removed = enhancers.removeIf(e -> e.getClass().getClassLoader() == this.classLoader);
-            return removed;
+            boolean[] removed = {false};
+            baseEndpointEnhancers.computeIfPresent(baseEndpoint.toLowerCase(), (k, current) -> {
+                EnhancerChain kept = current.without(e -> e.getClass().getClassLoader() == this.classLoader);
+                for (BaseEndpointEnhancer enhancer : current.getEnhancers()) {
+                    if (enhancer.getClass().getClassLoader() == this.classLoader) {
+                        enhancerOwners.remove(enhancer);
+                    }
+                }
+                removed[0] = kept != current;
+                return kept;
+            });
+            return removed[0];
         }
 
         @Override
@@ -445,6 +806,11 @@ public class ExtensionLoader {
             return handlers != null && handlers.remove(endpoint.toLowerCase()) != null;
         }
 
+        @Override
+        public void invalidateCacheTags(String... tags) {
+            cache.invalidateTags(extension.getName().toLowerCase(), new HashSet<>(Arrays.asList(tags)));
+        }
+
         @Override
         public ExtensionConfig getConfig() {
             if (config == null) {
@@ -1,8 +1,12 @@
 package fr.neocle.flexgateway.api.provider;
 
 import com.google.gson.JsonElement;
+import fr.neocle.flexgateway.api.ThreadingRequirement;
+import fr.neocle.flexgateway.api.cache.CachePolicy;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Interface for providing data through the API
@@ -16,10 +20,39 @@ public interface DataProvider {
 
     /**
      * Get data for this endpoint
+     * Implement either this method or {@link #getDataAsync}, providers with neither are rejected
      * @param parameters Query parameters from the request
      * @return JSON data to return
      */
-    JsonElement getData(Map<String, String> parameters);
+    default JsonElement getData(Map<String, String> parameters) {
+        return getDataAsync(parameters).toCompletableFuture().join();
+    }
+
+    /**
+     * Get data for this endpoint without blocking, e.g. from an asynchronous plugin API
+     * Called on the thread given by {@link #getThreadingRequirement()}
+     * @param parameters Query parameters from the request
+     * @return Stage completed with the JSON data to return
+     */
+    default CompletionStage<JsonElement> getDataAsync(Map<String, String> parameters) {
+        return CompletableFuture.completedFuture(getData(parameters));
+    }
+
+    /**
+     * Get the thread this provider has to run on
+     * Providers that do not touch Bukkit state should not use MAIN, it costs tick time
+     */
+    default ThreadingRequirement getThreadingRequirement() {
+        return ThreadingRequirement.MAIN;
+    }
+
+    /**
+     * Get how long the data can be reused, null to compute it on every request
+     * Cached data is shared between requests and must not be modified afterwards
+     */
+    default CachePolicy getCachePolicy() {
+        return null;
+    }
 
     /**
      * Get endpoint description for API documentation
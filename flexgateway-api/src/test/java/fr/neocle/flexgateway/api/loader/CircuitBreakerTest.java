@@ -0,0 +1,97 @@
+package fr.neocle.flexgateway.api.loader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 1_000, 3, 60_000);
+
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.recordFailure());
+
+        assertFalse(breaker.allowRequest());
+        assertEquals("open", breaker.getState());
+        assertEquals(1, breaker.getTrips());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 1_000, 2, 60_000);
+
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        assertFalse(breaker.recordFailure());
+
+        assertTrue(breaker.allowRequest());
+        assertEquals("closed", breaker.getState());
+    }
+
+    @Test
+    void lateFailuresDoNotTripAnOpenBreakerAgain() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 1_000, 1, 60_000);
+
+        assertTrue(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertEquals(1, breaker.getTrips());
+    }
+
+    @Test
+    void letsOneTrialThroughOnceTheOpenTimeHasPassed() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(50, 1_000, 1, 20);
+        breaker.recordFailure();
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(50);
+        assertEquals("half_open", breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        assertEquals("half_open", breaker.getState());
+    }
+
+    @Test
+    void successfulTrialClosesTheBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(50, 1_000, 1, 20);
+        breaker.recordFailure();
+        Thread.sleep(50);
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordSuccess();
+
+        assertEquals("closed", breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void failedTrialReopensTheBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(50, 1_000, 5, 20);
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure();
+        }
+        Thread.sleep(50);
+        assertTrue(breaker.allowRequest());
+
+        assertTrue(breaker.recordFailure());
+
+        assertEquals("open", breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(2, breaker.getTrips());
+    }
+
+    @Test
+    void limitsAreClampedToSaneValues() {
+        CircuitBreaker breaker = new CircuitBreaker(0, -5, 0, -1);
+
+        assertEquals(1, breaker.getBudgetMillis());
+        assertEquals(1, breaker.getTimeoutMillis());
+        assertTrue(breaker.recordFailure());
+    }
+}
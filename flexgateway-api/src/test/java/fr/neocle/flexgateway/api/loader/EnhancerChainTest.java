@@ -0,0 +1,146 @@
+package fr.neocle.flexgateway.api.loader;
+
+import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.api.ThreadingRequirement;
+import fr.neocle.flexgateway.api.enhancer.BaseEndpointEnhancer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnhancerChainTest {
+
+    private static BaseEndpointEnhancer enhancer(int priority, ThreadingRequirement threading, String... keys) {
+        return new BaseEndpointEnhancer() {
+            @Override
+            public String getBaseEndpoint() {
+                return "player";
+            }
+
+            @Override
+            public void enhanceResponse(JsonObject response, JsonObject originalData, String identifier,
+                                        Map<String, String> parameters) {
+            }
+
+            @Override
+            public String getDescription() {
+                return "test " + priority;
+            }
+
+            @Override
+            public int getPriority() {
+                return priority;
+            }
+
+            @Override
+            public ThreadingRequirement getThreadingRequirement() {
+                return threading;
+            }
+
+            @Override
+            public Set<String> getWrittenKeys() {
+                return Set.of(keys);
+            }
+        };
+    }
+
+    private static EnhancerChain chain(BaseEndpointEnhancer... enhancers) {
+        EnhancerChain chain = EnhancerChain.of(enhancers[0]);
+        for (int i = 1; i < enhancers.length; i++) {
+            chain = chain.with(enhancers[i]);
+        }
+        return chain;
+    }
+
+    @Test
+    void enhancersAreSortedByPriorityKeepingRegistrationOrder() {
+        BaseEndpointEnhancer late = enhancer(200, ThreadingRequirement.MAIN);
+        BaseEndpointEnhancer first = enhancer(100, ThreadingRequirement.MAIN);
+        BaseEndpointEnhancer second = enhancer(100, ThreadingRequirement.MAIN);
+        BaseEndpointEnhancer early = enhancer(10, ThreadingRequirement.MAIN);
+
+        EnhancerChain chain = chain(late, first, second, early);
+
+        assertArrayEquals(new BaseEndpointEnhancer[]{early, first, second, late}, chain.getEnhancers());
+    }
+
+    @Test
+    void mainThreadEnhancersShareOneSerialStage() {
+        EnhancerChain chain = chain(enhancer(100, ThreadingRequirement.MAIN, "a"),
+                enhancer(100, ThreadingRequirement.MAIN, "b"));
+
+        assertEquals(1, chain.getStages().length);
+        assertFalse(chain.getStages()[0].parallel);
+        assertEquals(2, chain.getStages()[0].enhancers.length);
+    }
+
+    @Test
+    void enhancersWithoutDeclaredKeysStaySerial() {
+        EnhancerChain chain = chain(enhancer(100, ThreadingRequirement.IO),
+                enhancer(100, ThreadingRequirement.ASYNC_SAFE));
+
+        assertEquals(1, chain.getStages().length);
+        assertFalse(chain.getStages()[0].parallel);
+    }
+
+    @Test
+    void offMainEnhancersWithDistinctKeysRunInParallel() {
+        EnhancerChain chain = chain(enhancer(100, ThreadingRequirement.IO, "luckperms"),
+                enhancer(100, ThreadingRequirement.ASYNC_SAFE, "economy", "rank"));
+
+        assertEquals(1, chain.getStages().length);
+        assertTrue(chain.getStages()[0].parallel);
+        assertEquals(2, chain.getStages()[0].enhancers.length);
+    }
+
+    @Test
+    void sharedKeyStartsANewStage() {
+        EnhancerChain chain = chain(enhancer(100, ThreadingRequirement.IO, "stats"),
+                enhancer(100, ThreadingRequirement.IO, "rank", "stats"));
+
+        assertEquals(2, chain.getStages().length);
+        assertTrue(chain.getStages()[0].parallel);
+        assertTrue(chain.getStages()[1].parallel);
+    }
+
+    @Test
+    void mainThreadEnhancerSplitsParallelStages() {
+        BaseEndpointEnhancer a = enhancer(10, ThreadingRequirement.IO, "a");
+        BaseEndpointEnhancer b = enhancer(20, ThreadingRequirement.IO, "b");
+        BaseEndpointEnhancer main = enhancer(30, ThreadingRequirement.MAIN, "c");
+        BaseEndpointEnhancer d = enhancer(40, ThreadingRequirement.ASYNC_SAFE, "d");
+
+        EnhancerChain.Stage[] stages = chain(main, d, b, a).getStages();
+
+        assertEquals(3, stages.length);
+        assertTrue(stages[0].parallel);
+        assertArrayEquals(new BaseEndpointEnhancer[]{a, b}, stages[0].enhancers);
+        assertFalse(stages[1].parallel);
+        assertArrayEquals(new BaseEndpointEnhancer[]{main}, stages[1].enhancers);
+        assertTrue(stages[2].parallel);
+        assertArrayEquals(new BaseEndpointEnhancer[]{d}, stages[2].enhancers);
+    }
+
+    @Test
+    void withoutRebuildsTheStages() {
+        BaseEndpointEnhancer a = enhancer(10, ThreadingRequirement.IO, "a");
+        BaseEndpointEnhancer main = enhancer(20, ThreadingRequirement.MAIN, "b");
+        BaseEndpointEnhancer c = enhancer(30, ThreadingRequirement.IO, "c");
+        EnhancerChain chain = chain(a, main, c);
+
+        EnhancerChain withoutMain = chain.without(enhancer -> enhancer == main);
+
+        assertEquals(1, withoutMain.getStages().length);
+        assertArrayEquals(new BaseEndpointEnhancer[]{a, c}, withoutMain.getStages()[0].enhancers);
+        assertSame(chain, chain.without(enhancer -> false));
+        assertNull(chain.without(enhancer -> true));
+        assertEquals(3, chain.getStages().length);
+    }
+}
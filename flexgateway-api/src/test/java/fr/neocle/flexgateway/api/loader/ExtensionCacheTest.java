@@ -0,0 +1,112 @@
+package fr.neocle.flexgateway.api.loader;
+
+import com.google.gson.JsonPrimitive;
+import fr.neocle.flexgateway.api.cache.CachePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExtensionCacheTest {
+
+    private static final CachePolicy MINUTE = CachePolicy.ttl(60_000);
+
+    @Test
+    void keyIgnoresParameterOrder() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("page", "1");
+        first.put("group", "admin");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("group", "admin");
+        second.put("page", "1");
+
+        assertEquals(ExtensionCache.key("LuckPerms", "groups", null, first, MINUTE),
+                ExtensionCache.key("LuckPerms", "groups", null, second, MINUTE));
+    }
+
+    @Test
+    void keyOnlyUsesTheParametersOfThePolicy() {
+        CachePolicy byGroup = MINUTE.keyedBy("group");
+
+        assertEquals(ExtensionCache.key("LuckPerms", "groups", null, Map.of("group", "admin", "t", "1"), byGroup),
+                ExtensionCache.key("LuckPerms", "groups", null, Map.of("group", "admin", "t", "2"), byGroup));
+        assertNotEquals(ExtensionCache.key("LuckPerms", "groups", null, Map.of("group", "admin"), byGroup),
+                ExtensionCache.key("LuckPerms", "groups", null, Map.of("group", "vip"), byGroup));
+        assertNotEquals(ExtensionCache.key("LuckPerms", "groups", null, Map.of("t", "1"), MINUTE),
+                ExtensionCache.key("LuckPerms", "groups", null, Map.of("t", "2"), MINUTE));
+    }
+
+    @Test
+    void keySeparatesOwnersSourcesAndIdentifiers() {
+        Map<String, String> none = Map.of();
+
+        assertNotEquals(ExtensionCache.key("LuckPerms", "player", "Steve", none, MINUTE),
+                ExtensionCache.key("Economy", "player", "Steve", none, MINUTE));
+        assertNotEquals(ExtensionCache.key("LuckPerms", "player", "Steve", none, MINUTE),
+                ExtensionCache.key("LuckPerms", "players", "Steve", none, MINUTE));
+        assertNotEquals(ExtensionCache.key("LuckPerms", "player", "Steve", none, MINUTE),
+                ExtensionCache.key("LuckPerms", "player", "Alex", none, MINUTE));
+    }
+
+    @Test
+    void storesUntilExpired() throws InterruptedException {
+        ExtensionCache cache = new ExtensionCache(10);
+        cache.put("a", new JsonPrimitive(1), MINUTE);
+        cache.put("b", new JsonPrimitive(2), CachePolicy.ttl(20));
+
+        assertEquals(new JsonPrimitive(1), cache.get("a"));
+        assertNotNull(cache.get("b"));
+        Thread.sleep(50);
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void nothingIsStoredWithoutTtl() {
+        ExtensionCache cache = new ExtensionCache(10);
+        cache.put("a", new JsonPrimitive(1), CachePolicy.ttl(0));
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void fullCacheOnlyMakesRoomByDroppingExpiredEntries() throws InterruptedException {
+        ExtensionCache cache = new ExtensionCache(2);
+        cache.put("short", new JsonPrimitive(1), CachePolicy.ttl(20));
+        cache.put("long", new JsonPrimitive(2), MINUTE);
+        cache.put("rejected", new JsonPrimitive(3), MINUTE);
+        assertNull(cache.get("rejected"));
+
+        Thread.sleep(50);
+        cache.put("added", new JsonPrimitive(4), MINUTE);
+        assertNotNull(cache.get("added"));
+        assertNotNull(cache.get("long"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void tagInvalidationIsScopedToTheExtension() {
+        ExtensionCache cache = new ExtensionCache(10);
+        CachePolicy groups = MINUTE.taggedWith("groups");
+        String ownGroups = ExtensionCache.key("LuckPerms", "groups", null, Map.of(), groups);
+        String ownTracks = ExtensionCache.key("LuckPerms", "tracks", null, Map.of(), MINUTE.taggedWith("tracks"));
+        String otherGroups = ExtensionCache.key("Economy", "groups", null, Map.of(), groups);
+        cache.put(ownGroups, new JsonPrimitive(1), groups);
+        cache.put(ownTracks, new JsonPrimitive(2), MINUTE.taggedWith("tracks"));
+        cache.put(otherGroups, new JsonPrimitive(3), groups);
+
+        cache.invalidateTags("LuckPerms", Set.of("groups"));
+
+        assertNull(cache.get(ownGroups));
+        assertNotNull(cache.get(ownTracks));
+        assertNotNull(cache.get(otherGroups));
+    }
+}
@@ -6,6 +6,7 @@ import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
 import fr.neocle.flexgateway.bukkit.database.DatabaseManager;
 import fr.neocle.flexgateway.bukkit.listeners.ChatListener;
+import fr.neocle.flexgateway.bukkit.scheduler.MainThreadWorkQueue;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -20,6 +21,7 @@ public class FlexGatewayBukkit extends JavaPlugin {
     private DatabaseManager databaseManager;
     private ExtensionLoader extensionLoader;
     private TcpCommunicationServer tcpServer;
+    private MainThreadWorkQueue mainThreadQueue;
     private boolean proxyMode = false;
     private boolean standaloneMode = true;
 
@@ -30,8 +32,12 @@ public class FlexGatewayBukkit extends JavaPlugin {
         // Detect proxy mode first
         detectProxyMode();
 
-        // Initialize extension loader
-        extensionLoader = new ExtensionLoader(this);
+        // Work coming from the API threads is drained on the main thread once per tick
+        mainThreadQueue = new MainThreadWorkQueue(this);
+        mainThreadQueue.start();
+
+        // Initialize extension loader, providers only run on the main thread when they ask for it
+        extensionLoader = new ExtensionLoader(this, mainThreadQueue::execute, getConfig().getInt("extensions.io_threads", 4));
 
         // Initialize database
         getLogger().info("Initializing database...");
@@ -44,6 +50,7 @@ public class FlexGatewayBukkit extends JavaPlugin {
         }
 
         dataManager = new DataManager(this, databaseManager);
+        dataManager.getSnapshotEngine().start();
 
         // Register chat listener
         if (databaseManager.isConnected()) {
@@ -170,6 +177,14 @@ public class FlexGatewayBukkit extends JavaPlugin {
             tcpServer.stop();
         }
 
+        if (mainThreadQueue != null) {
+            mainThreadQueue.stop();
+        }
+
+        if (dataManager != null) {
+            dataManager.getSnapshotEngine().stop();
+        }
+
         if (databaseManager != null) {
             databaseManager.close();
         }
@@ -179,6 +194,10 @@ public class FlexGatewayBukkit extends JavaPlugin {
         return databaseManager;
     }
 
+    public MainThreadWorkQueue getMainThreadQueue() {
+        return mainThreadQueue;
+    }
+
     public ExtensionLoader getExtensionLoader() {
         return extensionLoader;
     }
@@ -0,0 +1,145 @@
+package fr.neocle.flexgateway.bukkit.communication;
+
+import fr.neocle.flexgateway.common.protocol.Frame;
+import fr.neocle.flexgateway.common.protocol.FrameCodec;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One proxy connection served by the selector thread. Only the selector thread touches the
+ * channel, workers hand their responses over through the write queue.
+ */
+class ProxyConnection {
+    private static final int INITIAL_READ_BUFFER = 8 * 1024;
+
+    private final SocketChannel channel;
+    private final SocketAddress remoteAddress;
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    private long lastRead;
+    private volatile long lastWrite;
+    private volatile boolean closed = false;
+    // Receives state pushes once the proxy subscribed
+    private volatile boolean subscribed = false;
+
+    ProxyConnection(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        this.remoteAddress = channel.getRemoteAddress();
+        this.lastRead = System.currentTimeMillis();
+        this.lastWrite = lastRead;
+    }
+
+    /**
+     * Read what is available and decode every complete frame. Returns the number of bytes
+     * read, or -1 when the proxy closed the connection.
+     */
+    int read(FrameCodec codec, List<Frame> frames) throws IOException {
+        if (!readBuffer.hasRemaining()) {
+            // A frame larger than the buffer, the codec rejects anything above its maximum
+            ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+
+        int read = channel.read(readBuffer);
+        if (read <= 0) {
+            return read;
+        }
+        lastRead = System.currentTimeMillis();
+
+        readBuffer.flip();
+        Frame frame;
+        while ((frame = codec.decode(readBuffer)) != null) {
+            frames.add(frame);
+        }
+        readBuffer.compact();
+        return read;
+    }
+
+    /** Queue an encoded frame, the caller must then ask the selector thread to flush. */
+    void enqueue(ByteBuffer buffer) {
+        if (!closed) {
+            if (writeQueue.isEmpty()) {
+                // The write timeout counts from the oldest response still waiting
+                lastWrite = System.currentTimeMillis();
+            }
+            writeQueue.add(buffer);
+        }
+    }
+
+    /**
+     * Write as much as the socket accepts. Returns the number of bytes written.
+     */
+    long flush() throws IOException {
+        long written = 0;
+        ByteBuffer buffer;
+        while ((buffer = writeQueue.peek()) != null) {
+            int count = channel.write(buffer);
+            written += count;
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            writeQueue.poll();
+        }
+        if (written > 0) {
+            lastWrite = System.currentTimeMillis();
+        }
+        return written;
+    }
+
+    boolean hasPendingWrites() {
+        return !writeQueue.isEmpty();
+    }
+
+    /** Get how long the proxy has been silent. */
+    long getReadIdleMillis(long now) {
+        return now - lastRead;
+    }
+
+    /** Get how long queued responses have been waiting for the socket. */
+    long getWriteStalledMillis(long now) {
+        return hasPendingWrites() ? now - lastWrite : 0;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    boolean isSubscribed() {
+        return subscribed;
+    }
+
+    void setSubscribed(boolean subscribed) {
+        this.subscribed = subscribed;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        writeQueue.clear();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package fr.neocle.flexgateway.bukkit.communication;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.FlexGatewayBukkit;
+import fr.neocle.flexgateway.api.loader.ExtensionLoader;
+import fr.neocle.flexgateway.bukkit.data.DataManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Streams state changes to subscribed proxies so they can answer players and server requests
+ * from memory. A subscription starts with a full snapshot, then every change is pushed as a
+ * delta carrying a sequence number; the proxy drops deltas already in the snapshot and
+ * subscribes again when it sees a gap. Everything here runs on the main thread.
+ * <p>
+ * Replicated data is not run through extension enhancers, so the snapshot and every server
+ * delta list the endpoints that have enhancers; the proxy keeps forwarding those.
+ */
+class StateReplicator implements Listener {
+    private static final String[] REPLICATED_ENDPOINTS = {"players", "server", "worlds"};
+
+    private final FlexGatewayBukkit plugin;
+    private final DataManager dataManager;
+    private final ExtensionLoader extensionLoader;
+    private final TcpCommunicationServer server;
+    private final long serverIntervalTicks;
+    private final long playersRefreshTicks;
+
+    // Main thread only
+    private long sequence = 0;
+    private BukkitTask serverTask;
+    private BukkitTask playersTask;
+
+    StateReplicator(FlexGatewayBukkit plugin, DataManager dataManager, ExtensionLoader extensionLoader,
+                    TcpCommunicationServer server) {
+        this.plugin = plugin;
+        this.dataManager = dataManager;
+        this.extensionLoader = extensionLoader;
+        this.server = server;
+        this.serverIntervalTicks = Math.max(1L, plugin.getConfig().getLong("tcp.push.server_interval_ticks", 100L));
+        this.playersRefreshTicks = Math.max(1L, plugin.getConfig().getLong("tcp.push.players_refresh_ticks", 40L));
+    }
+
+    void start() {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        serverTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::pushServer,
+                serverIntervalTicks, serverIntervalTicks);
+        playersTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::pushPlayers,
+                playersRefreshTicks, playersRefreshTicks);
+    }
+
+    void stop() {
+        HandlerList.unregisterAll(this);
+        if (serverTask != null) {
+            serverTask.cancel();
+            serverTask = null;
+        }
+        if (playersTask != null) {
+            playersTask.cancel();
+            playersTask = null;
+        }
+    }
+
+    /**
+     * Subscribe a connection and build the snapshot it starts from. The connection receives
+     * pushes from now on, the snapshot tells the proxy which of them it already covers.
+     */
+    JsonObject subscribe(ProxyConnection connection) {
+        connection.setSubscribed(true);
+
+        JsonObject snapshot = new JsonObject();
+        snapshot.addProperty("seq", sequence);
+        snapshot.add("server", dataManager.getServerInfo());
+        snapshot.add("players", dataManager.getOnlinePlayers());
+        snapshot.add("worlds", dataManager.getWorlds());
+        snapshot.add("enhanced", getEnhancedEndpoints());
+        plugin.getLogger().info("Proxy subscribed to state updates: " + connection.getRemoteAddress());
+        return snapshot;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (!server.hasSubscribers()) {
+            return;
+        }
+        JsonObject delta = delta("player_join");
+        delta.add("player", dataManager.getOnlinePlayer(event.getPlayer()));
+        server.push(delta);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        if (!server.hasSubscribers()) {
+            return;
+        }
+        JsonObject delta = delta("player_quit");
+        delta.addProperty("uuid", event.getPlayer().getUniqueId().toString());
+        server.push(delta);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        pushWorldsLater();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        pushWorldsLater();
+    }
+
+    // The world list only reflects the change once the event is over
+    private void pushWorldsLater() {
+        if (!server.hasSubscribers()) {
+            return;
+        }
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            JsonObject delta = delta("worlds");
+            delta.add("worlds", dataManager.getWorlds());
+            server.push(delta);
+        });
+    }
+
+    // TPS, memory, player and message counts change all the time, sent on a timer
+    private void pushServer() {
+        if (!server.hasSubscribers()) {
+            return;
+        }
+        JsonObject delta = delta("server");
+        delta.add("server", dataManager.getServerInfo());
+        // Extensions can register enhancers after the proxy subscribed
+        delta.add("enhanced", getEnhancedEndpoints());
+        server.push(delta);
+    }
+
+    // Player entries are only replaced on join, locations and health are refreshed every couple of seconds
+    private void pushPlayers() {
+        if (!server.hasSubscribers()) {
+            return;
+        }
+        JsonObject delta = delta("players");
+        delta.add("players", dataManager.getOnlinePlayers());
+        server.push(delta);
+    }
+
+    private JsonArray getEnhancedEndpoints() {
+        JsonArray enhanced = new JsonArray();
+        for (String endpoint : REPLICATED_ENDPOINTS) {
+            if (extensionLoader.hasEnhancers(endpoint)) {
+                enhanced.add(endpoint);
+            }
+        }
+        return enhanced;
+    }
+
+    private JsonObject delta(String type) {
+        JsonObject delta = new JsonObject();
+        delta.addProperty("seq", ++sequence);
+        delta.addProperty("type", type);
+        return delta;
+    }
+}
@@ -1,250 +1,557 @@
 package fr.neocle.flexgateway.bukkit.communication;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import fr.neocle.flexgateway.FlexGatewayBukkit;
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
+import fr.neocle.flexgateway.common.protocol.Frame;
+import fr.neocle.flexgateway.common.protocol.FrameCodec;
+import fr.neocle.flexgateway.common.protocol.FrameType;
+import fr.neocle.flexgateway.common.protocol.PayloadOutputStream;
 
 import java.io.*;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.CountDownLatch;
-
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the proxy over non-blocking sockets. A single selector thread accepts, reads and
+ * writes every connection; decoding requests, encoding responses and database reads run on a
+ * bounded worker pool, and work needing live server state goes through the main thread queue.
+ * Proxies that subscribe also receive state changes as push frames, see {@link StateReplicator}.
+ */
 public class TcpCommunicationServer {
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
     private final FlexGatewayBukkit plugin;
     private final DataManager dataManager;
     private final ExtensionLoader extensionLoader;
-    private final JsonParser jsonParser = new JsonParser();
-
-    private ServerSocket serverSocket;
-    private ExecutorService threadPool;
-    private volatile boolean running = false;
+    private final Gson gson = new Gson();
+    private final FrameCodec codec;
     private final int port;
+    private final int maxConnections;
+    private final long readTimeoutMs;
+    private final long writeTimeoutMs;
+
+    private final ThreadPoolExecutor workPool;
+    // Single thread so pushes leave in the order they were produced
+    private final ExecutorService pushExecutor;
+    private final StateReplicator replicator;
+    private final Set<ProxyConnection> connections = ConcurrentHashMap.newKeySet();
+    // Connections with new responses, picked up by the selector thread
+    private final Queue<ProxyConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
+    private final AtomicLong timedOutConnections = new AtomicLong();
+    private final AtomicLong receivedRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong pushesSent = new AtomicLong();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running = false;
 
     public TcpCommunicationServer(FlexGatewayBukkit plugin, DataManager dataManager, ExtensionLoader extensionLoader, int port) {
         this.plugin = plugin;
         this.dataManager = dataManager;
         this.extensionLoader = extensionLoader;
         this.port = port;
-        this.threadPool = Executors.newFixedThreadPool(10);
+        this.codec = new FrameCodec(plugin.getConfig().getInt("tcp.compression_threshold_bytes", 8192));
+        this.maxConnections = Math.max(1, plugin.getConfig().getInt("tcp.max_connections", 1000));
+        this.readTimeoutMs = Math.max(1000L, plugin.getConfig().getLong("tcp.read_timeout_ms", 120_000L));
+        this.writeTimeoutMs = Math.max(1000L, plugin.getConfig().getLong("tcp.write_timeout_ms", 30_000L));
+
+        int workerThreads = Math.max(1, plugin.getConfig().getInt("tcp.worker_threads", 4));
+        int workerQueue = Math.max(1, plugin.getConfig().getInt("tcp.worker_queue_capacity", 1000));
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workPool = new ThreadPoolExecutor(workerThreads, workerThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "FlexGateway-TCP-Worker-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FlexGateway-TCP-Push");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.replicator = new StateReplicator(plugin, dataManager, extensionLoader, this);
     }
 
     public void start() throws IOException {
-        serverSocket = new ServerSocket(port);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
         running = true;
 
+        selectorThread = new Thread(this::runSelector, "FlexGateway-TCP-Selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        replicator.start();
+
         plugin.getLogger().info("TCP Communication Server started on port: " + port);
+    }
 
-        // Accept connections in a separate thread
-        threadPool.submit(() -> {
-            while (running && !serverSocket.isClosed()) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    plugin.getLogger().info("TCP connection accepted from: " + clientSocket.getRemoteSocketAddress());
+    public void stop() {
+        running = false;
+        replicator.stop();
+
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (selectorThread != null) {
+            try {
+                selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            selectorThread = null;
+        }
+
+        workPool.shutdown();
+        pushExecutor.shutdown();
+        plugin.getLogger().info("TCP Communication Server stopped");
+    }
 
-                    // Handle each connection in a separate thread
-                    threadPool.submit(() -> handleConnection(clientSocket));
+    /**
+     * Get connection and request counters, reported by the status request.
+     */
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("connections_active", connections.size());
+        stats.addProperty("connections_accepted", acceptedConnections.get());
+        stats.addProperty("connections_rejected", rejectedConnections.get());
+        stats.addProperty("connections_timed_out", timedOutConnections.get());
+        stats.addProperty("requests_received", receivedRequests.get());
+        stats.addProperty("requests_rejected", rejectedRequests.get());
+        stats.addProperty("bytes_read", bytesRead.get());
+        stats.addProperty("bytes_written", bytesWritten.get());
+        stats.addProperty("worker_active", workPool.getActiveCount());
+        stats.addProperty("worker_queue", workPool.getQueue().size());
+        stats.addProperty("pushes_sent", pushesSent.get());
+        return stats;
+    }
+
+    boolean hasSubscribers() {
+        for (ProxyConnection connection : connections) {
+            if (connection.isSubscribed()) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Send a state change to every subscribed proxy. Serialized once, off the main thread.
+     */
+    void push(JsonObject delta) {
+        try {
+            pushExecutor.execute(() -> {
+                PayloadOutputStream payload = new PayloadOutputStream();
+                try (Writer writer = new OutputStreamWriter(payload, StandardCharsets.UTF_8)) {
+                    gson.toJson(delta, writer);
+                } catch (IOException e) {
+                    plugin.getLogger().warning("❌ Failed to serialize TCP push: " + e.getMessage());
+                    return;
+                }
+
+                ByteBuffer encoded;
+                try {
+                    encoded = codec.encode(payload.toFrame(FrameType.PUSH, 0));
                 } catch (IOException e) {
-                    if (running) {
-                        plugin.getLogger().warning("Error accepting TCP connection: " + e.getMessage());
+                    plugin.getLogger().warning("❌ Failed to encode TCP push: " + e.getMessage());
+                    return;
+                }
+
+                for (ProxyConnection connection : connections) {
+                    if (connection.isSubscribed()) {
+                        connection.enqueue(encoded.duplicate());
+                        pendingFlushes.add(connection);
+                        pushesSent.incrementAndGet();
                     }
                 }
-            }
-        });
+                selector.wakeup();
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down
+        }
     }
 
-    public void stop() {
-        running = false;
+    private void runSelector() {
+        List<Frame> frames = new ArrayList<>();
 
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+
+                ProxyConnection flushed;
+                while ((flushed = pendingFlushes.poll()) != null) {
+                    flush(flushed);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    ProxyConnection connection = (ProxyConnection) key.attachment();
+                    if (key.isWritable()) {
+                        flush(connection);
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        read(connection, frames);
+                    }
+                }
+
+                closeTimedOutConnections();
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    plugin.getLogger().warning("❌ TCP selector error: " + e.getMessage());
+                }
             }
+        }
+
+        for (ProxyConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+        try {
+            serverChannel.close();
+            selector.close();
         } catch (IOException e) {
             plugin.getLogger().warning("Error closing TCP server socket: " + e.getMessage());
         }
+    }
 
-        if (threadPool != null) {
-            threadPool.shutdown();
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
         }
 
-        plugin.getLogger().info("TCP Communication Server stopped");
+        if (connections.size() >= maxConnections) {
+            rejectedConnections.incrementAndGet();
+            plugin.getLogger().warning("Rejecting TCP connection from " + channel.getRemoteAddress()
+                    + ", limit of " + maxConnections + " connections reached");
+            channel.close();
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.socket().setKeepAlive(true);
+
+        ProxyConnection connection = new ProxyConnection(channel);
+        connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+        connections.add(connection);
+        acceptedConnections.incrementAndGet();
+        plugin.getLogger().info("TCP connection accepted from: " + connection.getRemoteAddress());
     }
 
-    private void handleConnection(Socket clientSocket) {
-        plugin.getLogger().info("=== TCP CONNECTION HANDLER START ===");
-        plugin.getLogger().info("Client: " + clientSocket.getRemoteSocketAddress());
+    private void read(ProxyConnection connection, List<Frame> frames) {
+        frames.clear();
+        try {
+            int read = connection.read(codec, frames);
+            if (read < 0) {
+                close(connection, "closed by proxy");
+                return;
+            }
+            bytesRead.addAndGet(read);
+        } catch (IOException e) {
+            close(connection, e.getMessage());
+            return;
+        }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.UTF_8));
-             PrintWriter writer = new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+        for (Frame frame : frames) {
+            if (frame.getType() == FrameType.PING) {
+                send(connection, Frame.empty(FrameType.PONG, frame.getRequestId()));
+            } else if (frame.getType() == FrameType.REQUEST) {
+                receivedRequests.incrementAndGet();
+                try {
+                    workPool.execute(() -> handleRequestFrame(connection, frame));
+                } catch (RejectedExecutionException e) {
+                    rejectedRequests.incrementAndGet();
+                    JsonObject busy = new JsonObject();
+                    busy.addProperty("success", false);
+                    busy.addProperty("error", "Server busy");
+                    busy.addProperty("status", 503);
+                    busy.addProperty("timestamp", System.currentTimeMillis());
+                    writeResponse(connection, frame.getRequestId(), busy);
+                }
+            }
+        }
+    }
 
-            plugin.getLogger().info("✅ TCP streams created successfully");
+    private void flush(ProxyConnection connection) {
+        if (connection.isClosed()) {
+            return;
+        }
+        try {
+            bytesWritten.addAndGet(connection.flush());
+            SelectionKey key = connection.getKey();
+            if (key != null && key.isValid()) {
+                // Only ask for write readiness while something is left to write
+                key.interestOps(connection.hasPendingWrites()
+                        ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                        : SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            close(connection, e.getMessage());
+        }
+    }
 
-            String requestLine = reader.readLine();
-            if (requestLine == null) {
-                plugin.getLogger().warning("❌ Received null request from TCP client");
-                return;
+    private void closeTimedOutConnections() {
+        long now = System.currentTimeMillis();
+        for (ProxyConnection connection : connections) {
+            // The proxy sends heartbeats, a silent connection is a dead one
+            if (connection.getReadIdleMillis(now) > readTimeoutMs) {
+                timedOutConnections.incrementAndGet();
+                close(connection, "read timeout");
+            } else if (connection.getWriteStalledMillis(now) > writeTimeoutMs) {
+                timedOutConnections.incrementAndGet();
+                close(connection, "write timeout");
             }
+        }
+    }
 
-            plugin.getLogger().info("✅ TCP Request received: " + requestLine);
+    private void close(ProxyConnection connection, String reason) {
+        if (connections.remove(connection)) {
+            connection.close();
+            plugin.getLogger().info("TCP connection closed: " + connection.getRemoteAddress() + " (" + reason + ")");
+        }
+    }
 
-            try {
-                JsonObject request = jsonParser.parse(requestLine).getAsJsonObject();
-                String action = request.get("action").getAsString();
-                String requestId = request.get("requestId").getAsString();
-                JsonObject requestData = request.get("data").getAsJsonObject();
-
-                plugin.getLogger().info("✅ Request parsed - Action: " + action + ", ID: " + requestId);
-
-                // Use CountDownLatch to wait for main thread processing
-                final CountDownLatch latch = new CountDownLatch(1);
-                final JsonObject[] responseHolder = new JsonObject[1];
-                final Exception[] exceptionHolder = new Exception[1];
-
-                // Process the request on the main thread
-                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    try {
-                        plugin.getLogger().info("📋 Processing request on main thread...");
-                        JsonObject response = handleRequest(action, requestData);
-                        response.addProperty("requestId", requestId);
-                        response.addProperty("success", true);
-                        response.addProperty("timestamp", System.currentTimeMillis());
+    private void handleRequestFrame(ProxyConnection connection, Frame frame) {
+        long requestId = frame.getRequestId();
+        String action;
+        JsonObject requestData;
+        try (Reader reader = new InputStreamReader(frame.openPayload(), StandardCharsets.UTF_8)) {
+            JsonObject request = JsonParser.parseReader(reader).getAsJsonObject();
+            action = request.get("action").getAsString();
+            requestData = request.has("data") ? request.get("data").getAsJsonObject() : new JsonObject();
+        } catch (Exception e) {
+            plugin.getLogger().severe("❌ Error parsing TCP request: " + e.getMessage());
+            JsonObject errorResponse = new JsonObject();
+            errorResponse.addProperty("success", false);
+            errorResponse.addProperty("error", "Invalid request format: " + e.getMessage());
+            errorResponse.addProperty("status", 400);
+            errorResponse.addProperty("timestamp", System.currentTimeMillis());
+            writeResponse(connection, requestId, errorResponse);
+            return;
+        }
+
+        plugin.getLogger().fine("TCP request received - Action: " + action + ", ID: " + requestId);
 
-                        responseHolder[0] = response;
-                        plugin.getLogger().info("✅ Request processed successfully on main thread");
+        CompletableFuture<JsonObject> future;
+        try {
+            future = dispatch(connection, action, requestData);
+        } catch (RuntimeException e) {
+            // Missing or malformed request fields
+            future = CompletableFuture.failedFuture(e);
+        }
 
-                    } catch (Exception e) {
-                        plugin.getLogger().severe("❌ Error processing TCP request: " + e.getMessage());
-                        e.printStackTrace();
-                        exceptionHolder[0] = e;
-                    } finally {
-                        latch.countDown();
+        future.orTimeout(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((response, throwable) -> {
+                    if (throwable == null) {
+                        response.addProperty("success", true);
+                        response.addProperty("timestamp", System.currentTimeMillis());
+                        writeResponseAsync(connection, requestId, response);
+                        return;
                     }
-                });
 
-                // Wait for main thread processing (with timeout)
-                plugin.getLogger().info("⏳ Waiting for main thread processing...");
-                if (latch.await(30, java.util.concurrent.TimeUnit.SECONDS)) {
-                    plugin.getLogger().info("✅ Main thread processing completed");
-
-                    if (exceptionHolder[0] != null) {
-                        // Handle exception
-                        JsonObject errorResponse = new JsonObject();
-                        errorResponse.addProperty("requestId", requestId);
-                        errorResponse.addProperty("success", false);
-                        errorResponse.addProperty("error", "Internal server error: " + exceptionHolder[0].getMessage());
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    JsonObject errorResponse = new JsonObject();
+                    errorResponse.addProperty("success", false);
+                    if (cause instanceof RejectedExecutionException) {
+                        rejectedRequests.incrementAndGet();
+                        errorResponse.addProperty("error", "Server busy");
+                        errorResponse.addProperty("status", 503);
+                    } else if (cause instanceof TimeoutException) {
+                        plugin.getLogger().severe("⏰ Request processing timed out for action: " + action);
+                        errorResponse.addProperty("error", "Request processing timed out");
+                        errorResponse.addProperty("status", 408);
+                    } else {
+                        plugin.getLogger().severe("❌ Error processing TCP request: " + cause.getMessage());
+                        errorResponse.addProperty("error", "Internal server error: " + cause.getMessage());
                         errorResponse.addProperty("status", 500);
-                        errorResponse.addProperty("timestamp", System.currentTimeMillis());
-
-                        String errorJson = errorResponse.toString();
-                        plugin.getLogger().info("📤 Sending error response: " + errorJson.length() + " characters");
-                        writer.println(errorJson);
-                        writer.flush(); // Ensure it's sent
-                        plugin.getLogger().info("❌ Error response sent and flushed");
-
-                    } else if (responseHolder[0] != null) {
-                        // Send successful response
-                        String responseJson = responseHolder[0].toString();
-                        plugin.getLogger().info("📤 Sending response: " + responseJson.length() + " characters");
-                        plugin.getLogger().info("Response preview: " + (responseJson.length() > 100 ? responseJson.substring(0, 100) + "..." : responseJson));
-
-                        writer.println(responseJson);
-                        writer.flush(); // Ensure it's sent
-                        plugin.getLogger().info("✅ Response sent and flushed");
-
-                        // Small delay to ensure data is transmitted
-                        Thread.sleep(100);
-                        plugin.getLogger().info("✅ Response transmission delay completed");
                     }
-                } else {
-                    plugin.getLogger().severe("⏰ Main thread processing timed out!");
-                    JsonObject timeoutResponse = new JsonObject();
-                    timeoutResponse.addProperty("requestId", requestId);
-                    timeoutResponse.addProperty("success", false);
-                    timeoutResponse.addProperty("error", "Request processing timed out");
-                    timeoutResponse.addProperty("status", 408);
-                    timeoutResponse.addProperty("timestamp", System.currentTimeMillis());
-
-                    writer.println(timeoutResponse.toString());
-                    writer.flush();
-                    plugin.getLogger().info("⏰ Timeout response sent");
-                }
-
-            } catch (Exception e) {
-                plugin.getLogger().severe("❌ Error parsing TCP request: " + e.getMessage());
-                e.printStackTrace();
+                    errorResponse.addProperty("timestamp", System.currentTimeMillis());
+                    writeResponseAsync(connection, requestId, errorResponse);
+                });
+    }
 
-                JsonObject errorResponse = new JsonObject();
-                errorResponse.addProperty("success", false);
-                errorResponse.addProperty("error", "Invalid request format: " + e.getMessage());
-                errorResponse.addProperty("status", 400);
-                errorResponse.addProperty("timestamp", System.currentTimeMillis());
+    // Responses usually complete on the main thread, keep the serialization off it
+    private void writeResponseAsync(ProxyConnection connection, long requestId, JsonObject response) {
+        try {
+            workPool.execute(() -> writeResponse(connection, requestId, response));
+        } catch (RejectedExecutionException e) {
+            writeResponse(connection, requestId, response);
+        }
+    }
 
-                writer.println(errorResponse.toString());
-                writer.flush();
-                plugin.getLogger().info("❌ Parse error response sent");
-            }
+    private void writeResponse(ProxyConnection connection, long requestId, JsonObject response) {
+        // Serialized straight to bytes, large responses never exist as a String
+        PayloadOutputStream payload = new PayloadOutputStream();
+        try (Writer writer = new OutputStreamWriter(payload, StandardCharsets.UTF_8)) {
+            gson.toJson(response, writer);
+        } catch (IOException e) {
+            plugin.getLogger().warning("❌ Failed to serialize TCP response: " + e.getMessage());
+            return;
+        }
+        send(connection, payload.toFrame(FrameType.RESPONSE, requestId));
+    }
 
+    private void send(ProxyConnection connection, Frame frame) {
+        try {
+            connection.enqueue(codec.encode(frame));
         } catch (IOException e) {
-            plugin.getLogger().warning("❌ Error handling TCP connection: " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            try {
-                if (!clientSocket.isClosed()) {
-                    clientSocket.close();
-                    plugin.getLogger().info("🔌 TCP client socket closed");
-                }
-            } catch (IOException e) {
-                plugin.getLogger().warning("❌ Error closing TCP client socket: " + e.getMessage());
-            }
-            plugin.getLogger().info("=== TCP CONNECTION HANDLER END ===");
+            plugin.getLogger().warning("❌ Failed to encode TCP response: " + e.getMessage());
+            return;
         }
+        pendingFlushes.add(connection);
+        selector.wakeup();
     }
 
-    private JsonObject handleRequest(String action, JsonObject requestData) {
-        plugin.getLogger().info("=== HANDLING TCP REQUEST ===");
-        plugin.getLogger().info("Action: " + action);
+    /**
+     * Start handling a request. The base data is read from the current snapshot when there is one,
+     * otherwise collected on the main thread, or on the worker
+     * pool when it only comes from the database, then extensions
+     * enhance it on the threads their enhancers declared, like the HTTP handlers do.
+     */
+    private CompletableFuture<JsonObject> dispatch(ProxyConnection connection, String action, JsonObject requestData) {
+        if ("subscribe".equals(action)) {
+            return onMainThread(() -> replicator.subscribe(connection));
+        }
 
-        java.util.Map<String, String> params = extractParams(requestData);
-        plugin.getLogger().info("Extracted " + params.size() + " parameters");
+        Map<String, String> params = extractParams(requestData);
+        plugin.getLogger().fine("Extracted " + params.size() + " parameters");
 
         switch (action) {
             case "server":
-                plugin.getLogger().info("Handling server info request");
-                return handleServerRequest(params);
+                return enhanced("server", null, params,
+                        fromSnapshot("server", ServerStateSnapshot::getServerInfo, this::handleServerRequest));
             case "players":
-                plugin.getLogger().info("Handling players list request");
-                return handlePlayersRequest(params);
-            case "player":
-                return handlePlayerRequest(requestData.get("identifier").getAsString(), params);
+                return enhanced("players", null, params,
+                        fromSnapshot("players", this::snapshotPlayers, this::handlePlayersRequest));
+            case "player": {
+                String identifier = requestData.get("identifier").getAsString();
+                return enhanced("player", identifier, params, onMainThread(() -> handlePlayerRequest(identifier)));
+            }
             case "worlds":
-                return handleWorldsRequest(params);
-            case "world":
-                return handleWorldRequest(requestData.get("worldName").getAsString(), params);
+                return enhanced("worlds", null, params,
+                        fromSnapshot("worlds", this::snapshotWorlds, this::handleWorldsRequest));
+            case "world": {
+                String worldName = requestData.get("worldName").getAsString();
+                return enhanced("world", worldName, params, onMainThread(() -> handleWorldRequest(worldName)));
+            }
+            case "messages":
+                return enhanced("messages", null, params, onWorkPool(() -> handleMessagesRequest(params)));
+            case "search-messages":
+                return enhanced("messages/search", null, params, onWorkPool(() -> handleSearchMessagesRequest(params)));
             case "status":
-                return handleStatusRequest(params);
+                return enhanced("status", null, params,
+                        fromSnapshot("status", this::snapshotStatus, this::handleStatusRequest));
             case "extensions":
-                return handleExtensionsRequest();
+                return onMainThread(this::handleExtensionsRequest);
             default:
                 plugin.getLogger().warning("Unknown action received: " + action);
                 JsonObject error = new JsonObject();
                 error.addProperty("error", "Unknown action: " + action);
                 error.addProperty("status", 400);
-                return error;
+                return CompletableFuture.completedFuture(error);
+        }
+    }
+
+    private CompletableFuture<JsonObject> onMainThread(Callable<JsonObject> task) {
+        return plugin.getMainThreadQueue().submit(task);
+    }
+
+    // Same as the HTTP handlers: no main thread hop while the snapshot for this endpoint is fresh
+    private CompletableFuture<JsonObject> fromSnapshot(String endpoint, Function<ServerStateSnapshot, JsonObject> read,
+                                                       Callable<JsonObject> fallback) {
+        ServerStateSnapshot snapshot = dataManager.getSnapshot(endpoint);
+        if (snapshot == null) {
+            return onMainThread(fallback);
+        }
+        return CompletableFuture.completedFuture(read.apply(snapshot));
+    }
+
+    // Database reads do not touch Bukkit state, keep them and their connection waits off the main thread
+    private CompletableFuture<JsonObject> onWorkPool(Callable<JsonObject> task) {
+        CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        try {
+            workPool.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
         }
+        return future;
+    }
+
+    // Errors are sent as they are, only actual data goes through the enhancers
+    private CompletableFuture<JsonObject> enhanced(String baseEndpoint, String identifier, Map<String, String> params,
+                                                   CompletableFuture<JsonObject> base) {
+        return base.thenCompose(data -> data.has("error")
+                ? CompletableFuture.completedFuture(data)
+                : extensionLoader.enhanceBaseEndpointAsync(baseEndpoint, data, identifier, params));
     }
 
-    private JsonObject handleServerRequest(java.util.Map<String, String> params) {
-        plugin.getLogger().info("Getting server info...");
+    private JsonObject handleServerRequest() {
+        plugin.getLogger().fine("Getting server info...");
         try {
             JsonObject serverInfo = dataManager.getServerInfo();
-            plugin.getLogger().info("Server info retrieved successfully");
-            return extensionLoader.enhanceBaseEndpoint("server", serverInfo, null, params);
+            plugin.getLogger().fine("Server info retrieved successfully");
+            return serverInfo;
         } catch (Exception e) {
             plugin.getLogger().severe("Error getting server info: " + e.getMessage());
             e.printStackTrace();
@@ -255,14 +562,14 @@ public class TcpCommunicationServer {
         }
     }
 
-    private JsonObject handlePlayersRequest(java.util.Map<String, String> params) {
-        plugin.getLogger().info("Getting players list...");
+    private JsonObject handlePlayersRequest() {
+        plugin.getLogger().fine("Getting players list...");
         try {
             JsonObject response = new JsonObject();
             response.add("players", dataManager.getOnlinePlayers());
             response.addProperty("count", dataManager.getOnlinePlayers().size());
-            plugin.getLogger().info("Players list retrieved successfully - count: " + dataManager.getOnlinePlayers().size());
-            return extensionLoader.enhanceBaseEndpoint("players", response, null, params);
+            plugin.getLogger().fine("Players list retrieved successfully - count: " + dataManager.getOnlinePlayers().size());
+            return response;
         } catch (Exception e) {
             plugin.getLogger().severe("Error getting players list: " + e.getMessage());
             e.printStackTrace();
@@ -273,8 +580,15 @@ public class TcpCommunicationServer {
         }
     }
 
-    private JsonObject handlePlayerRequest(String identifier, java.util.Map<String, String> params) {
-        plugin.getLogger().info("Getting player info for: " + identifier);
+    private JsonObject snapshotPlayers(ServerStateSnapshot snapshot) {
+        JsonObject response = new JsonObject();
+        response.add("players", snapshot.getOnlinePlayers());
+        response.addProperty("count", snapshot.getOnlinePlayers().size());
+        return response;
+    }
+
+    private JsonObject handlePlayerRequest(String identifier) {
+        plugin.getLogger().fine("Getting player info for: " + identifier);
         JsonObject playerInfo = dataManager.getPlayerInfo(identifier);
         if (playerInfo == null) {
             JsonObject error = new JsonObject();
@@ -282,19 +596,26 @@ public class TcpCommunicationServer {
             error.addProperty("status", 404);
             return error;
         }
-        return extensionLoader.enhanceBaseEndpoint("player", playerInfo, identifier, params);
+        return playerInfo;
     }
 
-    private JsonObject handleWorldsRequest(java.util.Map<String, String> params) {
-        plugin.getLogger().info("Getting worlds list...");
+    private JsonObject handleWorldsRequest() {
+        plugin.getLogger().fine("Getting worlds list...");
         JsonObject response = new JsonObject();
         response.add("worlds", dataManager.getWorlds());
         response.addProperty("count", dataManager.getWorlds().size());
-        return extensionLoader.enhanceBaseEndpoint("worlds", response, null, params);
+        return response;
+    }
+
+    private JsonObject snapshotWorlds(ServerStateSnapshot snapshot) {
+        JsonObject response = new JsonObject();
+        response.add("worlds", snapshot.getWorlds());
+        response.addProperty("count", snapshot.getWorlds().size());
+        return response;
     }
 
-    private JsonObject handleWorldRequest(String worldName, java.util.Map<String, String> params) {
-        plugin.getLogger().info("Getting world info for: " + worldName);
+    private JsonObject handleWorldRequest(String worldName) {
+        plugin.getLogger().fine("Getting world info for: " + worldName);
         JsonObject worldInfo = dataManager.getWorldInfo(worldName);
         if (worldInfo == null) {
             JsonObject error = new JsonObject();
@@ -302,11 +623,56 @@ public class TcpCommunicationServer {
             error.addProperty("status", 404);
             return error;
         }
-        return extensionLoader.enhanceBaseEndpoint("world", worldInfo, worldName, params);
+        return worldInfo;
+    }
+
+    private JsonObject handleMessagesRequest(Map<String, String> params) {
+        plugin.getLogger().fine("Getting messages...");
+        try {
+            int limit = params.containsKey("limit") ? Math.min(Math.max(Integer.parseInt(params.get("limit")), 1), 500) : 50;
+            Integer offset = params.containsKey("offset") ? Math.max(Integer.parseInt(params.get("offset")), 0) : null;
+            Long beforeId = params.containsKey("before") ? Long.parseLong(params.get("before")) : null;
+            Long afterId = params.containsKey("after") ? Long.parseLong(params.get("after")) : null;
+            Long since = params.containsKey("since") ? Long.parseLong(params.get("since")) : null;
+            Long until = params.containsKey("until") ? Long.parseLong(params.get("until")) : null;
+
+            return dataManager.getMessagePage(limit, offset, beforeId, afterId,
+                    params.get("player"), params.get("type"), since, until);
+        } catch (NumberFormatException e) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "Invalid numeric parameter");
+            error.addProperty("status", 400);
+            return error;
+        }
     }
 
-    private JsonObject handleStatusRequest(java.util.Map<String, String> params) {
-        plugin.getLogger().info("Getting status...");
+    private JsonObject handleSearchMessagesRequest(Map<String, String> params) {
+        plugin.getLogger().fine("Searching messages...");
+        String text = params.get("q");
+        if (!dataManager.isSearchAvailable() || text == null || text.replace("*", "").trim().isEmpty()) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", dataManager.isSearchAvailable() ? "Search query (q) is required" : "Message search is not available");
+            error.addProperty("status", dataManager.isSearchAvailable() ? 400 : 503);
+            return error;
+        }
+
+        try {
+            int limit = params.containsKey("limit") ? Math.min(Math.max(Integer.parseInt(params.get("limit")), 1), 500) : 50;
+            Long since = params.containsKey("since") ? Long.parseLong(params.get("since")) : null;
+            Long until = params.containsKey("until") ? Long.parseLong(params.get("until")) : null;
+
+            return dataManager.searchMessages(text, limit, params.get("cursor"),
+                    params.get("player"), params.get("type"), since, until);
+        } catch (IllegalArgumentException e) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "Invalid search parameter");
+            error.addProperty("status", 400);
+            return error;
+        }
+    }
+
+    private JsonObject handleStatusRequest() {
+        plugin.getLogger().fine("Getting status...");
         JsonObject status = new JsonObject();
         status.addProperty("status", "online");
         status.addProperty("timestamp", System.currentTimeMillis());
@@ -314,20 +680,40 @@ public class TcpCommunicationServer {
         status.addProperty("server_name", plugin.getServer().getName());
         status.addProperty("online_players", plugin.getServer().getOnlinePlayers().size());
         status.addProperty("max_players", plugin.getServer().getMaxPlayers());
+        return completeStatus(status);
+    }
+
+    private JsonObject snapshotStatus(ServerStateSnapshot snapshot) {
+        JsonObject serverInfo = snapshot.getServerInfo();
+        JsonObject status = new JsonObject();
+        status.addProperty("status", "online");
+        status.addProperty("timestamp", System.currentTimeMillis());
+        status.addProperty("api_version", "1.0.0");
+        status.add("server_name", serverInfo.get("name"));
+        status.add("online_players", serverInfo.get("onlinePlayers"));
+        status.add("max_players", serverInfo.get("maxPlayers"));
+        return completeStatus(status);
+    }
+
+    private JsonObject completeStatus(JsonObject status) {
         status.addProperty("extensions_loaded", extensionLoader.getExtensions().size());
+        JsonObject writerStats = dataManager.getMessageWriterStats();
+        if (writerStats != null) {
+            status.add("message_writer", writerStats);
+        }
         status.addProperty("mode", "proxy");
         status.addProperty("communication", "tcp");
-
-        return extensionLoader.enhanceBaseEndpoint("status", status, null, params);
+        status.add("tcp", getStats());
+        return status;
     }
 
     private JsonObject handleExtensionsRequest() {
-        plugin.getLogger().info("Getting extensions info...");
+        plugin.getLogger().fine("Getting extensions info...");
         return extensionLoader.getExtensionsInfo();
     }
 
-    private java.util.Map<String, String> extractParams(JsonObject request) {
-        java.util.Map<String, String> params = new java.util.HashMap<>();
+    private Map<String, String> extractParams(JsonObject request) {
+        Map<String, String> params = new HashMap<>();
         if (request.has("params")) {
             JsonObject paramsObj = request.get("params").getAsJsonObject();
             for (String key : paramsObj.keySet()) {
@@ -4,8 +4,11 @@ import fr.neocle.flexgateway.bukkit.data.providers.PlayerDataProvider;
 import fr.neocle.flexgateway.bukkit.data.providers.ServerInfoProvider;
 import fr.neocle.flexgateway.bukkit.data.providers.WorldDataProvider;
 import fr.neocle.flexgateway.bukkit.data.services.MessageService;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
+import fr.neocle.flexgateway.bukkit.data.snapshot.SnapshotEngine;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import fr.neocle.flexgateway.bukkit.database.DatabaseManager;
 
@@ -17,6 +20,7 @@ public class DataManager {
     private final PlayerDataProvider playerDataProvider;
     private final WorldDataProvider worldDataProvider;
     private final MessageService messageService;
+    private final SnapshotEngine snapshotEngine;
 
     public DataManager(JavaPlugin plugin, DatabaseManager databaseManager) {
         this.plugin = plugin;
@@ -25,6 +29,15 @@ public class DataManager {
         this.playerDataProvider = new PlayerDataProvider(plugin, databaseManager);
         this.worldDataProvider = new WorldDataProvider(plugin);
         this.messageService = new MessageService(plugin, databaseManager);
+        this.snapshotEngine = new SnapshotEngine(plugin, serverInfoProvider, playerDataProvider, worldDataProvider);
+    }
+
+    public SnapshotEngine getSnapshotEngine() {
+        return snapshotEngine;
+    }
+
+    public ServerStateSnapshot getSnapshot(String endpoint) {
+        return snapshotEngine.getSnapshot(endpoint);
     }
 
     public JsonObject getServerInfo() {
@@ -35,6 +48,13 @@ public class DataManager {
         return playerDataProvider.getOnlinePlayers();
     }
 
+    /**
+     * Get the entry the players list holds for an online player.
+     */
+    public JsonObject getOnlinePlayer(Player player) {
+        return playerDataProvider.getOnlinePlayer(player);
+    }
+
     public JsonObject getPlayerInfo(String identifier) {
         return playerDataProvider.getPlayerInfo(identifier);
     }
@@ -51,6 +71,25 @@ public class DataManager {
         return messageService.getMessages(limit, offset, playerUuid, messageType);
     }
 
+    public JsonObject getMessagePage(int limit, Integer offset, Long beforeId, Long afterId,
+                                     String playerUuid, String messageType, Long sinceMillis, Long untilMillis) {
+        return messageService.getMessagePage(limit, offset, beforeId, afterId, playerUuid, messageType,
+                sinceMillis, untilMillis);
+    }
+
+    public JsonObject searchMessages(String text, int limit, String cursor, String playerUuid,
+                                     String messageType, Long sinceMillis, Long untilMillis) {
+        return messageService.searchMessages(text, limit, cursor, playerUuid, messageType, sinceMillis, untilMillis);
+    }
+
+    public boolean isSearchAvailable() {
+        return messageService.isSearchAvailable();
+    }
+
+    public JsonObject getMessageWriterStats() {
+        return databaseManager.getWriteQueueStats();
+    }
+
     public boolean sendMessage(String senderUuid, String recipientUuid, String message, String messageType) {
         return messageService.sendMessage(senderUuid, recipientUuid, message, messageType);
     }
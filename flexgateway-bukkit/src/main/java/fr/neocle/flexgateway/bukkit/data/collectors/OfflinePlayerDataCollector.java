@@ -5,15 +5,12 @@ import com.google.gson.JsonObject;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.plugin.java.JavaPlugin;
 import fr.neocle.flexgateway.bukkit.database.DatabaseManager;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.UUID;
 
 public class OfflinePlayerDataCollector {
 
     private final JavaPlugin plugin;
     private final DatabaseManager databaseManager;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     private final OfflinePlayerFileReader fileReader;
 
     public OfflinePlayerDataCollector(JavaPlugin plugin, DatabaseManager databaseManager) {
@@ -55,8 +52,8 @@ public class OfflinePlayerDataCollector {
         playerData.addProperty("op", offlinePlayer.isOp());
         playerData.addProperty("banned", offlinePlayer.isBanned());
         playerData.addProperty("whitelisted", offlinePlayer.isWhitelisted());
-        playerData.addProperty("firstPlayed", dateFormat.format(new Date(offlinePlayer.getFirstPlayed())));
-        playerData.addProperty("lastPlayed", dateFormat.format(new Date(offlinePlayer.getLastPlayed())));
+        playerData.addProperty("firstPlayed", TimeUtils.formatDate(offlinePlayer.getFirstPlayed()));
+        playerData.addProperty("lastPlayed", TimeUtils.formatDate(offlinePlayer.getLastPlayed()));
         playerData.addProperty("lastSeen", TimeUtils.getLastSeenTime(offlinePlayer));
     }
 
@@ -7,13 +7,10 @@ import org.bukkit.entity.Player;
 import fr.neocle.flexgateway.bukkit.database.DatabaseManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 public class OnlinePlayerDataCollector {
 
     private final DatabaseManager databaseManager;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     private final PlayerAchievementCollector achievementCollector;
     private final PlayerStatisticsCollector statisticsCollector;
 
@@ -74,8 +71,8 @@ public class OnlinePlayerDataCollector {
     }
 
     private void addPlayerTimes(JsonObject playerData, Player player) {
-        playerData.addProperty("firstPlayed", dateFormat.format(new Date(player.getFirstPlayed())));
-        playerData.addProperty("lastPlayed", dateFormat.format(new Date(player.getLastPlayed())));
+        playerData.addProperty("firstPlayed", TimeUtils.formatDate(player.getFirstPlayed()));
+        playerData.addProperty("lastPlayed", TimeUtils.formatDate(player.getLastPlayed()));
         playerData.addProperty("playTime", TimeUtils.formatPlayTime(player));
     }
 
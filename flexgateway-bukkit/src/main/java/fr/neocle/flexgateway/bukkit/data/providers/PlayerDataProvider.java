@@ -33,6 +33,10 @@ public class PlayerDataProvider {
         return players;
     }
 
+    public JsonObject getOnlinePlayer(Player player) {
+        return onlinePlayerCollector.collectPlayerData(player);
+    }
+
     public JsonObject getPlayerInfo(String identifier) {
         Player onlinePlayer = findOnlinePlayer(identifier);
 
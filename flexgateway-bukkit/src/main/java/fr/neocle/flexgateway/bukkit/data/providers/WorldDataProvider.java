@@ -1,12 +1,17 @@
 package fr.neocle.flexgateway.bukkit.data.providers;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public class WorldDataProvider {
 
     private final JavaPlugin plugin;
@@ -34,6 +39,29 @@ public class WorldDataProvider {
         return createDetailedWorldInfo(world);
     }
 
+    public Map<String, JsonObject> getWorldInfos() {
+        Map<String, JsonObject> worldInfos = new LinkedHashMap<>();
+
+        for (World world : plugin.getServer().getWorlds()) {
+            worldInfos.put(world.getName().toLowerCase(Locale.ROOT), createDetailedWorldInfo(world));
+        }
+
+        return worldInfos;
+    }
+
+    public JsonObject toWorldSummary(JsonObject worldInfo) {
+        JsonObject summary = new JsonObject();
+        worldInfo.entrySet().forEach(entry -> summary.add(entry.getKey(), entry.getValue()));
+
+        JsonArray playerNames = new JsonArray();
+        for (JsonElement player : worldInfo.getAsJsonArray("players")) {
+            playerNames.add(player.getAsJsonObject().get("name"));
+        }
+        summary.add("players", playerNames);
+
+        return summary;
+    }
+
     private JsonObject createWorldSummary(World world) {
         JsonObject worldData = new JsonObject();
 
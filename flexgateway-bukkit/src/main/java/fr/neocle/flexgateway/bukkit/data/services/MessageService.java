@@ -1,10 +1,12 @@
 package fr.neocle.flexgateway.bukkit.data.services;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import fr.neocle.flexgateway.bukkit.database.DatabaseManager;
+import fr.neocle.flexgateway.bukkit.database.messages.MessageSearchQuery;
 import java.util.UUID;
 
 public class MessageService {
@@ -18,7 +20,106 @@ public class MessageService {
     }
 
     public JsonArray getMessages(int limit, int offset, String playerUuid, String messageType) {
-        return databaseManager.getMessages(limit, offset, playerUuid, messageType);
+        return databaseManager.getMessages(limit, offset, playerUuid, messageType, null, null);
+    }
+
+    public JsonArray getMessagesByCursor(int limit, Long beforeId, Long afterId, String playerUuid,
+                                         String messageType, Long sinceMillis, Long untilMillis) {
+        return databaseManager.getMessagesByCursor(limit, beforeId, afterId, playerUuid, messageType,
+                sinceMillis, untilMillis);
+    }
+
+    /**
+     * Build a page of messages. Pages are read by id only when a before or after cursor is given,
+     * they then carry the cursors for the next requests; otherwise offset pagination is used.
+     * The optional time range (epoch ms) limits which monthly partitions are read.
+     */
+    public JsonObject getMessagePage(int limit, Integer offset, Long beforeId, Long afterId,
+                                     String playerUuid, String messageType, Long sinceMillis, Long untilMillis) {
+        JsonObject page = new JsonObject();
+
+        if (beforeId == null && afterId == null) {
+            int start = offset != null ? offset : 0;
+            page.add("messages", databaseManager.getMessages(limit, start, playerUuid, messageType,
+                    sinceMillis, untilMillis));
+            page.addProperty("pagination", "offset");
+            page.addProperty("limit", limit);
+            page.addProperty("offset", start);
+        } else {
+            JsonArray messages = getMessagesByCursor(limit, beforeId, afterId, playerUuid, messageType,
+                    sinceMillis, untilMillis);
+            page.add("messages", messages);
+            page.addProperty("pagination", "cursor");
+            page.addProperty("limit", limit);
+            if (!messages.isEmpty()) {
+                long newestId = messages.get(0).getAsJsonObject().get("id").getAsLong();
+                long oldestId = messages.get(messages.size() - 1).getAsJsonObject().get("id").getAsLong();
+                page.addProperty("prevCursor", newestId);
+                if (messages.size() == limit) {
+                    page.addProperty("nextCursor", oldestId);
+                }
+            }
+        }
+
+        if (playerUuid != null) {
+            page.addProperty("player", playerUuid);
+        }
+        if (messageType != null) {
+            page.addProperty("type", messageType);
+        }
+        if (sinceMillis != null) {
+            page.addProperty("since", sinceMillis);
+        }
+        if (untilMillis != null) {
+            page.addProperty("until", untilMillis);
+        }
+        return page;
+    }
+
+    /**
+     * Full-text search, newest match first with its bm25 score. The cursor is the id of the last
+     * result of the previous page; older "score:id" cursors are still accepted.
+     */
+    public JsonObject searchMessages(String text, int limit, String cursor, String playerUuid,
+                                     String messageType, Long sinceMillis, Long untilMillis) {
+        Long cursorId = null;
+        if (cursor != null) {
+            try {
+                cursorId = Long.parseLong(cursor.substring(cursor.indexOf(':') + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        MessageSearchQuery query = new MessageSearchQuery()
+                .withText(text)
+                .withPlayerFilter(playerUuid)
+                .withMessageTypeFilter(messageType)
+                .withTimeRange(sinceMillis, untilMillis)
+                .withCursor(limit, cursorId);
+
+        JsonArray messages = databaseManager.searchMessages(query);
+
+        JsonObject page = new JsonObject();
+        page.addProperty("query", text);
+        page.add("messages", messages);
+        page.addProperty("count", messages.size());
+        page.addProperty("limit", limit);
+        if (messages.size() == limit) {
+            JsonObject last = messages.get(messages.size() - 1).getAsJsonObject();
+            page.addProperty("nextCursor", String.valueOf(last.get("id").getAsLong()));
+        }
+        if (playerUuid != null) {
+            page.addProperty("player", playerUuid);
+        }
+        if (messageType != null) {
+            page.addProperty("type", messageType);
+        }
+        return page;
+    }
+
+    public boolean isSearchAvailable() {
+        return databaseManager.isSearchAvailable();
     }
 
     public boolean sendMessage(String senderUuid, String recipientUuid, String message, String messageType) {
@@ -0,0 +1,60 @@
+package fr.neocle.flexgateway.bukkit.data.snapshot;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of server, player and world state captured on the main thread.
+ * The JSON trees are shared between readers and must be treated as read-only.
+ */
+public final class ServerStateSnapshot {
+
+    private final long version;
+    private final long capturedAt;
+    private final JsonObject serverInfo;
+    private final JsonArray onlinePlayers;
+    private final JsonArray worlds;
+    private final Map<String, JsonObject> worldDetails;
+
+    public ServerStateSnapshot(long version, long capturedAt, JsonObject serverInfo, JsonArray onlinePlayers,
+                               JsonArray worlds, Map<String, JsonObject> worldDetails) {
+        this.version = version;
+        this.capturedAt = capturedAt;
+        this.serverInfo = serverInfo;
+        this.onlinePlayers = onlinePlayers;
+        this.worlds = worlds;
+        this.worldDetails = Collections.unmodifiableMap(worldDetails);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - capturedAt;
+    }
+
+    public JsonObject getServerInfo() {
+        return serverInfo;
+    }
+
+    public JsonArray getOnlinePlayers() {
+        return onlinePlayers;
+    }
+
+    public JsonArray getWorlds() {
+        return worlds;
+    }
+
+    public JsonObject getWorldInfo(String worldName) {
+        return worldDetails.get(worldName.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,133 @@
+package fr.neocle.flexgateway.bukkit.data.snapshot;
+
+import fr.neocle.flexgateway.bukkit.data.providers.PlayerDataProvider;
+import fr.neocle.flexgateway.bukkit.data.providers.ServerInfoProvider;
+import fr.neocle.flexgateway.bukkit.data.providers.WorldDataProvider;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Captures a {@link ServerStateSnapshot} on the main thread every N ticks so read endpoints
+ * can answer from HTTP worker threads. Capturing is skipped while nobody reads snapshots.
+ */
+public class SnapshotEngine {
+
+    private static final long MILLIS_PER_TICK = 50L;
+
+    private final JavaPlugin plugin;
+    private final ServerInfoProvider serverInfoProvider;
+    private final PlayerDataProvider playerDataProvider;
+    private final WorldDataProvider worldDataProvider;
+    private final boolean enabled;
+    private final long intervalTicks;
+    private final long demandWindowMs;
+    private final long defaultStalenessMs;
+    private final Map<String, Long> stalenessBudgets = new HashMap<>();
+
+    private volatile ServerStateSnapshot current;
+    private volatile long lastDemandAt;
+    private long nextVersion = 1;
+    private BukkitTask task;
+
+    public SnapshotEngine(JavaPlugin plugin, ServerInfoProvider serverInfoProvider,
+                          PlayerDataProvider playerDataProvider, WorldDataProvider worldDataProvider) {
+        this.plugin = plugin;
+        this.serverInfoProvider = serverInfoProvider;
+        this.playerDataProvider = playerDataProvider;
+        this.worldDataProvider = worldDataProvider;
+        this.enabled = plugin.getConfig().getBoolean("snapshot.enabled", true);
+        this.intervalTicks = Math.max(1L, plugin.getConfig().getLong("snapshot.interval_ticks", 20L));
+        this.demandWindowMs = plugin.getConfig().getLong("snapshot.demand_window_ms", 300_000L);
+        this.defaultStalenessMs = checkBudget("default",
+                plugin.getConfig().getLong("snapshot.default_staleness_ms", 2 * intervalTicks * MILLIS_PER_TICK));
+
+        ConfigurationSection budgets = plugin.getConfig().getConfigurationSection("snapshot.staleness_ms");
+        if (budgets != null) {
+            for (String endpoint : budgets.getKeys(false)) {
+                stalenessBudgets.put(endpoint.toLowerCase(Locale.ROOT), checkBudget(endpoint, budgets.getLong(endpoint)));
+            }
+        }
+    }
+
+    // A snapshot is already one interval old right before the next capture, a budget that does
+    // not leave room for a late tick makes every other read fall back to the main thread
+    private long checkBudget(String endpoint, long budgetMs) {
+        long minimumMs = 2 * intervalTicks * MILLIS_PER_TICK;
+        if (budgetMs >= minimumMs) {
+            return budgetMs;
+        }
+        plugin.getLogger().warning("Snapshot staleness budget for " + endpoint + " (" + budgetMs
+                + " ms) is too close to the capture interval (" + intervalTicks + " ticks), using "
+                + minimumMs + " ms");
+        return minimumMs;
+    }
+
+    public void start() {
+        if (!enabled) {
+            plugin.getLogger().info("Snapshot engine disabled, read endpoints will use the main thread");
+            return;
+        }
+
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::captureIfDemanded, 1L, intervalTicks);
+        plugin.getLogger().info("Snapshot engine started (every " + intervalTicks + " ticks)");
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        current = null;
+    }
+
+    /**
+     * Get the latest snapshot if it is fresh enough for the given endpoint, or null if the
+     * caller has to collect live data on the main thread instead.
+     */
+    public ServerStateSnapshot getSnapshot(String endpoint) {
+        lastDemandAt = System.currentTimeMillis();
+
+        ServerStateSnapshot snapshot = current;
+        if (snapshot == null || snapshot.getAgeMillis() > getStalenessBudget(endpoint)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    public long getStalenessBudget(String endpoint) {
+        return stalenessBudgets.getOrDefault(endpoint.toLowerCase(Locale.ROOT), defaultStalenessMs);
+    }
+
+    private void captureIfDemanded() {
+        if (demandWindowMs > 0 && System.currentTimeMillis() - lastDemandAt > demandWindowMs) {
+            return;
+        }
+
+        try {
+            current = capture();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to capture server state snapshot: " + e.getMessage());
+        }
+    }
+
+    private ServerStateSnapshot capture() {
+        JsonObject serverInfo = serverInfoProvider.getServerInfo();
+        JsonArray onlinePlayers = playerDataProvider.getOnlinePlayers();
+
+        Map<String, JsonObject> worldDetails = worldDataProvider.getWorldInfos();
+        JsonArray worlds = new JsonArray();
+        for (JsonObject worldInfo : worldDetails.values()) {
+            worlds.add(worldDataProvider.toWorldSummary(worldInfo));
+        }
+
+        return new ServerStateSnapshot(nextVersion++, System.currentTimeMillis(),
+                serverInfo, onlinePlayers, worlds, worldDetails);
+    }
+}
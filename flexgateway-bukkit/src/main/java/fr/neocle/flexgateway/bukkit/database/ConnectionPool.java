@@ -0,0 +1,116 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed size pool of SQLite connections. Connections are opened lazily and reopened
+ * if they were closed while idle.
+ */
+public class ConnectionPool {
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final long borrowTimeoutMs;
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> all = new ArrayList<>();
+    private final int size;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String name, int size, long borrowTimeoutMs, ConnectionFactory factory) {
+        this.name = name;
+        this.size = Math.max(1, size);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.factory = factory;
+        this.idle = new ArrayBlockingQueue<>(this.size);
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException(name + " connection pool is closed");
+        }
+
+        PooledConnection pooled = idle.poll();
+        if (pooled == null) {
+            pooled = openIfBelowSize();
+        }
+        if (pooled == null) {
+            try {
+                pooled = idle.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a " + name + " connection", e);
+            }
+            if (pooled == null) {
+                throw new SQLException("Timed out waiting for a " + name + " connection");
+            }
+        }
+
+        if (!pooled.isValid()) {
+            replace(pooled);
+            pooled = create();
+        }
+        return pooled;
+    }
+
+    void release(PooledConnection pooled) {
+        if (closed) {
+            pooled.closePhysically();
+            return;
+        }
+        idle.offer(pooled);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (all) {
+            for (PooledConnection pooled : all) {
+                pooled.closePhysically();
+            }
+            all.clear();
+        }
+        idle.clear();
+    }
+
+    private PooledConnection openIfBelowSize() throws SQLException {
+        synchronized (all) {
+            if (all.size() >= size) {
+                return null;
+            }
+            return create();
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        PooledConnection pooled = new PooledConnection(this, factory.open());
+        synchronized (all) {
+            all.add(pooled);
+        }
+        return pooled;
+    }
+
+    private void replace(PooledConnection pooled) {
+        pooled.closePhysically();
+        synchronized (all) {
+            all.remove(pooled);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package fr.neocle.flexgateway.bukkit.database;
 
 import org.bukkit.plugin.java.JavaPlugin;
+import org.sqlite.SQLiteConfig;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -11,11 +13,26 @@ public class DatabaseConnection {
 
     private final JavaPlugin plugin;
     private final String databasePath;
-    private Connection connection;
+    private final ConnectionPool writerPool;
+    private final ConnectionPool readerPool;
+    private final PragmaProfile pragmaProfile;
+    private final DatabaseMaintenance maintenance;
+    private volatile boolean connected = false;
+    private volatile boolean searchSupported = false;
+    private volatile boolean searchAvailable = false;
+    private boolean searchBackfillPending = false;
 
     public DatabaseConnection(JavaPlugin plugin) {
         this.plugin = plugin;
         this.databasePath = plugin.getDataFolder().getAbsolutePath() + File.separator + "messages";
+        this.pragmaProfile = new PragmaProfile(plugin);
+        this.maintenance = new DatabaseMaintenance(plugin, this);
+
+        long borrowTimeoutMs = plugin.getConfig().getLong("database.pool.borrow_timeout_ms", 5000L);
+        int readers = plugin.getConfig().getInt("database.pool.read_connections", 4);
+        // SQLite only allows one writer at a time, readers run next to it thanks to WAL
+        this.writerPool = new ConnectionPool("writer", 1, borrowTimeoutMs, () -> openConnection(false));
+        this.readerPool = new ConnectionPool("reader", readers, borrowTimeoutMs, () -> openConnection(true));
         initialize();
     }
 
@@ -23,8 +40,15 @@ public class DatabaseConnection {
         try {
             ensureDataFolderExists();
             loadSQLiteDriver();
-            establishConnection();
+            plugin.getLogger().info("Connecting to database at: jdbc:sqlite:" + databasePath + ".db");
             createTables();
+            logEffectivePragmas();
+            maintenance.migrateToIncrementalVacuum();
+            maintenance.start();
+            if (searchBackfillPending) {
+                maintenance.execute(this::backfillSearchIndex);
+            }
+            connected = true;
             plugin.getLogger().info("Database initialized successfully");
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to initialize database: " + e.getMessage());
@@ -51,54 +75,126 @@ public class DatabaseConnection {
         }
     }
 
-    private void establishConnection() throws SQLException {
+    private Connection openConnection(boolean readOnly) throws SQLException {
         String url = "jdbc:sqlite:" + databasePath + ".db";
-        plugin.getLogger().info("Connecting to database at: " + url);
 
-        connection = DriverManager.getConnection(url, "sa", "");
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(plugin.getConfig().getInt("database.busy_timeout_ms", 5000));
+        config.setReadOnly(readOnly);
 
-        if (connection == null) {
-            throw new SQLException("Failed to create database connection - connection is null");
+        Connection connection = DriverManager.getConnection(url, config.toProperties());
+        if (connection == null || connection.isClosed()) {
+            throw new SQLException("Failed to create database connection to " + url);
         }
 
-        if (connection.isClosed()) {
-            throw new SQLException("Database connection is closed immediately after creation");
+        if (!readOnly) {
+            // Only takes effect while the database has no tables yet, older files keep their mode
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            }
         }
-
-        plugin.getLogger().info("Database connection established successfully");
+        pragmaProfile.apply(connection, !readOnly);
+        return connection;
     }
 
-    private void createTables() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            throw new SQLException("Cannot create tables: database connection is null or closed");
+    private void logEffectivePragmas() throws SQLException {
+        try (PooledConnection writer = writerPool.borrow()) {
+            pragmaProfile.logEffective(writer.getConnection());
         }
+    }
 
+    private void createTables() throws SQLException {
         DatabaseSchema schema = new DatabaseSchema();
 
-        try (Statement stmt = connection.createStatement()) {
+        try (PooledConnection writer = writerPool.borrow();
+             Statement stmt = writer.getConnection().createStatement()) {
             stmt.execute(schema.getCreateMessagesTableSQL());
-            plugin.getLogger().info("Messages table created/verified successfully");
+            stmt.execute(schema.getCreatePlayerMessageStatsTableSQL());
+            stmt.execute(schema.getCreateMessageStatsTableSQL());
+            stmt.execute(schema.getCreatePartitionsTableSQL());
+            plugin.getLogger().info("Messages tables created/verified successfully");
 
             schema.createIndexes(stmt);
             plugin.getLogger().info("Database indexes created/verified successfully");
+
+            createSearchIndex(writer.getConnection(), stmt, schema);
         }
     }
 
-    public Connection getConnection() throws SQLException {
-        if (!ensureConnection()) {
-            throw new SQLException("Database connection unavailable");
+    // Existing messages are indexed in the background, search stays off until they all are
+    private void createSearchIndex(Connection conn, Statement stmt, DatabaseSchema schema) {
+        try {
+            boolean exists;
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE name = 'messages_fts'")) {
+                exists = rs.next();
+            }
+
+            stmt.execute(schema.getCreateSearchBackfillTableSQL());
+            conn.setAutoCommit(false);
+            try {
+                stmt.execute(schema.getCreateMessagesFtsTableSQL("messages"));
+                schema.createFtsTriggers(stmt, "messages");
+                if (!exists) {
+                    SearchIndexBackfill.register(stmt, "messages");
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            searchSupported = true;
+
+            searchBackfillPending = SearchIndexBackfill.isPending(stmt, "messages");
+            if (searchBackfillPending) {
+                plugin.getLogger().info("Full-text search index created, existing messages are indexed in the background");
+            } else {
+                searchAvailable = true;
+                plugin.getLogger().info("Full-text search index created/verified successfully");
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Full-text search unavailable (FTS5 missing?): " + e.getMessage());
+        }
+    }
+
+    private void backfillSearchIndex() {
+        if (new SearchIndexBackfill(plugin, this, "messages").run()) {
+            searchAvailable = true;
         }
-        return connection;
+    }
+
+    /**
+     * Whether FTS5 works, new message tables then get a search index.
+     */
+    public boolean isSearchSupported() {
+        return searchSupported;
+    }
+
+    /**
+     * Whether searches can run, false while existing messages are still being indexed.
+     */
+    public boolean isSearchAvailable() {
+        return searchAvailable;
+    }
+
+    /**
+     * Borrow the single writer connection, close it to give it back.
+     */
+    public PooledConnection borrowWriter() throws SQLException {
+        return writerPool.borrow();
+    }
+
+    /**
+     * Borrow a read-only connection, close it to give it back.
+     */
+    public PooledConnection borrowReader() throws SQLException {
+        return readerPool.borrow();
     }
 
     public boolean ensureConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                plugin.getLogger().warning("Database connection lost, attempting to reconnect...");
-                establishConnection();
-                return connection != null && !connection.isClosed();
-            }
-            return true;
+        try (PooledConnection writer = writerPool.borrow()) {
+            return writer.isValid();
         } catch (SQLException e) {
             plugin.getLogger().warning("Error checking/restoring database connection: " + e.getMessage());
             return false;
@@ -106,11 +202,11 @@ public class DatabaseConnection {
     }
 
     public boolean isConnected() {
-        try {
-            return connection != null && !connection.isClosed();
-        } catch (SQLException e) {
-            return false;
-        }
+        return connected;
+    }
+
+    public DatabaseMaintenance getMaintenance() {
+        return maintenance;
     }
 
     public JavaPlugin getPlugin() {
@@ -118,14 +214,15 @@ public class DatabaseConnection {
     }
 
     public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.createStatement().execute("VACUUM");
-                connection.close();
-                plugin.getLogger().info("Database connection closed successfully");
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Error closing database connection: " + e.getMessage());
+        // A full VACUUM here used to stall shutdown, space is reclaimed incrementally instead
+        maintenance.stop();
+        if (connected) {
+            maintenance.finalCheckpoint();
         }
+
+        connected = false;
+        readerPool.close();
+        writerPool.close();
+        plugin.getLogger().info("Database connection closed successfully");
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background WAL checkpoints and incremental vacuum, replacing the full VACUUM that used to
+ * run on shutdown. Runs on its own thread and only holds the writer connection briefly.
+ */
+public class DatabaseMaintenance {
+
+    private final JavaPlugin plugin;
+    private final DatabaseConnection connectionManager;
+    private final long checkpointIntervalSeconds;
+    private final int vacuumPages;
+    private final boolean enableIncrementalVacuum;
+    private final List<Runnable> tasks = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    public DatabaseMaintenance(JavaPlugin plugin, DatabaseConnection connectionManager) {
+        this.plugin = plugin;
+        this.connectionManager = connectionManager;
+        this.checkpointIntervalSeconds = Math.max(1L, plugin.getConfig().getLong("database.maintenance.checkpoint_interval_seconds", 60L));
+        this.vacuumPages = plugin.getConfig().getInt("database.maintenance.incremental_vacuum_pages", 1000);
+        this.enableIncrementalVacuum = plugin.getConfig().getBoolean("database.maintenance.enable_incremental_vacuum", false);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FlexGateway-DatabaseMaintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runMaintenance,
+                checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run a one-off task on the maintenance thread, regular maintenance waits until it returns.
+     * Long tasks have to checkpoint themselves and stop when interrupted.
+     */
+    public void execute(Runnable task) {
+        scheduler.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Database maintenance task failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Run an extra task on the maintenance thread before every checkpoint, e.g. retention.
+     */
+    public void addTask(Runnable task) {
+        tasks.add(task);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Fold the WAL back into the database file and truncate it, cheap enough for shutdown.
+     */
+    public void finalCheckpoint() {
+        try (PooledConnection writer = connectionManager.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+            stmt.execute("PRAGMA optimize");
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Final database checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    private void runMaintenance() {
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Database maintenance task failed: " + e.getMessage());
+            }
+        }
+
+        try (PooledConnection writer = connectionManager.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            // PASSIVE never blocks readers or the writer, leftovers are picked up next time
+            stmt.execute("PRAGMA wal_checkpoint(PASSIVE)");
+
+            if (vacuumPages > 0 && isIncrementalVacuumEnabled(stmt)) {
+                stmt.execute("PRAGMA incremental_vacuum(" + vacuumPages + ")");
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Database maintenance failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Switch a database created without incremental auto-vacuum over, when enabled in the config.
+     * That takes a full VACUUM rewriting the whole file, so it runs once at startup before any
+     * message is written.
+     */
+    void migrateToIncrementalVacuum() {
+        if (vacuumPages <= 0) {
+            return;
+        }
+        try (PooledConnection writer = connectionManager.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            if (isIncrementalVacuumEnabled(stmt)) {
+                return;
+            }
+            if (!enableIncrementalVacuum) {
+                plugin.getLogger().info("Incremental vacuum is off for this database, free pages are reused but the file "
+                        + "never shrinks. Set database.maintenance.enable_incremental_vacuum to switch it on");
+                return;
+            }
+
+            plugin.getLogger().warning("Switching the database to incremental auto-vacuum with a one-time VACUUM, "
+                    + "this can take a while on large databases");
+            long start = System.currentTimeMillis();
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("VACUUM");
+            plugin.getLogger().info("Database switched to incremental auto-vacuum in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to switch the database to incremental auto-vacuum: " + e.getMessage());
+        }
+    }
+
+    private boolean isIncrementalVacuumEnabled(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA auto_vacuum")) {
+            // 2 = INCREMENTAL
+            return rs.next() && rs.getInt(1) == 2;
+        }
+    }
+}
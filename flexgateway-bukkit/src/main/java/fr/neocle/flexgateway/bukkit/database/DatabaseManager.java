@@ -1,40 +1,95 @@
 package fr.neocle.flexgateway.bukkit.database;
 
+import fr.neocle.flexgateway.bukkit.database.messages.MessageCounters;
+import fr.neocle.flexgateway.bukkit.database.messages.MessageInsertCommand;
+import fr.neocle.flexgateway.bukkit.database.messages.MessagePartitions;
 import fr.neocle.flexgateway.bukkit.database.messages.MessageRepository;
+import fr.neocle.flexgateway.bukkit.database.messages.MessageSearchQuery;
+import fr.neocle.flexgateway.bukkit.database.messages.MessageWriteQueue;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class DatabaseManager {
 
     private final DatabaseConnection connectionManager;
+    private final MessageCounters counters;
+    private final MessagePartitions partitions;
     private final MessageRepository messageRepository;
+    private final MessageWriteQueue writeQueue;
 
     public DatabaseManager(JavaPlugin plugin) {
         this.connectionManager = new DatabaseConnection(plugin);
-        this.messageRepository = new MessageRepository(connectionManager);
+        this.counters = new MessageCounters(connectionManager,
+                plugin.getConfig().getInt("database.counters.cache_size", 10000));
+        this.partitions = new MessagePartitions(connectionManager, counters);
+        if (connectionManager.isConnected()) {
+            counters.initialize();
+            partitions.initialize();
+            connectionManager.getMaintenance().addTask(partitions::applyRetention);
+        }
+        this.messageRepository = new MessageRepository(connectionManager, counters, partitions);
+
+        if (plugin.getConfig().getBoolean("database.write_behind.enabled", true)) {
+            this.writeQueue = new MessageWriteQueue(connectionManager, counters, partitions,
+                    plugin.getConfig().getInt("database.write_behind.capacity", 10000),
+                    plugin.getConfig().getInt("database.write_behind.batch_size", 200),
+                    plugin.getConfig().getLong("database.write_behind.flush_interval_ms", 250L));
+            this.writeQueue.start();
+        } else {
+            this.writeQueue = null;
+        }
     }
 
     public void saveMessage(String senderUuid, String senderName, String recipientUuid,
                             String recipientName, String message, String messageType,
                             String worldName, Double x, Double y, Double z) {
-        messageRepository.saveMessage(senderUuid, senderName, recipientUuid, recipientName,
-                message, messageType, worldName, x, y, z);
+        if (writeQueue == null) {
+            messageRepository.saveMessage(senderUuid, senderName, recipientUuid, recipientName,
+                    message, messageType, worldName, x, y, z);
+            return;
+        }
+
+        writeQueue.enqueue(new MessageInsertCommand(senderUuid, senderName, recipientUuid, recipientName,
+                message, messageType, worldName, x, y, z));
+    }
+
+    public JsonArray getMessages(int limit, int offset, String playerUuid, String messageType,
+                                 Long sinceMillis, Long untilMillis) {
+        return messageRepository.getMessages(limit, offset, playerUuid, messageType, sinceMillis, untilMillis);
+    }
+
+    public JsonArray getMessagesByCursor(int limit, Long beforeId, Long afterId, String playerUuid,
+                                         String messageType, Long sinceMillis, Long untilMillis) {
+        return messageRepository.getMessagesByCursor(limit, beforeId, afterId, playerUuid, messageType,
+                sinceMillis, untilMillis);
+    }
+
+    public JsonArray searchMessages(MessageSearchQuery query) {
+        return messageRepository.searchMessages(query);
+    }
+
+    public boolean isSearchAvailable() {
+        return connectionManager.isSearchAvailable();
     }
 
-    public JsonArray getMessages(int limit, int offset, String playerUuid, String messageType) {
-        return messageRepository.getMessages(limit, offset, playerUuid, messageType);
+    public long getPlayerMessageCount(String playerUuid) {
+        return counters.getPlayerCounts(playerUuid).total();
     }
 
-    public int getPlayerMessageCount(String playerUuid) {
-        return messageRepository.getPlayerMessageCount(playerUuid);
+    public long getPlayerSentMessageCount(String playerUuid) {
+        return counters.getPlayerCounts(playerUuid).sent();
     }
 
-    public int getPlayerSentMessageCount(String playerUuid) {
-        return messageRepository.getPlayerSentMessageCount(playerUuid);
+    public long getTotalMessageCount() {
+        return counters.getTotalMessages();
     }
 
-    public int getTotalMessageCount() {
-        return messageRepository.getTotalMessageCount();
+    /**
+     * Get write-behind metrics, or null when messages are written synchronously.
+     */
+    public JsonObject getWriteQueueStats() {
+        return writeQueue != null ? writeQueue.getStats() : null;
     }
 
     public boolean isConnected() {
@@ -42,6 +97,9 @@ public class DatabaseManager {
     }
 
     public void close() {
+        if (writeQueue != null) {
+            writeQueue.stop();
+        }
         connectionManager.close();
     }
 }
\ No newline at end of file
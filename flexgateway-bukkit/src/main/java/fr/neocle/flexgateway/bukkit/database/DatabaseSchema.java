@@ -6,8 +6,15 @@ import java.sql.Statement;
 public class DatabaseSchema {
 
     public String getCreateMessagesTableSQL() {
+        return getCreateMessagesTableSQL("messages");
+    }
+
+    /**
+     * Same layout for the legacy messages table and the monthly partitions.
+     */
+    public String getCreateMessagesTableSQL(String table) {
         return """
-            CREATE TABLE IF NOT EXISTS messages (
+            CREATE TABLE IF NOT EXISTS %s (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 sender_uuid TEXT NOT NULL,
                 sender_name TEXT NOT NULL,
@@ -21,19 +28,121 @@ public class DatabaseSchema {
                 y REAL,
                 z REAL
             )
+        """.formatted(table);
+    }
+
+    public String getCreatePlayerMessageStatsTableSQL() {
+        return """
+            CREATE TABLE IF NOT EXISTS player_message_stats (
+                player_uuid TEXT PRIMARY KEY,
+                sent_count INTEGER NOT NULL DEFAULT 0,
+                total_count INTEGER NOT NULL DEFAULT 0
+            ) WITHOUT ROWID
         """;
     }
 
+    public String getCreateMessageStatsTableSQL() {
+        return """
+            CREATE TABLE IF NOT EXISTS message_stats (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                total_count INTEGER NOT NULL
+            )
+        """;
+    }
+
+    /**
+     * The FTS table of a messages table is always named {@code <table>_fts}.
+     */
+    public String getCreateMessagesFtsTableSQL(String table) {
+        return """
+            CREATE VIRTUAL TABLE IF NOT EXISTS %1$s_fts USING fts5(
+                message,
+                sender_name,
+                content = '%1$s',
+                content_rowid = 'id',
+                tokenize = 'unicode61 remove_diacritics 2'
+            )
+        """.formatted(table);
+    }
+
+    /**
+     * Keep the external content FTS table in sync with its messages table.
+     */
+    public void createFtsTriggers(Statement stmt, String table) throws SQLException {
+        String[] triggers = {
+                """
+                CREATE TRIGGER IF NOT EXISTS %1$s_fts_insert AFTER INSERT ON %1$s BEGIN
+                    INSERT INTO %1$s_fts (rowid, message, sender_name) VALUES (new.id, new.message, new.sender_name);
+                END
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS %1$s_fts_delete AFTER DELETE ON %1$s BEGIN
+                    INSERT INTO %1$s_fts (%1$s_fts, rowid, message, sender_name)
+                    VALUES ('delete', old.id, old.message, old.sender_name);
+                END
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS %1$s_fts_update AFTER UPDATE ON %1$s BEGIN
+                    INSERT INTO %1$s_fts (%1$s_fts, rowid, message, sender_name)
+                    VALUES ('delete', old.id, old.message, old.sender_name);
+                    INSERT INTO %1$s_fts (rowid, message, sender_name) VALUES (new.id, new.message, new.sender_name);
+                END
+                """
+        };
+
+        for (String trigger : triggers) {
+            stmt.execute(trigger.formatted(table));
+        }
+    }
+
     public void createIndexes(Statement stmt) throws SQLException {
+        // Single column indexes replaced by the composite ones
+        stmt.execute("DROP INDEX IF EXISTS idx_sender");
+        stmt.execute("DROP INDEX IF EXISTS idx_recipient");
+        stmt.execute("DROP INDEX IF EXISTS idx_type");
+        createIndexes(stmt, "messages");
+    }
+
+    public void createIndexes(Statement stmt, String table) throws SQLException {
         String[] indexes = {
-                "CREATE INDEX IF NOT EXISTS idx_sender ON messages(sender_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_recipient ON messages(recipient_uuid)",
-                "CREATE INDEX IF NOT EXISTS idx_timestamp ON messages(timestamp)",
-                "CREATE INDEX IF NOT EXISTS idx_type ON messages(message_type)"
+                "CREATE INDEX IF NOT EXISTS %s ON %s(timestamp)",
+                // Filter column then id, so cursor pagination reads a single index range
+                "CREATE INDEX IF NOT EXISTS %s ON %s(sender_uuid, id)",
+                "CREATE INDEX IF NOT EXISTS %s ON %s(recipient_uuid, id)",
+                "CREATE INDEX IF NOT EXISTS %s ON %s(message_type, id)"
         };
+        String[] names = {"timestamp", "sender_id", "recipient_id", "type_id"};
 
-        for (String index : indexes) {
-            stmt.execute(index);
+        for (int i = 0; i < indexes.length; i++) {
+            stmt.execute(indexes[i].formatted(indexName(table, names[i]), table));
         }
     }
+
+    /**
+     * Messages of a table still missing from its FTS index, see {@link SearchIndexBackfill}.
+     */
+    public String getCreateSearchBackfillTableSQL() {
+        return """
+            CREATE TABLE IF NOT EXISTS search_index_backfill (
+                table_name TEXT PRIMARY KEY,
+                next_id INTEGER NOT NULL,
+                end_id INTEGER NOT NULL
+            )
+        """;
+    }
+
+    public String getCreatePartitionsTableSQL() {
+        return """
+            CREATE TABLE IF NOT EXISTS message_partitions (
+                table_name TEXT PRIMARY KEY,
+                start_millis INTEGER NOT NULL,
+                end_millis INTEGER NOT NULL
+            )
+        """;
+    }
+
+    // The legacy table keeps the index names it was created with
+    private String indexName(String table, String name) {
+        return "messages".equals(table) ? "idx_" + name : "idx_" + table + "_" + name;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection borrowed from a {@link ConnectionPool}. Closing it hands it back to the pool,
+ * and statements prepared through {@link #prepare(String)} are cached with the connection,
+ * so callers must not close them.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            stmt.clearParameters();
+            stmt.clearBatch();
+            return stmt;
+        }
+
+        stmt = connection.prepareStatement(sql);
+        statements.put(sql, stmt);
+        evictOldestStatements();
+        return stmt;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    boolean isValid() {
+        try {
+            return !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysically() {
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+            }
+        }
+        statements.clear();
+
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    private void evictOldestStatements() {
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        while (statements.size() > STATEMENT_CACHE_SIZE && iterator.hasNext()) {
+            try {
+                iterator.next().close();
+            } catch (SQLException ignored) {
+            }
+            iterator.remove();
+        }
+    }
+}
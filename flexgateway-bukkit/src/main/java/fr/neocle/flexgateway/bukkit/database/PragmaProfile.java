@@ -0,0 +1,85 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * SQLite pragmas applied to every connection when it is opened, read from database.pragmas.
+ */
+public class PragmaProfile {
+
+    private static final Pattern SAFE_VALUE = Pattern.compile("-?[A-Za-z0-9_]+");
+
+    // Only the writer may change the journal mode, it is persistent in the database file
+    private static final String JOURNAL_MODE = "journal_mode";
+
+    private final JavaPlugin plugin;
+    private final Map<String, String> pragmas = new LinkedHashMap<>();
+
+    public PragmaProfile(JavaPlugin plugin) {
+        this.plugin = plugin;
+
+        pragmas.put(JOURNAL_MODE, "WAL");
+        pragmas.put("synchronous", "NORMAL");
+        pragmas.put("mmap_size", "268435456");
+        pragmas.put("cache_size", "-16000");
+        pragmas.put("temp_store", "MEMORY");
+
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("database.pragmas");
+        if (section != null) {
+            for (String name : section.getKeys(false)) {
+                String value = String.valueOf(section.get(name));
+                if (!SAFE_VALUE.matcher(name).matches() || !SAFE_VALUE.matcher(value).matches()) {
+                    plugin.getLogger().warning("Ignoring invalid database pragma: " + name + " = " + value);
+                    continue;
+                }
+                pragmas.put(name.toLowerCase(Locale.ROOT), value);
+            }
+        }
+    }
+
+    public void apply(Connection connection, boolean writer) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (Map.Entry<String, String> pragma : pragmas.entrySet()) {
+                if (!writer && JOURNAL_MODE.equals(pragma.getKey())) {
+                    continue;
+                }
+                stmt.execute("PRAGMA " + pragma.getKey() + " = " + pragma.getValue());
+            }
+        }
+    }
+
+    /**
+     * Log the values SQLite actually uses, which may differ from the requested ones
+     * (e.g. mmap_size is capped by the build, WAL is refused on some file systems).
+     */
+    public void logEffective(Connection connection) {
+        StringBuilder effective = new StringBuilder();
+
+        try (Statement stmt = connection.createStatement()) {
+            for (String name : pragmas.keySet()) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+                    String value = rs.next() ? rs.getString(1) : "?";
+                    effective.append(effective.length() > 0 ? ", " : "").append(name).append("=").append(value);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("PRAGMA auto_vacuum")) {
+                effective.append(", auto_vacuum=").append(rs.next() ? rs.getString(1) : "?");
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to read database pragmas: " + e.getMessage());
+            return;
+        }
+
+        plugin.getLogger().info("Database pragmas: " + effective);
+    }
+}
@@ -0,0 +1,148 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds the messages written before a table had its FTS index, a chunk at a time so chat writes
+ * get the writer connection in between. Later messages are indexed by the triggers. Progress is
+ * kept in search_index_backfill, a restart picks up where the last run stopped.
+ */
+class SearchIndexBackfill {
+
+    private static final int CHUNK_SIZE = 5000;
+    private static final int CHUNKS_PER_CHECKPOINT = 20;
+
+    private final JavaPlugin plugin;
+    private final DatabaseConnection connectionManager;
+    private final String table;
+
+    SearchIndexBackfill(JavaPlugin plugin, DatabaseConnection connectionManager, String table) {
+        this.plugin = plugin;
+        this.connectionManager = connectionManager;
+        this.table = table;
+    }
+
+    /**
+     * Record the messages to index, in the transaction creating the FTS table and its triggers.
+     * Nothing is recorded for an empty table, search is then available right away.
+     */
+    static void register(Statement stmt, String table) throws SQLException {
+        stmt.execute("INSERT OR REPLACE INTO search_index_backfill (table_name, next_id, end_id) SELECT '"
+                + table + "', MIN(id), MAX(id) FROM " + table + " HAVING COUNT(*) > 0");
+    }
+
+    static boolean isPending(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM search_index_backfill WHERE table_name = '" + table + "'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Index chunks until done or interrupted. Returns true once every message is indexed.
+     */
+    boolean run() {
+        plugin.getLogger().info("Indexing existing messages of " + table + " for full-text search...");
+        long start = System.currentTimeMillis();
+        long indexed = 0;
+        int chunks = 0;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                int count = indexChunk();
+                if (count < 0) {
+                    plugin.getLogger().info("Full-text search index of " + table + " ready, " + indexed
+                            + " messages indexed in " + (System.currentTimeMillis() - start) / 1000 + " s");
+                    return true;
+                }
+                indexed += count;
+
+                if (++chunks % CHUNKS_PER_CHECKPOINT == 0) {
+                    checkpoint();
+                    plugin.getLogger().info("Indexed " + indexed + " messages of " + table + " for full-text search so far");
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to index messages for full-text search, retrying on next start: "
+                    + e.getMessage());
+        }
+        return false;
+    }
+
+    // Returns the number of messages indexed, or -1 when nothing was left
+    private int indexChunk() throws SQLException {
+        try (PooledConnection writer = connectionManager.borrowWriter()) {
+            Connection conn = writer.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                long nextId;
+                long endId;
+                PreparedStatement progress = writer.prepare(
+                        "SELECT next_id, end_id FROM search_index_backfill WHERE table_name = ?");
+                progress.setString(1, table);
+                try (ResultSet rs = progress.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.commit();
+                        return -1;
+                    }
+                    nextId = rs.getLong(1);
+                    endId = rs.getLong(2);
+                }
+
+                PreparedStatement last = writer.prepare("SELECT MAX(id), COUNT(*) FROM (SELECT id FROM " + table
+                        + " WHERE id >= ? AND id <= ? ORDER BY id LIMIT ?)");
+                last.setLong(1, nextId);
+                last.setLong(2, endId);
+                last.setInt(3, CHUNK_SIZE);
+                long chunkEnd;
+                int count;
+                try (ResultSet rs = last.executeQuery()) {
+                    rs.next();
+                    chunkEnd = rs.getLong(1);
+                    count = rs.getInt(2);
+                }
+
+                if (count == 0) {
+                    PreparedStatement done = writer.prepare("DELETE FROM search_index_backfill WHERE table_name = ?");
+                    done.setString(1, table);
+                    done.executeUpdate();
+                    conn.commit();
+                    return -1;
+                }
+
+                PreparedStatement insert = writer.prepare("INSERT INTO " + table + "_fts (rowid, message, sender_name) "
+                        + "SELECT id, message, sender_name FROM " + table + " WHERE id >= ? AND id <= ?");
+                insert.setLong(1, nextId);
+                insert.setLong(2, chunkEnd);
+                insert.executeUpdate();
+
+                PreparedStatement advance = writer.prepare(
+                        "UPDATE search_index_backfill SET next_id = ? WHERE table_name = ?");
+                advance.setLong(1, chunkEnd + 1);
+                advance.setString(2, table);
+                advance.executeUpdate();
+
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Regular maintenance waits for us, keep the WAL from growing meanwhile
+    private void checkpoint() throws SQLException {
+        try (PooledConnection writer = connectionManager.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            stmt.execute("PRAGMA wal_checkpoint(PASSIVE)");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Message timestamps are stored as UTC text, the format CURRENT_TIMESTAMP produces.
+ */
+public final class SqliteTimestamps {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+
+    private SqliteTimestamps() {
+    }
+
+    public static String format(long millis) {
+        return FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+}
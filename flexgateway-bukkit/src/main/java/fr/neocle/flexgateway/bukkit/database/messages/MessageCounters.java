@@ -0,0 +1,230 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import fr.neocle.flexgateway.bukkit.database.DatabaseConnection;
+import fr.neocle.flexgateway.bukkit.database.PooledConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-player and global message counters kept in player_message_stats and message_stats.
+ * The insert path updates them in the same transaction as the messages, and so does retention
+ * when it drops a partition. Hot players are cached in memory so lookups never hit the database twice.
+ */
+public class MessageCounters {
+
+    private static final String UPSERT_PLAYER_SQL = """
+            INSERT INTO player_message_stats (player_uuid, sent_count, total_count) VALUES (?, ?, ?)
+            ON CONFLICT(player_uuid) DO UPDATE SET
+                sent_count = sent_count + excluded.sent_count,
+                total_count = total_count + excluded.total_count
+        """;
+    private static final String UPDATE_TOTAL_SQL = "UPDATE message_stats SET total_count = total_count + ? WHERE id = 1";
+    private static final String SELECT_PLAYER_SQL = "SELECT sent_count, total_count FROM player_message_stats WHERE player_uuid = ?";
+
+    // Per-player sent and total counts of the messages in a table
+    private static final String COUNT_PLAYERS_SQL = """
+            SELECT player_uuid, SUM(sent), COUNT(*) FROM (
+                SELECT sender_uuid AS player_uuid, 1 AS sent FROM %1$s
+                UNION ALL
+                SELECT recipient_uuid, 0 FROM %1$s
+                WHERE recipient_uuid IS NOT NULL AND recipient_uuid != sender_uuid
+            ) GROUP BY player_uuid
+        """;
+    private static final String BACKFILL_PLAYERS_SQL = "INSERT INTO player_message_stats (player_uuid, sent_count, total_count) "
+            + COUNT_PLAYERS_SQL.formatted(MessagePartitions.LEGACY_TABLE);
+
+    private final DatabaseConnection connectionManager;
+    private final int cacheSize;
+    private final Map<String, PlayerCounts> cache = new ConcurrentHashMap<>();
+    private final AtomicLong totalMessages = new AtomicLong();
+
+    // Commits take the write lock so a cache miss never reads the database between
+    // a commit and the matching cache update
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    public record PlayerCounts(long sent, long total) {
+        PlayerCounts plus(PlayerCounts other) {
+            return new PlayerCounts(sent + other.sent, total + other.total);
+        }
+    }
+
+    public record BatchCounts(Map<String, PlayerCounts> players, long messages) {
+    }
+
+    public MessageCounters(DatabaseConnection connectionManager, int cacheSize) {
+        this.connectionManager = connectionManager;
+        this.cacheSize = Math.max(0, cacheSize);
+    }
+
+    /**
+     * Fill the counter tables from existing messages the first time, then load the global total.
+     */
+    public void initialize() {
+        try (PooledConnection writer = connectionManager.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            Connection conn = writer.getConnection();
+
+            try (ResultSet rs = stmt.executeQuery("SELECT total_count FROM message_stats WHERE id = 1")) {
+                if (rs.next()) {
+                    totalMessages.set(rs.getLong(1));
+                    return;
+                }
+            }
+
+            connectionManager.getPlugin().getLogger().info("Building message counters from existing messages...");
+            conn.setAutoCommit(false);
+            try {
+                stmt.execute("DELETE FROM player_message_stats");
+                stmt.execute(BACKFILL_PLAYERS_SQL);
+                stmt.execute("INSERT INTO message_stats (id, total_count) SELECT 1, COUNT(*) FROM messages");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT total_count FROM message_stats WHERE id = 1")) {
+                totalMessages.set(rs.next() ? rs.getLong(1) : 0L);
+            }
+        } catch (SQLException e) {
+            connectionManager.getPlugin().getLogger().warning("Failed to initialize message counters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add the counters for a batch of inserted messages, must run in the batch transaction.
+     * The returned deltas are applied to the cache by {@link #commit(Connection, BatchCounts)}.
+     */
+    public BatchCounts recordBatch(PooledConnection writer, List<MessageInsertCommand> batch) throws SQLException {
+        Map<String, PlayerCounts> deltas = new HashMap<>();
+        for (MessageInsertCommand command : batch) {
+            String sender = command.getSenderUuid();
+            String recipient = command.getRecipientUuid();
+            deltas.merge(sender, new PlayerCounts(1, 1), PlayerCounts::plus);
+            if (recipient != null && !recipient.equals(sender)) {
+                deltas.merge(recipient, new PlayerCounts(0, 1), PlayerCounts::plus);
+            }
+        }
+
+        return apply(writer, new BatchCounts(deltas, batch.size()));
+    }
+
+    /**
+     * Subtract the counters of every message in a table about to be dropped, must run in the
+     * same transaction as the drop. Applied to the cache by {@link #commit(Connection, BatchCounts)}.
+     */
+    public BatchCounts recordDropped(PooledConnection writer, String table) throws SQLException {
+        Map<String, PlayerCounts> deltas = new HashMap<>();
+        long messages = 0;
+        try (Statement stmt = writer.getConnection().createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(COUNT_PLAYERS_SQL.formatted(table))) {
+                while (rs.next()) {
+                    deltas.put(rs.getString(1), new PlayerCounts(-rs.getLong(2), -rs.getLong(3)));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                if (rs.next()) {
+                    messages = -rs.getLong(1);
+                }
+            }
+        }
+        return apply(writer, new BatchCounts(deltas, messages));
+    }
+
+    private BatchCounts apply(PooledConnection writer, BatchCounts counts) throws SQLException {
+        PreparedStatement upsert = writer.prepare(UPSERT_PLAYER_SQL);
+        for (Map.Entry<String, PlayerCounts> delta : counts.players().entrySet()) {
+            upsert.setString(1, delta.getKey());
+            upsert.setLong(2, delta.getValue().sent());
+            upsert.setLong(3, delta.getValue().total());
+            upsert.addBatch();
+        }
+        upsert.executeBatch();
+
+        PreparedStatement total = writer.prepare(UPDATE_TOTAL_SQL);
+        total.setLong(1, counts.messages());
+        total.executeUpdate();
+        return counts;
+    }
+
+    /**
+     * Commit the batch or drop transaction and apply its deltas to the cached counters.
+     */
+    public void commit(Connection conn, BatchCounts counts) throws SQLException {
+        commitLock.writeLock().lock();
+        try {
+            conn.commit();
+
+            totalMessages.addAndGet(counts.messages());
+            for (Map.Entry<String, PlayerCounts> delta : counts.players().entrySet()) {
+                cache.computeIfPresent(delta.getKey(), (uuid, current) -> current.plus(delta.getValue()));
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    public PlayerCounts getPlayerCounts(String playerUuid) {
+        PlayerCounts cached = cache.get(playerUuid);
+        if (cached != null) {
+            return cached;
+        }
+
+        commitLock.readLock().lock();
+        try {
+            PlayerCounts counts = loadPlayerCounts(playerUuid);
+            if (counts == null) {
+                return new PlayerCounts(0, 0);
+            }
+            if (cacheSize > 0) {
+                evictIfFull();
+                cache.put(playerUuid, counts);
+            }
+            return counts;
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    public long getTotalMessages() {
+        return totalMessages.get();
+    }
+
+    private PlayerCounts loadPlayerCounts(String playerUuid) {
+        try (PooledConnection reader = connectionManager.borrowReader()) {
+            PreparedStatement stmt = reader.prepare(SELECT_PLAYER_SQL);
+            stmt.setString(1, playerUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new PlayerCounts(rs.getLong(1), rs.getLong(2));
+                }
+            }
+        } catch (SQLException e) {
+            connectionManager.getPlugin().getLogger().warning("Failed to load message counters: " + e.getMessage());
+            return null;
+        }
+        return new PlayerCounts(0, 0);
+    }
+
+    private void evictIfFull() {
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() >= cacheSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
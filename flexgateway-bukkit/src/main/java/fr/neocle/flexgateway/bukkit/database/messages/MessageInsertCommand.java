@@ -6,6 +6,12 @@ import java.sql.Types;
 
 public class MessageInsertCommand {
 
+    private static final String SQL = """
+            INSERT INTO %s
+            (id, timestamp, sender_uuid, sender_name, recipient_uuid, recipient_name, message, message_type, world_name, x, y, z)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
     private final String senderUuid;
     private final String senderName;
     private final String recipientUuid;
@@ -16,6 +22,10 @@ public class MessageInsertCommand {
     private final Double x;
     private final Double y;
     private final Double z;
+    // Taken when the message is sent, the writer may flush it much later
+    private final long sentAtMillis = System.currentTimeMillis();
+    private long id;
+    private String timestamp;
 
     public MessageInsertCommand(String senderUuid, String senderName, String recipientUuid,
                                 String recipientName, String message, String messageType,
@@ -32,26 +42,44 @@ public class MessageInsertCommand {
         this.z = z;
     }
 
-    public String getSQL() {
-        return """
-            INSERT INTO messages
-            (sender_uuid, sender_name, recipient_uuid, recipient_name, message, message_type, world_name, x, y, z)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
+    public String getSenderUuid() {
+        return senderUuid;
+    }
+
+    public String getRecipientUuid() {
+        return recipientUuid;
+    }
+
+    public long getSentAtMillis() {
+        return sentAtMillis;
+    }
+
+    public static String getSQL(String table) {
+        return SQL.formatted(table);
+    }
+
+    /**
+     * Ids are given by the writer and timestamps moved into its partition, see {@link MessagePartitions#insert}.
+     */
+    void assign(long id, String timestamp) {
+        this.id = id;
+        this.timestamp = timestamp;
     }
 
     public void setParameters(PreparedStatement stmt) throws SQLException {
-        stmt.setString(1, senderUuid);
-        stmt.setString(2, senderName);
-        stmt.setString(3, recipientUuid);
-        stmt.setString(4, recipientName);
-        stmt.setString(5, message);
-        stmt.setString(6, messageType);
-        stmt.setString(7, worldName);
+        stmt.setLong(1, id);
+        stmt.setString(2, timestamp);
+        stmt.setString(3, senderUuid);
+        stmt.setString(4, senderName);
+        stmt.setString(5, recipientUuid);
+        stmt.setString(6, recipientName);
+        stmt.setString(7, message);
+        stmt.setString(8, messageType);
+        stmt.setString(9, worldName);
 
-        setDoubleOrNull(stmt, 8, x);
-        setDoubleOrNull(stmt, 9, y);
-        setDoubleOrNull(stmt, 10, z);
+        setDoubleOrNull(stmt, 10, x);
+        setDoubleOrNull(stmt, 11, y);
+        setDoubleOrNull(stmt, 12, z);
     }
 
     private void setDoubleOrNull(PreparedStatement stmt, int parameterIndex, Double value) throws SQLException {
@@ -1,18 +1,12 @@
 package fr.neocle.flexgateway.bukkit.database.messages;
 
 import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.bukkit.utils.TimeUtils;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.SimpleDateFormat;
 
 public class MessageJsonConverter {
 
-    private final SimpleDateFormat dateFormat;
-
-    public MessageJsonConverter(SimpleDateFormat dateFormat) {
-        this.dateFormat = dateFormat;
-    }
-
     public JsonObject convertToJson(ResultSet rs) throws SQLException {
         JsonObject message = new JsonObject();
 
@@ -28,7 +22,7 @@ public class MessageJsonConverter {
         message.addProperty("senderUuid", rs.getString("sender_uuid"));
         message.addProperty("senderName", rs.getString("sender_name"));
         message.addProperty("message", rs.getString("message"));
-        message.addProperty("timestamp", dateFormat.format(rs.getTimestamp("timestamp")));
+        message.addProperty("timestamp", TimeUtils.formatDate(rs.getTimestamp("timestamp").getTime()));
         message.addProperty("messageType", rs.getString("message_type"));
     }
 
@@ -0,0 +1,286 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import fr.neocle.flexgateway.bukkit.database.DatabaseConnection;
+import fr.neocle.flexgateway.bukkit.database.DatabaseSchema;
+import fr.neocle.flexgateway.bukkit.database.PooledConnection;
+import fr.neocle.flexgateway.bukkit.database.SqliteTimestamps;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Messages are stored in one table per UTC month (messages_YYYYMM), listed in message_partitions.
+ * The original messages table is kept as the partition holding everything written before.
+ * Ids keep growing across partitions, so a partition covers both a time range and an id range
+ * and cursor pagination can walk partitions in order. Expired months are dropped as a whole,
+ * optionally after being copied to an archive database, and taken off the message counters.
+ */
+public class MessagePartitions {
+
+    public static final String LEGACY_TABLE = "messages";
+
+    private static final DateTimeFormatter TABLE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    public record Partition(String table, long startMillis, long endMillis) {
+        public boolean overlaps(Long sinceMillis, Long untilMillis) {
+            return (sinceMillis == null || endMillis > sinceMillis)
+                    && (untilMillis == null || startMillis < untilMillis);
+        }
+
+        public String ftsTable() {
+            return table + "_fts";
+        }
+    }
+
+    private final DatabaseConnection connectionManager;
+    private final MessageCounters counters;
+    private final DatabaseSchema schema = new DatabaseSchema();
+    private final int retentionMonths;
+    private final boolean archive;
+    private final File archiveFolder;
+
+    // Oldest first, replaced as a whole so readers never see a partial list
+    private volatile List<Partition> partitions = List.of();
+
+    // Only used while holding the writer connection, which is never shared
+    private long nextId = 1;
+
+    public MessagePartitions(DatabaseConnection connectionManager, MessageCounters counters) {
+        JavaPlugin plugin = connectionManager.getPlugin();
+        this.connectionManager = connectionManager;
+        this.counters = counters;
+        this.retentionMonths = Math.max(0, plugin.getConfig().getInt("database.partitions.retention_months", 0));
+        this.archive = "archive".equalsIgnoreCase(plugin.getConfig().getString("database.partitions.retention_mode", "archive"));
+        this.archiveFolder = new File(plugin.getDataFolder(), "archive");
+    }
+
+    /**
+     * Load the partition list and the next message id.
+     */
+    public void initialize() {
+        try (PooledConnection writer = connectionManager.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            List<Partition> loaded = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT table_name, start_millis, end_millis FROM message_partitions ORDER BY start_millis")) {
+                while (rs.next()) {
+                    loaded.add(new Partition(rs.getString(1), rs.getLong(2), rs.getLong(3)));
+                }
+            }
+            partitions = withLegacy(loaded);
+
+            long maxId = 0;
+            for (Partition partition : partitions) {
+                try (ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM " + partition.table())) {
+                    if (rs.next()) {
+                        maxId = Math.max(maxId, rs.getLong(1));
+                    }
+                }
+            }
+            nextId = maxId + 1;
+
+            connectionManager.getPlugin().getLogger().info("Message partitions loaded: " + partitions.size()
+                    + (retentionMonths > 0 ? ", keeping " + retentionMonths + " months" : ""));
+        } catch (SQLException e) {
+            connectionManager.getPlugin().getLogger().warning("Failed to load message partitions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the partition for messages written now, creating it on the first write of a month.
+     * Must be called outside of a transaction, before {@link #insert}.
+     */
+    public Partition currentPartition(PooledConnection writer) throws SQLException {
+        long now = System.currentTimeMillis();
+        List<Partition> current = partitions;
+        Partition newest = current.isEmpty() ? null : current.get(current.size() - 1);
+        if (newest != null && !LEGACY_TABLE.equals(newest.table()) && newest.startMillis() <= now && now < newest.endMillis()) {
+            return newest;
+        }
+        return createPartition(writer, YearMonth.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Insert a batch into the partition, giving every message its id and the time it was sent.
+     */
+    public void insert(PooledConnection writer, Partition partition, List<MessageInsertCommand> batch) throws SQLException {
+        PreparedStatement stmt = writer.prepare(MessageInsertCommand.getSQL(partition.table()));
+        long id = nextId;
+        for (MessageInsertCommand command : batch) {
+            // Clamp to the partition so a message sent right before midnight never lands outside its month
+            long sentAt = Math.min(Math.max(command.getSentAtMillis(), partition.startMillis()), partition.endMillis() - 1);
+            command.assign(id++, SqliteTimestamps.format(sentAt));
+            command.setParameters(stmt);
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+        // A rolled back batch only leaves a gap in the ids
+        nextId = id;
+    }
+
+    /**
+     * Get the partitions overlapping the time range, newest first. Both bounds are optional.
+     */
+    public List<Partition> newestFirst(Long sinceMillis, Long untilMillis) {
+        List<Partition> result = oldestFirst(sinceMillis, untilMillis);
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Get the partitions overlapping the time range, oldest first. Both bounds are optional.
+     */
+    public List<Partition> oldestFirst(Long sinceMillis, Long untilMillis) {
+        List<Partition> result = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.overlaps(sinceMillis, untilMillis)) {
+                result.add(partition);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop (or archive then drop) every partition older than the retention window. Runs on the
+     * maintenance thread; dropping a table never touches rows one by one like a DELETE would.
+     */
+    public void applyRetention() {
+        if (retentionMonths <= 0) {
+            return;
+        }
+
+        long cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths)
+                .atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        for (Partition partition : partitions) {
+            if (partition.endMillis() > cutoff) {
+                break;
+            }
+            try (PooledConnection writer = connectionManager.borrowWriter()) {
+                dropPartition(writer, partition);
+            } catch (SQLException e) {
+                connectionManager.getPlugin().getLogger().warning("Failed to expire message partition "
+                        + partition.table() + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private synchronized Partition createPartition(PooledConnection writer, YearMonth month) throws SQLException {
+        long start = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long end = month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        Partition partition = new Partition(LEGACY_TABLE + "_" + month.format(TABLE_SUFFIX), start, end);
+
+        try (Statement stmt = writer.getConnection().createStatement()) {
+            createMessagesTable(stmt, partition.table());
+        }
+
+        PreparedStatement register = writer.prepare(
+                "INSERT OR IGNORE INTO message_partitions (table_name, start_millis, end_millis) VALUES (?, ?, ?)");
+        register.setString(1, partition.table());
+        register.setLong(2, partition.startMillis());
+        register.setLong(3, partition.endMillis());
+        register.executeUpdate();
+
+        List<Partition> monthly = new ArrayList<>();
+        for (Partition existing : partitions) {
+            if (!LEGACY_TABLE.equals(existing.table()) && !existing.table().equals(partition.table())) {
+                monthly.add(existing);
+            }
+        }
+        monthly.add(partition);
+        monthly.sort((a, b) -> Long.compare(a.startMillis(), b.startMillis()));
+        partitions = withLegacy(monthly);
+
+        connectionManager.getPlugin().getLogger().info("Created message partition " + partition.table());
+        return partition;
+    }
+
+    private synchronized void dropPartition(PooledConnection writer, Partition partition) throws SQLException {
+        Connection conn = writer.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            if (archive) {
+                archivePartition(stmt, partition);
+            }
+
+            // Remove it from the list first so new queries stop reading it
+            List<Partition> before = partitions;
+            List<Partition> remaining = new ArrayList<>(before);
+            remaining.remove(partition);
+            partitions = List.copyOf(remaining);
+
+            // Counters only keep counting what is still stored, they go down with the table
+            conn.setAutoCommit(false);
+            try {
+                MessageCounters.BatchCounts dropped = counters.recordDropped(writer, partition.table());
+                stmt.execute("DROP TABLE IF EXISTS " + partition.ftsTable());
+                stmt.execute("DROP TABLE IF EXISTS " + partition.table());
+                if (LEGACY_TABLE.equals(partition.table())) {
+                    // Keep an empty legacy table around, the schema and counters expect it
+                    createMessagesTable(stmt, LEGACY_TABLE);
+                } else {
+                    PreparedStatement unregister = writer.prepare("DELETE FROM message_partitions WHERE table_name = ?");
+                    unregister.setString(1, partition.table());
+                    unregister.executeUpdate();
+                }
+                counters.commit(conn, dropped);
+            } catch (SQLException e) {
+                conn.rollback();
+                partitions = before;
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        connectionManager.getPlugin().getLogger().info((archive ? "Archived and dropped" : "Dropped")
+                + " message partition " + partition.table());
+    }
+
+    private void createMessagesTable(Statement stmt, String table) throws SQLException {
+        stmt.execute(schema.getCreateMessagesTableSQL(table));
+        schema.createIndexes(stmt, table);
+        if (connectionManager.isSearchSupported()) {
+            stmt.execute(schema.getCreateMessagesFtsTableSQL(table));
+            schema.createFtsTriggers(stmt, table);
+        }
+    }
+
+    private void archivePartition(Statement stmt, Partition partition) throws SQLException {
+        if (!archiveFolder.exists() && !archiveFolder.mkdirs()) {
+            throw new SQLException("Failed to create archive folder: " + archiveFolder.getAbsolutePath());
+        }
+
+        File file = new File(archiveFolder, partition.table() + ".db");
+        stmt.execute("ATTACH DATABASE '" + file.getAbsolutePath().replace("'", "''") + "' AS archive");
+        try {
+            stmt.execute("DROP TABLE IF EXISTS archive." + partition.table());
+            stmt.execute("CREATE TABLE archive." + partition.table() + " AS SELECT * FROM main." + partition.table());
+        } finally {
+            stmt.execute("DETACH DATABASE archive");
+        }
+    }
+
+    // The legacy table covers everything before the first monthly partition
+    private List<Partition> withLegacy(List<Partition> monthly) {
+        if (!monthly.isEmpty() && LEGACY_TABLE.equals(monthly.get(0).table())) {
+            return List.copyOf(monthly);
+        }
+        List<Partition> result = new ArrayList<>(monthly.size() + 1);
+        long legacyEnd = monthly.isEmpty() ? Long.MAX_VALUE : monthly.get(0).startMillis();
+        result.add(new Partition(LEGACY_TABLE, Long.MIN_VALUE, legacyEnd));
+        result.addAll(monthly);
+        return List.copyOf(result);
+    }
+}
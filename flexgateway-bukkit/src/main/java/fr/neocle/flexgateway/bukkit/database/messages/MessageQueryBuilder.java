@@ -1,5 +1,7 @@
 package fr.neocle.flexgateway.bukkit.database.messages;
 
+import fr.neocle.flexgateway.bukkit.database.SqliteTimestamps;
+
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -7,11 +9,29 @@ import java.util.List;
 
 public class MessageQueryBuilder {
 
+    private List<String> tables = List.of(MessagePartitions.LEGACY_TABLE);
     private String playerUuid;
     private String messageType;
+    private Long sinceMillis;
+    private Long untilMillis;
     private int limit;
     private int offset;
-    private final List<String> parameters = new ArrayList<>();
+    private boolean keyset;
+    private Long beforeId;
+    private Long afterId;
+    private final List<Object> parameters = new ArrayList<>();
+
+    public MessageQueryBuilder fromTable(String table) {
+        return fromTables(List.of(table));
+    }
+
+    /**
+     * Read from several partitions at once, their rows are merged by UNION ALL.
+     */
+    public MessageQueryBuilder fromTables(List<String> tables) {
+        this.tables = tables;
+        return this;
+    }
 
     public MessageQueryBuilder withPlayerFilter(String playerUuid) {
         this.playerUuid = playerUuid;
@@ -23,19 +43,112 @@ public class MessageQueryBuilder {
         return this;
     }
 
+    public MessageQueryBuilder withTimeRange(Long sinceMillis, Long untilMillis) {
+        this.sinceMillis = sinceMillis;
+        this.untilMillis = untilMillis;
+        return this;
+    }
+
     public MessageQueryBuilder withPagination(int limit, int offset) {
         this.limit = limit;
         this.offset = offset;
+        this.keyset = false;
+        return this;
+    }
+
+    /**
+     * Page by message id instead of offset, both bounds are exclusive and optional.
+     */
+    public MessageQueryBuilder withCursor(int limit, Long beforeId, Long afterId) {
+        this.limit = limit;
+        this.beforeId = beforeId;
+        this.afterId = afterId;
+        this.keyset = true;
         return this;
     }
 
+    /**
+     * Whether rows come back oldest first, which happens when only paging forward with after.
+     */
+    public boolean isAscending() {
+        return keyset && afterId != null && beforeId == null;
+    }
+
     public String build() {
-        StringBuilder sql = new StringBuilder("SELECT * FROM messages WHERE 1=1");
         parameters.clear();
+        return keyset ? buildKeysetQuery() : buildOffsetQuery();
+    }
 
-        if (playerUuid != null && !playerUuid.isEmpty()) {
-            sql.append(" AND (sender_uuid = ? OR recipient_uuid = ?)");
-            parameters.add(playerUuid);
+    public void setParameters(PreparedStatement stmt) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof String value) {
+                stmt.setString(i + 1, value);
+            } else if (parameter instanceof Long value) {
+                stmt.setLong(i + 1, value);
+            } else {
+                stmt.setInt(i + 1, (Integer) parameter);
+            }
+        }
+    }
+
+    private String buildOffsetQuery() {
+        StringBuilder sql = new StringBuilder();
+        for (String table : tables) {
+            sql.append(sql.length() > 0 ? " UNION ALL " : "").append("SELECT * FROM ").append(table).append(" WHERE 1=1");
+
+            if (playerUuid != null && !playerUuid.isEmpty()) {
+                sql.append(" AND (sender_uuid = ? OR recipient_uuid = ?)");
+                parameters.add(playerUuid);
+                parameters.add(playerUuid);
+            }
+
+            if (messageType != null && !messageType.isEmpty()) {
+                sql.append(" AND message_type = ?");
+                parameters.add(messageType);
+            }
+
+            appendTimeRange(sql);
+        }
+
+        if (tables.size() > 1) {
+            sql.insert(0, "SELECT * FROM (").append(")");
+        }
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ? OFFSET ?");
+        parameters.add(limit);
+        parameters.add(offset);
+
+        return sql.toString();
+    }
+
+    private String buildKeysetQuery() {
+        List<String> selects = new ArrayList<>();
+        for (String table : tables) {
+            if (playerUuid == null || playerUuid.isEmpty()) {
+                selects.add(buildKeysetSelect(table, null));
+            } else {
+                // An OR across sender and recipient would sort every matching row, two index range
+                // scans merged by id only read one page from each side
+                selects.add(buildKeysetSelect(table, "sender_uuid"));
+                selects.add(buildKeysetSelect(table, "recipient_uuid"));
+            }
+        }
+
+        if (selects.size() == 1) {
+            return selects.get(0);
+        }
+
+        String sql = "SELECT * FROM (" + String.join(") UNION SELECT * FROM (", selects) + ")"
+                + " ORDER BY id " + order() + " LIMIT ?";
+        parameters.add(limit);
+        return sql;
+    }
+
+    private String buildKeysetSelect(String table, String playerColumn) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table).append(" WHERE 1=1");
+
+        if (playerColumn != null) {
+            sql.append(" AND ").append(playerColumn).append(" = ?");
             parameters.add(playerUuid);
         }
 
@@ -44,19 +157,37 @@ public class MessageQueryBuilder {
             parameters.add(messageType);
         }
 
-        sql.append(" ORDER BY timestamp DESC LIMIT ? OFFSET ?");
-        parameters.add(String.valueOf(limit));
-        parameters.add(String.valueOf(offset));
+        appendTimeRange(sql);
+
+        if (beforeId != null) {
+            sql.append(" AND id < ?");
+            parameters.add(beforeId);
+        }
+
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            parameters.add(afterId);
+        }
+
+        sql.append(" ORDER BY id ").append(order()).append(" LIMIT ?");
+        parameters.add(limit);
 
         return sql.toString();
     }
 
-    public void setParameters(PreparedStatement stmt) throws SQLException {
-        for (int i = 0; i < parameters.size() - 2; i++) {
-            stmt.setString(i + 1, parameters.get(i));
+    private void appendTimeRange(StringBuilder sql) {
+        if (sinceMillis != null) {
+            sql.append(" AND timestamp >= ?");
+            parameters.add(SqliteTimestamps.format(sinceMillis));
         }
 
-        stmt.setInt(parameters.size() - 1, limit);
-        stmt.setInt(parameters.size(), offset);
+        if (untilMillis != null) {
+            sql.append(" AND timestamp < ?");
+            parameters.add(SqliteTimestamps.format(untilMillis));
+        }
+    }
+
+    private String order() {
+        return isAscending() ? "ASC" : "DESC";
     }
-}
\ No newline at end of file
+}
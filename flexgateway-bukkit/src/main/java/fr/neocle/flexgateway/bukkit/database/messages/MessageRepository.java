@@ -1,18 +1,24 @@
 package fr.neocle.flexgateway.bukkit.database.messages;
 
 import fr.neocle.flexgateway.bukkit.database.DatabaseConnection;
+import fr.neocle.flexgateway.bukkit.database.PooledConnection;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 
 import java.sql.*;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MessageRepository {
 
     private final DatabaseConnection connectionManager;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private final MessageCounters counters;
+    private final MessagePartitions partitions;
 
-    public MessageRepository(DatabaseConnection connectionManager) {
+    public MessageRepository(DatabaseConnection connectionManager, MessageCounters counters, MessagePartitions partitions) {
         this.connectionManager = connectionManager;
+        this.counters = counters;
+        this.partitions = partitions;
     }
 
     public void saveMessage(String senderUuid, String senderName, String recipientUuid,
@@ -24,14 +30,20 @@ public class MessageRepository {
                 message, messageType, worldName, x, y, z
         );
 
-        try (Connection conn = connectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(command.getSQL())) {
+        try (PooledConnection conn = connectionManager.borrowWriter()) {
+            Connection connection = conn.getConnection();
+            MessagePartitions.Partition partition = partitions.currentPartition(conn);
+            connection.setAutoCommit(false);
 
-            command.setParameters(stmt);
-
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
+            try {
+                partitions.insert(conn, partition, List.of(command));
+                counters.commit(connection, counters.recordBatch(conn, List.of(command)));
                 connectionManager.getPlugin().getLogger().fine("Message saved successfully from " + senderName);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
 
         } catch (SQLException e) {
@@ -40,15 +52,28 @@ public class MessageRepository {
         }
     }
 
-    public JsonArray getMessages(int limit, int offset, String playerUuid, String messageType) {
+    /**
+     * Offset pagination sorts by timestamp, so it reads every partition in the time range at once.
+     */
+    public JsonArray getMessages(int limit, int offset, String playerUuid, String messageType,
+                                 Long sinceMillis, Long untilMillis) {
+        List<String> tables = new ArrayList<>();
+        for (MessagePartitions.Partition partition : partitions.newestFirst(sinceMillis, untilMillis)) {
+            tables.add(partition.table());
+        }
+        if (tables.isEmpty()) {
+            return new JsonArray();
+        }
+
         MessageQueryBuilder queryBuilder = new MessageQueryBuilder()
+                .fromTables(tables)
                 .withPlayerFilter(playerUuid)
                 .withMessageTypeFilter(messageType)
+                .withTimeRange(sinceMillis, untilMillis)
                 .withPagination(limit, offset);
 
-        try (Connection conn = connectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(queryBuilder.build())) {
-
+        try (PooledConnection conn = connectionManager.borrowReader()) {
+            PreparedStatement stmt = conn.prepare(queryBuilder.build());
             queryBuilder.setParameters(stmt);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -62,45 +87,94 @@ public class MessageRepository {
         }
     }
 
-    public int getPlayerMessageCount(String playerUuid) {
-        String sql = "SELECT COUNT(*) FROM messages WHERE sender_uuid = ? OR recipient_uuid = ?";
-        return executeCountQuery(sql, playerUuid, playerUuid);
-    }
-
-    public int getPlayerSentMessageCount(String playerUuid) {
-        String sql = "SELECT COUNT(*) FROM messages WHERE sender_uuid = ?";
-        return executeCountQuery(sql, playerUuid);
-    }
+    /**
+     * Ids grow from one partition to the next, so partitions are read in id order and the
+     * walk stops as soon as the page is full.
+     */
+    public JsonArray getMessagesByCursor(int limit, Long beforeId, Long afterId, String playerUuid,
+                                         String messageType, Long sinceMillis, Long untilMillis) {
+        MessageQueryBuilder queryBuilder = new MessageQueryBuilder()
+                .withPlayerFilter(playerUuid)
+                .withMessageTypeFilter(messageType)
+                .withTimeRange(sinceMillis, untilMillis)
+                .withCursor(limit, beforeId, afterId);
+        boolean ascending = queryBuilder.isAscending();
+        List<MessagePartitions.Partition> scan = ascending
+                ? partitions.oldestFirst(sinceMillis, untilMillis)
+                : partitions.newestFirst(sinceMillis, untilMillis);
 
-    public int getTotalMessageCount() {
-        String sql = "SELECT COUNT(*) FROM messages";
-        return executeCountQuery(sql);
-    }
+        JsonArray messages = new JsonArray();
+        try (PooledConnection conn = connectionManager.borrowReader()) {
+            for (MessagePartitions.Partition partition : scan) {
+                int remaining = limit - messages.size();
+                if (remaining <= 0) {
+                    break;
+                }
 
-    private int executeCountQuery(String sql, String... parameters) {
-        try (Connection conn = connectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                queryBuilder.fromTable(partition.table()).withCursor(remaining, beforeId, afterId);
+                PreparedStatement stmt = conn.prepare(queryBuilder.build());
+                queryBuilder.setParameters(stmt);
 
-            for (int i = 0; i < parameters.length; i++) {
-                stmt.setString(i + 1, parameters[i]);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    messages.addAll(convertResultSetToJsonArray(rs));
+                }
             }
+        } catch (SQLException e) {
+            connectionManager.getPlugin().getLogger().warning("Failed to retrieve messages: " + e.getMessage());
+            e.printStackTrace();
+            return new JsonArray();
+        }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
+        return ascending ? reverse(messages) : messages;
+    }
+
+    /**
+     * Search the partitions in the time range newest first until the page is full. Ids grow
+     * across partitions, so the page is in id order like the per-partition results.
+     */
+    public JsonArray searchMessages(MessageSearchQuery query) {
+        if (!connectionManager.isSearchAvailable()) {
+            return new JsonArray();
+        }
+
+        JsonArray messages = new JsonArray();
+        int limit = query.getLimit();
+        try (PooledConnection conn = connectionManager.borrowReader()) {
+            MessageJsonConverter converter = new MessageJsonConverter();
+            for (MessagePartitions.Partition partition : partitions.newestFirst(query.getSinceMillis(), query.getUntilMillis())) {
+                if (messages.size() >= limit) {
+                    break;
+                }
+                query.fromTable(partition.table()).withCursor(limit - messages.size(), query.getBeforeId());
+                PreparedStatement stmt = conn.prepare(query.build());
+                query.setParameters(stmt);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        JsonObject message = converter.convertToJson(rs);
+                        message.addProperty("score", rs.getDouble("score"));
+                        messages.add(message);
+                    }
                 }
             }
-
         } catch (SQLException e) {
-            connectionManager.getPlugin().getLogger().warning("Failed to execute count query: " + e.getMessage());
+            connectionManager.getPlugin().getLogger().warning("Failed to search messages: " + e.getMessage());
+            return new JsonArray();
         }
+        return messages;
+    }
 
-        return 0;
+    private JsonArray reverse(JsonArray messages) {
+        JsonArray reversed = new JsonArray(messages.size());
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            reversed.add(messages.get(i));
+        }
+        return reversed;
     }
 
     private JsonArray convertResultSetToJsonArray(ResultSet rs) throws SQLException {
         JsonArray messages = new JsonArray();
-        MessageJsonConverter converter = new MessageJsonConverter(dateFormat);
+        MessageJsonConverter converter = new MessageJsonConverter();
 
         while (rs.next()) {
             messages.add(converter.convertToJson(rs));
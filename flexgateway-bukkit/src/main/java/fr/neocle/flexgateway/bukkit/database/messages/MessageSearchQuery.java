@@ -0,0 +1,151 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import fr.neocle.flexgateway.bukkit.database.SqliteTimestamps;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over the FTS table of one partition. Matches come newest first and are paged
+ * by id, which never changes; their bm25 score (lower is better) is returned alongside. Scores
+ * shift as messages are added, so they can't order pages.
+ */
+public class MessageSearchQuery {
+
+    private String table = MessagePartitions.LEGACY_TABLE;
+    private String text;
+    private String playerUuid;
+    private String messageType;
+    private Long sinceMillis;
+    private Long untilMillis;
+    private int limit;
+    private Long beforeId;
+    private final List<Object> parameters = new ArrayList<>();
+
+    public MessageSearchQuery fromTable(String table) {
+        this.table = table;
+        return this;
+    }
+
+    public MessageSearchQuery withText(String text) {
+        this.text = text;
+        return this;
+    }
+
+    public MessageSearchQuery withPlayerFilter(String playerUuid) {
+        this.playerUuid = playerUuid;
+        return this;
+    }
+
+    public MessageSearchQuery withMessageTypeFilter(String messageType) {
+        this.messageType = messageType;
+        return this;
+    }
+
+    public MessageSearchQuery withTimeRange(Long sinceMillis, Long untilMillis) {
+        this.sinceMillis = sinceMillis;
+        this.untilMillis = untilMillis;
+        return this;
+    }
+
+    public Long getSinceMillis() {
+        return sinceMillis;
+    }
+
+    public Long getUntilMillis() {
+        return untilMillis;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Long getBeforeId() {
+        return beforeId;
+    }
+
+    public MessageSearchQuery withCursor(int limit, Long beforeId) {
+        this.limit = limit;
+        this.beforeId = beforeId;
+        return this;
+    }
+
+    public String build() {
+        parameters.clear();
+
+        String fts = table + "_fts";
+        StringBuilder sql = new StringBuilder("SELECT m.*, ").append(fts).append(".rank AS score")
+                .append(" FROM ").append(fts).append(" JOIN ").append(table).append(" m ON m.id = ").append(fts).append(".rowid")
+                .append(" WHERE ").append(fts).append(" MATCH ?");
+        parameters.add(toMatchExpression(text));
+
+        if (playerUuid != null && !playerUuid.isEmpty()) {
+            sql.append(" AND (m.sender_uuid = ? OR m.recipient_uuid = ?)");
+            parameters.add(playerUuid);
+            parameters.add(playerUuid);
+        }
+
+        if (messageType != null && !messageType.isEmpty()) {
+            sql.append(" AND m.message_type = ?");
+            parameters.add(messageType);
+        }
+
+        if (sinceMillis != null) {
+            sql.append(" AND m.timestamp >= ?");
+            parameters.add(SqliteTimestamps.format(sinceMillis));
+        }
+
+        if (untilMillis != null) {
+            sql.append(" AND m.timestamp < ?");
+            parameters.add(SqliteTimestamps.format(untilMillis));
+        }
+
+        if (beforeId != null) {
+            sql.append(" AND m.id < ?");
+            parameters.add(beforeId);
+        }
+
+        sql.append(" ORDER BY m.id DESC LIMIT ?");
+        parameters.add(limit);
+
+        return sql.toString();
+    }
+
+    public void setParameters(PreparedStatement stmt) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof String value) {
+                stmt.setString(i + 1, value);
+            } else if (parameter instanceof Long value) {
+                stmt.setLong(i + 1, value);
+            } else {
+                stmt.setInt(i + 1, (Integer) parameter);
+            }
+        }
+    }
+
+    /**
+     * Turn free text into an FTS5 expression where every word must match. Words are quoted so
+     * user input can't inject query syntax, a trailing * keeps working as a prefix search.
+     */
+    static String toMatchExpression(String text) {
+        StringBuilder expression = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            String term = prefix ? word.replaceAll("\\*+$", "") : word;
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+            expression.append('"').append(term.replace("\"", "\"\"")).append('"');
+            if (prefix) {
+                expression.append('*');
+            }
+        }
+        return expression.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import fr.neocle.flexgateway.bukkit.database.DatabaseConnection;
+import fr.neocle.flexgateway.bukkit.database.PooledConnection;
+import com.google.gson.JsonObject;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for chat messages. Producers only append to a bounded queue, and a
+ * dedicated writer thread inserts the messages in batches, one transaction per batch.
+ * Messages are dropped (and counted) when the buffer is full instead of blocking chat.
+ */
+public class MessageWriteQueue {
+
+    private final DatabaseConnection connectionManager;
+    private final MessageCounters counters;
+    private final MessagePartitions partitions;
+    private final BlockingQueue<MessageInsertCommand> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running = false;
+    private Thread writerThread;
+
+    public MessageWriteQueue(DatabaseConnection connectionManager, MessageCounters counters,
+                             MessagePartitions partitions, int capacity, int batchSize, long flushIntervalMs) {
+        this.connectionManager = connectionManager;
+        this.counters = counters;
+        this.partitions = partitions;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1L, flushIntervalMs);
+    }
+
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "FlexGateway-MessageWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop the writer thread and flush everything still buffered.
+     */
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+        }
+
+        List<MessageInsertCommand> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            writeBatch(remaining.subList(i, Math.min(remaining.size(), i + batchSize)));
+        }
+    }
+
+    /**
+     * Queue a message for insertion, returns false if it was dropped because the buffer is full.
+     */
+    public boolean enqueue(MessageInsertCommand command) {
+        if (!buffer.offer(command)) {
+            long total = dropped.incrementAndGet();
+            // Log the first drop and then every thousand, chat can be very busy
+            if (total == 1 || total % 1000 == 0) {
+                connectionManager.getPlugin().getLogger().warning("Message write buffer full, "
+                        + total + " messages dropped so far");
+            }
+            return false;
+        }
+        enqueued.incrementAndGet();
+        return true;
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("pending", buffer.size());
+        stats.addProperty("capacity", buffer.size() + buffer.remainingCapacity());
+        stats.addProperty("enqueued", enqueued.get());
+        stats.addProperty("written", written.get());
+        stats.addProperty("dropped", dropped.get());
+        stats.addProperty("failed", failed.get());
+        stats.addProperty("batches", batches.get());
+        return stats;
+    }
+
+    private void runWriter() {
+        List<MessageInsertCommand> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                MessageInsertCommand first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect until the batch is full or the flush interval is over
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    MessageInsertCommand next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts us, whatever was collected is still written below
+            }
+
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<MessageInsertCommand> batch) {
+        try (PooledConnection writer = connectionManager.borrowWriter()) {
+            Connection conn = writer.getConnection();
+            MessagePartitions.Partition partition = partitions.currentPartition(writer);
+            conn.setAutoCommit(false);
+
+            try {
+                partitions.insert(writer, partition, batch);
+
+                MessageCounters.BatchCounts counts = counters.recordBatch(writer, batch);
+                counters.commit(conn, counts);
+
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            failed.addAndGet(batch.size());
+            connectionManager.getPlugin().getLogger().warning("Failed to write batch of "
+                    + batch.size() + " messages: " + e.getMessage());
+        }
+    }
+}
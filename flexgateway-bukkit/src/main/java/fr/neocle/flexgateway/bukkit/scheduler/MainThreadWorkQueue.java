@@ -0,0 +1,121 @@
+package fr.neocle.flexgateway.bukkit.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue of work that has to run on the main thread. Any thread can submit, and a single
+ * repeating task drains the queue once per tick until the tick budget is spent, so a burst
+ * of API calls costs one scheduler task instead of one per request.
+ */
+public class MainThreadWorkQueue {
+
+    private final JavaPlugin plugin;
+    private final Queue<QueuedCall<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long tickBudgetNanos;
+
+    private volatile boolean running = false;
+    private BukkitTask task;
+
+    public MainThreadWorkQueue(JavaPlugin plugin) {
+        this.plugin = plugin;
+        long budgetMs = Math.max(1L, plugin.getConfig().getLong("scheduler.tick_budget_ms", 5L));
+        this.tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+    public void start() {
+        running = true;
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+        plugin.getLogger().info("Main thread work queue started (tick budget: "
+                + TimeUnit.NANOSECONDS.toMillis(tickBudgetNanos) + "ms)");
+    }
+
+    public void stop() {
+        running = false;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        // Whatever is left would never run, so let waiting callers fail right away
+        QueuedCall<?> call;
+        while ((call = queue.poll()) != null) {
+            pending.decrementAndGet();
+            call.future.completeExceptionally(new IllegalStateException("Main thread work queue stopped"));
+        }
+    }
+
+    /**
+     * Run the given call on the main thread and complete the returned future with its result.
+     * Calls made from the main thread itself run immediately.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable) {
+        QueuedCall<T> call = new QueuedCall<>(callable);
+
+        if (Bukkit.isPrimaryThread()) {
+            call.run();
+        } else if (!running) {
+            call.future.completeExceptionally(new IllegalStateException("Main thread work queue is not running"));
+        } else {
+            pending.incrementAndGet();
+            queue.offer(call);
+        }
+        return call.future;
+    }
+
+    public void execute(Runnable runnable) {
+        submit(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + tickBudgetNanos;
+
+        // Always make progress by at least one item, then stop once the budget is used up
+        QueuedCall<?> call;
+        while ((call = queue.poll()) != null) {
+            pending.decrementAndGet();
+            call.run();
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+    }
+
+    private static final class QueuedCall<T> implements Runnable {
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private QueuedCall(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            // Callers that timed out cancel their future, no need to do the work anymore
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(callable.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -3,12 +3,13 @@ package fr.neocle.flexgateway.bukkit.server;
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.server.handlers.HandlerRegistry;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.common.http.HttpExecutor;
+import fr.neocle.flexgateway.common.http.LoadSheddingFilter;
 import com.sun.net.httpserver.HttpServer;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
 
 public class RestApiServer {
     private final JavaPlugin plugin;
@@ -16,6 +17,7 @@ public class RestApiServer {
     private final int port;
     private final HandlerRegistry handlerRegistry;
     private HttpServer server;
+    private HttpExecutor executor;
 
     public RestApiServer(JavaPlugin plugin, DataManager dataManager, ExtensionLoader extensionLoader, String host, int port) {
         this.plugin = plugin;
@@ -28,12 +30,19 @@ public class RestApiServer {
         server = HttpServer.create(new InetSocketAddress(host, port), 0);
 
         // Register all handlers
-        handlerRegistry.registerHandlers(server);
-
-        server.setExecutor(Executors.newFixedThreadPool(10));
+        handlerRegistry.registerHandlers(server, new LoadSheddingFilter());
+
+        executor = new HttpExecutor(
+                HttpExecutor.Mode.parse(plugin.getConfig().getString("api.executor", "virtual")),
+                "FlexGateway-HTTP",
+                plugin.getConfig().getInt("api.threads", 10),
+                plugin.getConfig().getInt("api.queue_capacity", 200),
+                plugin.getConfig().getInt("api.max_concurrent_requests", 500));
+        server.setExecutor(executor);
         server.start();
 
         plugin.getLogger().info("RestApiServer started with enhanced extension support");
+        plugin.getLogger().info("HTTP requests run on " + executor.getMode() + " threads");
         logAvailableEndpoints();
     }
 
@@ -41,6 +50,9 @@ public class RestApiServer {
         if (server != null) {
             server.stop(0);
         }
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     private void logAvailableEndpoints() {
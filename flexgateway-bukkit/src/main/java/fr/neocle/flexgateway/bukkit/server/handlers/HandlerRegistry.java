@@ -5,6 +5,8 @@ import fr.neocle.flexgateway.bukkit.server.handlers.base.*;
 import fr.neocle.flexgateway.bukkit.server.handlers.extension.DynamicExtensionHandler;
 import fr.neocle.flexgateway.bukkit.server.handlers.extension.ExtensionsHandler;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -19,21 +21,29 @@ public class HandlerRegistry {
         this.extensionLoader = extensionLoader;
     }
 
-    public void registerHandlers(HttpServer server) {
+    /**
+     * Register every endpoint, each context runs the given filter before its handler.
+     */
+    public void registerHandlers(HttpServer server, Filter filter) {
         // Base plugin endpoints
-        server.createContext("/api/server", new ServerHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/players", new PlayersHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/player/", new PlayerHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/worlds", new WorldsHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/world/", new WorldHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/messages", new MessagesHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/send-message", new SendMessageHandler(plugin, dataManager, extensionLoader));
-        server.createContext("/api/status", new StatusHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/server", new ServerHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/players", new PlayersHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/player/", new PlayerHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/worlds", new WorldsHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/world/", new WorldHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/messages", new MessagesHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/messages/search", new MessageSearchHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/send-message", new SendMessageHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/status", new StatusHandler(plugin, dataManager, extensionLoader));
 
         // Extension management
-        server.createContext("/api/extensions", new ExtensionsHandler(plugin, dataManager, extensionLoader));
+        register(server, filter, "/api/extensions", new ExtensionsHandler(plugin, dataManager, extensionLoader));
 
         // Dynamic extension endpoints
-        server.createContext("/api/", new DynamicExtensionHandler(plugin, extensionLoader));
+        register(server, filter, "/api/", new DynamicExtensionHandler(plugin, extensionLoader));
     }
-}
\ No newline at end of file
+
+    private void register(HttpServer server, Filter filter, String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(filter);
+    }
+}
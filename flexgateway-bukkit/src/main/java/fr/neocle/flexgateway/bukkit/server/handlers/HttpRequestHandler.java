@@ -1,9 +1,11 @@
 package fr.neocle.flexgateway.bukkit.server.handlers;
 
+import fr.neocle.flexgateway.FlexGatewayBukkit;
+import fr.neocle.flexgateway.bukkit.scheduler.MainThreadWorkQueue;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.IOException;
@@ -18,25 +20,40 @@ import java.util.concurrent.TimeUnit;
 
 public abstract class HttpRequestHandler implements HttpHandler {
     protected final JavaPlugin plugin;
+    protected final int gzipMinBytes;
 
     public HttpRequestHandler(JavaPlugin plugin) {
         this.plugin = plugin;
+        this.gzipMinBytes = plugin.getConfig().getInt("api.gzip_min_bytes", 1024);
     }
 
     protected void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
+        addJsonHeaders(exchange);
 
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
-
         try (OutputStream os = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(statusCode, responseBytes.length);
             os.write(responseBytes);
+        } finally {
+            exchange.close();
         }
     }
 
+    /**
+     * Send a response encoded ahead of time, answering 304 when the client already has it.
+     */
+    protected void sendEncoded(HttpExchange exchange, EncodedResponse response) throws IOException {
+        addJsonHeaders(exchange);
+        response.send(exchange);
+    }
+
+    private void addJsonHeaders(HttpExchange exchange) {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
+    }
+
     protected void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
         JsonObject error = new JsonObject();
         error.addProperty("error", message);
@@ -45,21 +62,20 @@ public abstract class HttpRequestHandler implements HttpHandler {
     }
 
     protected void executeOnMainThread(HttpExchange exchange, MainThreadTask task) {
-        CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        CompletableFuture<JsonObject> future = getMainThreadQueue().submit(task::execute);
+        sendWhenReady(exchange, future.thenApply(this::encode));
+        // No-op once completed, otherwise the queued work is skipped since nobody waits for it
+        future.cancel(false);
+    }
 
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            try {
-                JsonObject result = task.execute();
-                future.complete(result);
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error executing main thread task: " + e.getMessage());
-                future.completeExceptionally(e);
-            }
-        });
+    protected EncodedResponse encode(JsonObject response) {
+        return EncodedResponse.of(200, response.toString(), gzipMinBytes);
+    }
 
+    protected void sendWhenReady(HttpExchange exchange, CompletableFuture<EncodedResponse> body) {
         try {
-            JsonObject result = future.get(30, TimeUnit.SECONDS);
-            sendResponse(exchange, 200, result.toString());
+            EncodedResponse response = body.get(30, TimeUnit.SECONDS);
+            sendEncoded(exchange, response);
         } catch (Exception e) {
             try {
                 plugin.getLogger().warning("Main thread task failed: " + e.getMessage());
@@ -70,6 +86,10 @@ public abstract class HttpRequestHandler implements HttpHandler {
         }
     }
 
+    protected MainThreadWorkQueue getMainThreadQueue() {
+        return ((FlexGatewayBukkit) plugin).getMainThreadQueue();
+    }
+
     protected Map<String, String> parseQueryParameters(String query) {
         Map<String, String> params = new HashMap<>();
         if (query != null && !query.isEmpty()) {
@@ -99,7 +119,7 @@ public abstract class HttpRequestHandler implements HttpHandler {
     protected void handleCorsPreflightRequest(HttpExchange exchange) throws IOException {
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
         exchange.sendResponseHeaders(200, -1);
     }
 
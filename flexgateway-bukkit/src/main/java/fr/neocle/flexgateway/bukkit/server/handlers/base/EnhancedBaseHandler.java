@@ -1,17 +1,82 @@
 package fr.neocle.flexgateway.bukkit.server.handlers.base;
 
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
 import fr.neocle.flexgateway.bukkit.server.handlers.HttpRequestHandler;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+import fr.neocle.flexgateway.common.util.SingleFlight;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
 public abstract class EnhancedBaseHandler extends HttpRequestHandler {
     protected final DataManager dataManager;
     protected final ExtensionLoader extensionLoader;
+    private final SingleFlight<String, EncodedResponse> inFlight = new SingleFlight<>();
 
     public EnhancedBaseHandler(JavaPlugin plugin, DataManager dataManager, ExtensionLoader extensionLoader) {
         super(plugin);
         this.dataManager = dataManager;
         this.extensionLoader = extensionLoader;
     }
-}
\ No newline at end of file
+
+    protected void respondFromSnapshot(HttpExchange exchange, ServerStateSnapshot snapshot, String baseEndpoint,
+                                       JsonObject data, String identifier, Map<String, String> params) throws IOException {
+        exchange.getResponseHeaders().add("X-Snapshot-Version", String.valueOf(snapshot.getVersion()));
+        exchange.getResponseHeaders().add("X-Snapshot-Age", String.valueOf(snapshot.getAgeMillis()));
+        respondEnhanced(exchange, baseEndpoint, data, identifier, params);
+    }
+
+    /**
+     * Send data that was collected off the main thread, only hopping to the main thread
+     * when extensions registered enhancers for this endpoint.
+     */
+    protected void respondEnhanced(HttpExchange exchange, String baseEndpoint, JsonObject data,
+                                   String identifier, Map<String, String> params) throws IOException {
+        if (!extensionLoader.hasEnhancers(baseEndpoint)) {
+            sendEncoded(exchange, encode(data));
+            return;
+        }
+
+        sendCoalesced(exchange, baseEndpoint, identifier, params,
+                () -> extensionLoader.enhanceBaseEndpointAsync(baseEndpoint, data, identifier, params));
+    }
+
+    /**
+     * Collect the base data with a main thread task then enhance it, sharing the encoded result
+     * with every identical request (same endpoint, identifier and query parameters) that
+     * arrives while it is in flight. Errors returned by the task are not enhanced.
+     */
+    protected void executeCoalesced(HttpExchange exchange, String baseEndpoint, String identifier,
+                                    Map<String, String> params, MainThreadTask task) {
+        AtomicReference<CompletableFuture<JsonObject>> submitted = new AtomicReference<>();
+        sendCoalesced(exchange, baseEndpoint, identifier, params, () -> {
+            CompletableFuture<JsonObject> future = getMainThreadQueue().submit(task::execute);
+            submitted.set(future);
+            return future.thenCompose(data -> data.has("error")
+                    ? CompletableFuture.completedFuture(data)
+                    : extensionLoader.enhanceBaseEndpointAsync(baseEndpoint, data, identifier, params));
+        });
+        // Only set when this request led the flight, it waited the longest so requests that
+        // joined later get their error now instead of the queued task running for nobody
+        CompletableFuture<JsonObject> future = submitted.get();
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void sendCoalesced(HttpExchange exchange, String baseEndpoint, String identifier,
+                               Map<String, String> params, Supplier<CompletableFuture<JsonObject>> response) {
+        String key = baseEndpoint + "/" + (identifier != null ? identifier : "") + "?" + new TreeMap<>(params);
+        CompletableFuture<EncodedResponse> body = inFlight.execute(key, () -> response.get().thenApply(this::encode));
+        sendWhenReady(exchange, body);
+    }
+}
@@ -0,0 +1,68 @@
+package fr.neocle.flexgateway.bukkit.server.handlers.base;
+
+import fr.neocle.flexgateway.api.loader.ExtensionLoader;
+import fr.neocle.flexgateway.bukkit.data.DataManager;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class MessageSearchHandler extends EnhancedBaseHandler {
+    public MessageSearchHandler(JavaPlugin plugin, DataManager dataManager, ExtensionLoader extensionLoader) {
+        super(plugin, dataManager, extensionLoader);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        if (!dataManager.isSearchAvailable()) {
+            sendError(exchange, 503, "Message search is not available");
+            return;
+        }
+
+        Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
+
+        String text = params.get("q");
+        if (text == null || text.replace("*", "").trim().isEmpty()) {
+            sendError(exchange, 400, "Search query (q) is required");
+            return;
+        }
+
+        int limit = 50;
+        Long since = null;
+        Long until = null;
+
+        try {
+            if (params.containsKey("limit")) {
+                limit = Math.min(Math.max(Integer.parseInt(params.get("limit")), 1), 500);
+            }
+            if (params.containsKey("since")) {
+                since = Long.parseLong(params.get("since"));
+            }
+            if (params.containsKey("until")) {
+                until = Long.parseLong(params.get("until"));
+            }
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid numeric parameter");
+            return;
+        }
+
+        JsonObject response;
+        try {
+            response = dataManager.searchMessages(text, limit, params.get("cursor"),
+                    params.get("player"), params.get("type"), since, until);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, "Invalid cursor");
+            return;
+        }
+
+        // Enhance with extensions
+        respondEnhanced(exchange, "messages/search", response, null, params);
+    }
+}
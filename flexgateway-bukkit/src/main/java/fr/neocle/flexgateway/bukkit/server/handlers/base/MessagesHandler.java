@@ -24,9 +24,13 @@ public class MessagesHandler extends EnhancedBaseHandler {
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
         int limit = 50;
-        int offset = 0;
+        Integer offset = null;
+        Long beforeId = null;
+        Long afterId = null;
         String playerUuid = null;
         String messageType = null;
+        Long since = null;
+        Long until = null;
 
         try {
             if (params.containsKey("limit")) {
@@ -35,6 +39,18 @@ public class MessagesHandler extends EnhancedBaseHandler {
             if (params.containsKey("offset")) {
                 offset = Math.max(Integer.parseInt(params.get("offset")), 0);
             }
+            if (params.containsKey("before")) {
+                beforeId = Long.parseLong(params.get("before"));
+            }
+            if (params.containsKey("after")) {
+                afterId = Long.parseLong(params.get("after"));
+            }
+            if (params.containsKey("since")) {
+                since = Long.parseLong(params.get("since"));
+            }
+            if (params.containsKey("until")) {
+                until = Long.parseLong(params.get("until"));
+            }
             if (params.containsKey("player")) {
                 playerUuid = params.get("player");
             }
@@ -46,24 +62,10 @@ public class MessagesHandler extends EnhancedBaseHandler {
             return;
         }
 
-        final int finalLimit = limit;
-        final int finalOffset = offset;
-        final String finalPlayerUuid = playerUuid;
-        final String finalMessageType = messageType;
-
-        executeOnMainThread(exchange, () -> {
-            JsonObject response = new JsonObject();
-            response.add("messages", dataManager.getMessages(finalLimit, finalOffset, finalPlayerUuid, finalMessageType));
-            response.addProperty("limit", finalLimit);
-            response.addProperty("offset", finalOffset);
-            if (finalPlayerUuid != null) {
-                response.addProperty("player", finalPlayerUuid);
-            }
-            if (finalMessageType != null) {
-                response.addProperty("type", finalMessageType);
-            }
-            // Enhance with extensions
-            return extensionLoader.enhanceBaseEndpoint("messages", response, null, params);
-        });
+        // Messages only come from the database, so there is no need to wait for the main thread
+        JsonObject response = dataManager.getMessagePage(limit, offset, beforeId, afterId, playerUuid, messageType,
+                since, until);
+        // Enhance with extensions
+        respondEnhanced(exchange, "messages", response, null, params);
     }
 }
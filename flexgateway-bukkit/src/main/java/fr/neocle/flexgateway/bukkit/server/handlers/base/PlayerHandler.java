@@ -31,7 +31,7 @@ public class PlayerHandler extends EnhancedBaseHandler {
 
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
-        executeOnMainThread(exchange, () -> {
+        executeCoalesced(exchange, "player", identifier, params, () -> {
             JsonObject playerInfo = dataManager.getPlayerInfo(identifier);
             if (playerInfo == null) {
                 JsonObject error = new JsonObject();
@@ -39,8 +39,7 @@ public class PlayerHandler extends EnhancedBaseHandler {
                 error.addProperty("status", 404);
                 return error;
             }
-            // Enhance with extensions
-            return extensionLoader.enhanceBaseEndpoint("player", playerInfo, identifier, params);
+            return playerInfo;
         });
     }
 }
\ No newline at end of file
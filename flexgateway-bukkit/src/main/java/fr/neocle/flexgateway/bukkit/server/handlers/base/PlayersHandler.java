@@ -2,6 +2,7 @@ package fr.neocle.flexgateway.bukkit.server.handlers.base;
 
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -24,11 +25,20 @@ public class PlayersHandler extends EnhancedBaseHandler {
 
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
-        executeOnMainThread(exchange, () -> {
+        ServerStateSnapshot snapshot = dataManager.getSnapshot("players");
+        if (snapshot != null) {
+            JsonObject response = new JsonObject();
+            response.add("players", snapshot.getOnlinePlayers());
+            response.addProperty("count", snapshot.getOnlinePlayers().size());
+            respondFromSnapshot(exchange, snapshot, "players", response, null, params);
+            return;
+        }
+
+        executeCoalesced(exchange, "players", null, params, () -> {
             JsonObject response = new JsonObject();
             response.add("players", dataManager.getOnlinePlayers());
             response.addProperty("count", dataManager.getOnlinePlayers().size());
-            return extensionLoader.enhanceBaseEndpoint("players", response, null, params);
+            return response;
         });
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package fr.neocle.flexgateway.bukkit.server.handlers.base;
 
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -24,9 +25,15 @@ public class ServerHandler extends EnhancedBaseHandler {
 
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
-        executeOnMainThread(exchange, () -> {
+        ServerStateSnapshot snapshot = dataManager.getSnapshot("server");
+        if (snapshot != null) {
+            respondFromSnapshot(exchange, snapshot, "server", snapshot.getServerInfo(), null, params);
+            return;
+        }
+
+        executeCoalesced(exchange, "server", null, params, () -> {
             JsonObject serverInfo = dataManager.getServerInfo();
-            return extensionLoader.enhanceBaseEndpoint("server", serverInfo, null, params);
+            return serverInfo;
         });
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package fr.neocle.flexgateway.bukkit.server.handlers.base;
 
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -23,7 +24,26 @@ public class StatusHandler extends EnhancedBaseHandler {
 
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
-        executeOnMainThread(exchange, () -> {
+        ServerStateSnapshot snapshot = dataManager.getSnapshot("status");
+        if (snapshot != null) {
+            JsonObject serverInfo = snapshot.getServerInfo();
+            JsonObject status = new JsonObject();
+            status.addProperty("status", "online");
+            status.addProperty("timestamp", System.currentTimeMillis());
+            status.addProperty("api_version", "1.0.0");
+            status.add("server_name", serverInfo.get("name"));
+            status.add("online_players", serverInfo.get("onlinePlayers"));
+            status.add("max_players", serverInfo.get("maxPlayers"));
+            status.addProperty("extensions_loaded", extensionLoader.getExtensions().size());
+            JsonObject writerStats = dataManager.getMessageWriterStats();
+            if (writerStats != null) {
+                status.add("message_writer", writerStats);
+            }
+            respondFromSnapshot(exchange, snapshot, "status", status, null, params);
+            return;
+        }
+
+        executeCoalesced(exchange, "status", null, params, () -> {
             JsonObject status = new JsonObject();
             status.addProperty("status", "online");
             status.addProperty("timestamp", System.currentTimeMillis());
@@ -32,8 +52,11 @@ public class StatusHandler extends EnhancedBaseHandler {
             status.addProperty("online_players", plugin.getServer().getOnlinePlayers().size());
             status.addProperty("max_players", plugin.getServer().getMaxPlayers());
             status.addProperty("extensions_loaded", extensionLoader.getExtensions().size());
-            // Enhance with extensions
-            return extensionLoader.enhanceBaseEndpoint("status", status, null, params);
+            JsonObject writerStats = dataManager.getMessageWriterStats();
+            if (writerStats != null) {
+                status.add("message_writer", writerStats);
+            }
+            return status;
         });
     }
 }
\ No newline at end of file
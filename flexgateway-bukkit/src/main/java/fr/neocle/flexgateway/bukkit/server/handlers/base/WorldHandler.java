@@ -2,6 +2,7 @@ package fr.neocle.flexgateway.bukkit.server.handlers.base;
 
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -31,7 +32,14 @@ public class WorldHandler extends EnhancedBaseHandler {
 
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
-        executeOnMainThread(exchange, () -> {
+        // Worlds missing from the snapshot may have been loaded since, so look them up live
+        ServerStateSnapshot snapshot = dataManager.getSnapshot("world");
+        if (snapshot != null && snapshot.getWorldInfo(worldName) != null) {
+            respondFromSnapshot(exchange, snapshot, "world", snapshot.getWorldInfo(worldName), worldName, params);
+            return;
+        }
+
+        executeCoalesced(exchange, "world", worldName, params, () -> {
             JsonObject worldInfo = dataManager.getWorldInfo(worldName);
             if (worldInfo == null) {
                 JsonObject error = new JsonObject();
@@ -39,8 +47,7 @@ public class WorldHandler extends EnhancedBaseHandler {
                 error.addProperty("status", 404);
                 return error;
             }
-            // Enhance with extensions
-            return extensionLoader.enhanceBaseEndpoint("world", worldInfo, worldName, params);
+            return worldInfo;
         });
     }
 }
@@ -2,6 +2,7 @@ package fr.neocle.flexgateway.bukkit.server.handlers.base;
 
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.bukkit.data.DataManager;
+import fr.neocle.flexgateway.bukkit.data.snapshot.ServerStateSnapshot;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -23,12 +24,20 @@ public class WorldsHandler extends EnhancedBaseHandler {
 
         Map<String, String> params = parseQueryParameters(exchange.getRequestURI().getQuery());
 
-        executeOnMainThread(exchange, () -> {
+        ServerStateSnapshot snapshot = dataManager.getSnapshot("worlds");
+        if (snapshot != null) {
+            JsonObject response = new JsonObject();
+            response.add("worlds", snapshot.getWorlds());
+            response.addProperty("count", snapshot.getWorlds().size());
+            respondFromSnapshot(exchange, snapshot, "worlds", response, null, params);
+            return;
+        }
+
+        executeCoalesced(exchange, "worlds", null, params, () -> {
             JsonObject response = new JsonObject();
             response.add("worlds", dataManager.getWorlds());
             response.addProperty("count", dataManager.getWorlds().size());
-            // Enhance with extensions
-            return extensionLoader.enhanceBaseEndpoint("worlds", response, null, params);
+            return response;
         });
     }
 }
\ No newline at end of file
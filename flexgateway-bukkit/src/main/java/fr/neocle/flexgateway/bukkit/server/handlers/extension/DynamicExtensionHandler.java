@@ -4,7 +4,6 @@ import fr.neocle.flexgateway.api.handler.ActionHandler;
 import fr.neocle.flexgateway.api.loader.ExtensionLoader;
 import fr.neocle.flexgateway.api.provider.DataProvider;
 import fr.neocle.flexgateway.bukkit.server.handlers.HttpRequestHandler;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
@@ -12,6 +11,10 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 public class DynamicExtensionHandler extends HttpRequestHandler {
     private final ExtensionLoader extensionLoader;
@@ -81,23 +84,19 @@ public class DynamicExtensionHandler extends HttpRequestHandler {
             return;
         }
 
-        executeOnMainThread(exchange, () -> {
-            try {
-                JsonElement data = provider.getData(params);
-                JsonObject response = new JsonObject();
-                response.add("data", data);
-                response.addProperty("extension", endpoint.extensionName);
-                response.addProperty("endpoint", endpoint.endpointName);
-                response.addProperty("timestamp", System.currentTimeMillis());
-                return response;
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error in data provider " + endpoint.extensionName + "/" + endpoint.endpointName + ": " + e.getMessage());
-                JsonObject error = new JsonObject();
-                error.addProperty("error", "Extension error: " + e.getMessage());
-                error.addProperty("status", 500);
-                return error;
+        // The loader only hops to the main thread for providers that need it
+        CompletableFuture<JsonObject> future = extensionLoader.fetchData(endpoint.extensionName, provider, params).handle((data, throwable) -> {
+            if (throwable != null) {
+                return extensionError("data provider", endpoint, throwable);
             }
+            JsonObject response = new JsonObject();
+            response.add("data", data);
+            response.addProperty("extension", endpoint.extensionName);
+            response.addProperty("endpoint", endpoint.endpointName);
+            response.addProperty("timestamp", System.currentTimeMillis());
+            return response;
         });
+        sendWhenReady(exchange, future.thenApply(this::encode));
     }
 
     private void handleActionHandler(HttpExchange exchange, ExtensionEndpoint endpoint, String method, Map<String, String> params) throws IOException {
@@ -114,36 +113,60 @@ public class DynamicExtensionHandler extends HttpRequestHandler {
             return;
         }
 
-        executeOnMainThread(exchange, () -> {
-            try {
-                JsonObject body = null;
-                if ("POST".equals(method) || "PUT".equals(method)) {
-                    String requestBody = readRequestBody(exchange);
-                    if (!requestBody.isEmpty()) {
-                        JsonParser parser = new JsonParser();
-                        body = parser.parse(requestBody).getAsJsonObject();
-                    }
-                }
-
-                JsonObject result = handler.handleAction(method, params, body);
-                if (result == null) {
-                    result = new JsonObject();
-                    result.addProperty("success", true);
+        // The body is read here, on the HTTP thread, whatever thread the handler runs on
+        JsonObject body = null;
+        try {
+            if ("POST".equals(method) || "PUT".equals(method)) {
+                String requestBody = readRequestBody(exchange);
+                if (!requestBody.isEmpty()) {
+                    JsonParser parser = new JsonParser();
+                    body = parser.parse(requestBody).getAsJsonObject();
                 }
+            }
+        } catch (Exception e) {
+            sendError(exchange, 400, "Invalid request body: " + e.getMessage());
+            return;
+        }
 
-                result.addProperty("extension", endpoint.extensionName);
-                result.addProperty("endpoint", endpoint.endpointName);
-                result.addProperty("method", method);
-
-                return result;
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error in action handler " + endpoint.extensionName + "/" + endpoint.endpointName + ": " + e.getMessage());
-                JsonObject error = new JsonObject();
-                error.addProperty("error", "Extension error: " + e.getMessage());
-                error.addProperty("status", 500);
-                return error;
+        CompletableFuture<JsonObject> future = extensionLoader.invokeAction(endpoint.extensionName, handler, method, params, body).handle((result, throwable) -> {
+            if (throwable != null) {
+                return extensionError("action handler", endpoint, throwable);
+            }
+            if (result == null) {
+                result = new JsonObject();
+                result.addProperty("success", true);
             }
+
+            result.addProperty("extension", endpoint.extensionName);
+            result.addProperty("endpoint", endpoint.endpointName);
+            result.addProperty("method", method);
+            return result;
         });
+        sendWhenReady(exchange, future.thenApply(this::encode));
+    }
+
+    private JsonObject extensionError(String kind, ExtensionEndpoint endpoint, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        JsonObject error = new JsonObject();
+        if (cause instanceof RejectedExecutionException) {
+            // Circuit breaker open, the extension is skipped for now
+            error.addProperty("error", "Extension unavailable: " + cause.getMessage());
+            error.addProperty("status", 503);
+            error.addProperty("extensionStatus", "skipped");
+            return error;
+        }
+        if (cause instanceof TimeoutException) {
+            plugin.getLogger().warning("Timed out in " + kind + " " + endpoint.extensionName + "/" + endpoint.endpointName);
+            error.addProperty("error", "Extension timed out");
+            error.addProperty("status", 504);
+            error.addProperty("extensionStatus", "timeout");
+            return error;
+        }
+        plugin.getLogger().warning("Error in " + kind + " " + endpoint.extensionName + "/" + endpoint.endpointName + ": " + cause.getMessage());
+        error.addProperty("error", "Extension error: " + cause.getMessage());
+        error.addProperty("status", 500);
+        error.addProperty("extensionStatus", "failed");
+        return error;
     }
 
     /**
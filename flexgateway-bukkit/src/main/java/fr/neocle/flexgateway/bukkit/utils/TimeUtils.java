@@ -3,8 +3,20 @@ package fr.neocle.flexgateway.bukkit.utils;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
 public class TimeUtils {
 
+    // Immutable, unlike SimpleDateFormat, so collectors and database reads can share it across threads
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    public static String formatDate(long millis) {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+
     public static String formatPlayTime(Player player) {
         long playTimeMs = (System.currentTimeMillis() - player.getFirstPlayed()) -
                 (System.currentTimeMillis() - player.getLastPlayed());
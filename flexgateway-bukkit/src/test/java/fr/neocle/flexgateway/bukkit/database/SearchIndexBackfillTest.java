@@ -0,0 +1,124 @@
+package fr.neocle.flexgateway.bukkit.database;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a real SQLite file in a temporary plugin folder.
+ */
+class SearchIndexBackfillTest {
+
+    @TempDir
+    Path dataFolder;
+
+    private DatabaseConnection connection;
+
+    @AfterEach
+    void closeDatabase() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private DatabaseConnection open() {
+        JavaPlugin plugin = mock(JavaPlugin.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+        when(plugin.getConfig()).thenReturn(new YamlConfiguration());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(SearchIndexBackfillTest.class.getName()));
+        return new DatabaseConnection(plugin);
+    }
+
+    // A database written by a version without full-text search
+    private void createLegacyDatabase(int messages) throws SQLException {
+        String url = "jdbc:sqlite:" + dataFolder.resolve("messages.db").toAbsolutePath();
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(new DatabaseSchema().getCreateMessagesTableSQL());
+            PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO messages (sender_uuid, sender_name, message) VALUES (?, ?, ?)");
+            for (int i = 0; i < messages; i++) {
+                insert.setString(1, "069a79f4-44e9-4726-a5be-fca90e38aaf5");
+                insert.setString(2, "Steve");
+                insert.setString(3, i % 2 == 0 ? "hello diamonds " + i : "goodbye " + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            insert.close();
+        }
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (PooledConnection reader = connection.borrowReader();
+             Statement stmt = reader.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    private void awaitSearch() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!connection.isSearchAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(connection.isSearchAvailable(), "search index not built in time");
+    }
+
+    @Test
+    void newDatabaseIsSearchableRightAway() throws SQLException {
+        connection = open();
+
+        assertTrue(connection.isSearchSupported());
+        assertTrue(connection.isSearchAvailable());
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM search_index_backfill"));
+    }
+
+    @Test
+    void existingMessagesAreIndexedInTheBackground() throws Exception {
+        createLegacyDatabase(12_001);
+        connection = open();
+        assertTrue(connection.isSearchSupported());
+
+        awaitSearch();
+        assertEquals(6_001, queryLong("SELECT COUNT(*) FROM messages_fts WHERE messages_fts MATCH 'diamonds'"));
+        assertEquals(12_001, queryLong("SELECT COUNT(*) FROM messages_fts"));
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM search_index_backfill"));
+    }
+
+    @Test
+    void indexingResumesAfterARestart() throws Exception {
+        createLegacyDatabase(100);
+        connection = open();
+        awaitSearch();
+        connection.close();
+
+        // Pretend the previous run stopped half way through
+        String url = "jdbc:sqlite:" + dataFolder.resolve("messages.db").toAbsolutePath();
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM messages_fts WHERE rowid > 50");
+            stmt.execute("INSERT INTO search_index_backfill (table_name, next_id, end_id) VALUES ('messages', 51, 100)");
+        }
+
+        connection = open();
+        awaitSearch();
+        assertEquals(100, queryLong("SELECT COUNT(*) FROM messages_fts"));
+        assertEquals(50, queryLong("SELECT COUNT(*) FROM messages_fts WHERE messages_fts MATCH 'hello'"));
+    }
+}
@@ -0,0 +1,245 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import fr.neocle.flexgateway.bukkit.database.DatabaseConnection;
+import fr.neocle.flexgateway.bukkit.database.DatabaseSchema;
+import fr.neocle.flexgateway.bukkit.database.PooledConnection;
+import fr.neocle.flexgateway.bukkit.database.SqliteTimestamps;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a real SQLite file in a temporary plugin folder.
+ */
+class MessagePartitionsTest {
+
+    private static final String STEVE = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+    private static final String ALEX = "ec561538-f3fd-461d-aff5-086b22154bce";
+    private static final YearMonth OLD_MONTH = YearMonth.of(2020, 1);
+    private static final String OLD_TABLE = "messages_202001";
+
+    @TempDir
+    Path dataFolder;
+
+    private YamlConfiguration config;
+    private DatabaseConnection connection;
+    private MessageCounters counters;
+    private MessagePartitions partitions;
+
+    @BeforeEach
+    void openDatabase() {
+        config = new YamlConfiguration();
+        config.set("database.partitions.retention_months", 1);
+        config.set("database.partitions.retention_mode", "delete");
+        connection = open(config);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        connection.close();
+    }
+
+    private DatabaseConnection open(YamlConfiguration config) {
+        JavaPlugin plugin = mock(JavaPlugin.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger(MessagePartitionsTest.class.getName()));
+
+        DatabaseConnection opened = new DatabaseConnection(plugin);
+        assertTrue(opened.isConnected());
+        loadPartitions(opened);
+        return opened;
+    }
+
+    private void loadPartitions(DatabaseConnection opened) {
+        counters = new MessageCounters(opened, 100);
+        counters.initialize();
+        partitions = new MessagePartitions(opened, counters);
+        partitions.initialize();
+    }
+
+    private static MessageInsertCommand whisper(String sender, String recipient, String message) {
+        return new MessageInsertCommand(sender, sender.equals(STEVE) ? "Steve" : "Alex", recipient,
+                recipient == null ? null : recipient.equals(STEVE) ? "Steve" : "Alex",
+                message, recipient == null ? "CHAT" : "PRIVATE", "world", 0.0, 64.0, 0.0);
+    }
+
+    // What MessageWriteQueue does for a batch
+    private void write(MessagePartitions.Partition partition, List<MessageInsertCommand> batch) throws SQLException {
+        try (PooledConnection writer = connection.borrowWriter()) {
+            Connection conn = writer.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                partitions.insert(writer, partition, batch);
+                counters.commit(conn, counters.recordBatch(writer, batch));
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private MessagePartitions.Partition currentPartition() throws SQLException {
+        try (PooledConnection writer = connection.borrowWriter()) {
+            return partitions.currentPartition(writer);
+        }
+    }
+
+    // Register a monthly partition long past the retention window, then reload the list
+    private MessagePartitions.Partition oldPartition() throws SQLException {
+        long start = OLD_MONTH.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long end = OLD_MONTH.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        DatabaseSchema schema = new DatabaseSchema();
+        try (PooledConnection writer = connection.borrowWriter();
+             Statement stmt = writer.getConnection().createStatement()) {
+            stmt.execute(schema.getCreateMessagesTableSQL(OLD_TABLE));
+            schema.createIndexes(stmt, OLD_TABLE);
+            stmt.execute("INSERT INTO message_partitions (table_name, start_millis, end_millis) VALUES ('"
+                    + OLD_TABLE + "', " + start + ", " + end + ")");
+        }
+        loadPartitions(connection);
+        return new MessagePartitions.Partition(OLD_TABLE, start, end);
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (PooledConnection reader = connection.borrowReader();
+             Statement stmt = reader.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        return queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'") > 0;
+    }
+
+    @Test
+    void writesGoToTheMonthlyPartitionWithIncreasingIds() throws SQLException {
+        MessagePartitions.Partition partition = currentPartition();
+        assertEquals("messages_" + YearMonth.now(ZoneOffset.UTC).toString().replace("-", ""), partition.table());
+
+        write(partition, List.of(whisper(STEVE, null, "hello"), whisper(ALEX, STEVE, "hi")));
+        write(partition, List.of(whisper(STEVE, ALEX, "how are you")));
+
+        assertEquals(3, queryLong("SELECT COUNT(*) FROM " + partition.table()));
+        assertEquals(3, queryLong("SELECT MAX(id) FROM " + partition.table()));
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM messages"));
+
+        List<MessagePartitions.Partition> newestFirst = partitions.newestFirst(null, null);
+        assertEquals(partition, newestFirst.get(0));
+        assertEquals(MessagePartitions.LEGACY_TABLE, newestFirst.get(1).table());
+    }
+
+    @Test
+    void idsKeepGrowingAfterARestart() throws SQLException {
+        MessagePartitions.Partition partition = currentPartition();
+        write(partition, List.of(whisper(STEVE, null, "one"), whisper(STEVE, null, "two")));
+
+        loadPartitions(connection);
+        write(currentPartition(), List.of(whisper(STEVE, null, "three")));
+
+        assertEquals(3, queryLong("SELECT MAX(id) FROM " + partition.table()));
+    }
+
+    @Test
+    void messageKeepsTheTimeItWasSent() throws SQLException, InterruptedException {
+        MessageInsertCommand command = whisper(STEVE, null, "hello");
+        Thread.sleep(1_100);
+        MessagePartitions.Partition partition = currentPartition();
+        write(partition, List.of(command));
+
+        try (PooledConnection reader = connection.borrowReader();
+             Statement stmt = reader.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT timestamp FROM " + partition.table())) {
+            assertTrue(rs.next());
+            assertEquals(SqliteTimestamps.format(command.getSentAtMillis()), rs.getString(1));
+        }
+    }
+
+    @Test
+    void sentTimeIsClampedToThePartition() throws SQLException {
+        MessagePartitions.Partition old = oldPartition();
+        write(old, List.of(whisper(STEVE, null, "late")));
+
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM " + OLD_TABLE
+                + " WHERE timestamp = '" + SqliteTimestamps.format(old.endMillis() - 1) + "'"));
+    }
+
+    @Test
+    void countersFollowInsertedMessages() throws SQLException {
+        write(currentPartition(), List.of(whisper(STEVE, null, "hello"), whisper(ALEX, STEVE, "hi"),
+                whisper(STEVE, STEVE, "note to self")));
+
+        assertEquals(3, counters.getTotalMessages());
+        assertEquals(new MessageCounters.PlayerCounts(2, 3), counters.getPlayerCounts(STEVE));
+        assertEquals(new MessageCounters.PlayerCounts(1, 1), counters.getPlayerCounts(ALEX));
+        assertEquals(3, queryLong("SELECT total_count FROM message_stats WHERE id = 1"));
+    }
+
+    @Test
+    void retentionDropsOldPartitionsAndTheirCounts() throws SQLException {
+        MessagePartitions.Partition old = oldPartition();
+        write(old, List.of(whisper(STEVE, ALEX, "old"), whisper(ALEX, null, "old too")));
+        MessagePartitions.Partition current = currentPartition();
+        write(current, List.of(whisper(STEVE, null, "new")));
+        // Cache both players before the drop, the cached values have to follow it
+        assertEquals(new MessageCounters.PlayerCounts(2, 2), counters.getPlayerCounts(STEVE));
+        assertEquals(new MessageCounters.PlayerCounts(1, 2), counters.getPlayerCounts(ALEX));
+
+        partitions.applyRetention();
+
+        assertFalse(tableExists(OLD_TABLE));
+        assertTrue(tableExists(current.table()));
+        assertTrue(tableExists(MessagePartitions.LEGACY_TABLE));
+        assertFalse(partitions.oldestFirst(null, null).contains(old));
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM message_partitions WHERE table_name = '" + OLD_TABLE + "'"));
+
+        assertEquals(1, counters.getTotalMessages());
+        assertEquals(new MessageCounters.PlayerCounts(1, 1), counters.getPlayerCounts(STEVE));
+        assertEquals(new MessageCounters.PlayerCounts(0, 0), counters.getPlayerCounts(ALEX));
+        assertEquals(1, queryLong("SELECT total_count FROM message_stats WHERE id = 1"));
+        assertEquals(1, queryLong("SELECT total_count FROM player_message_stats WHERE player_uuid = '" + STEVE + "'"));
+        assertEquals(0, queryLong("SELECT total_count FROM player_message_stats WHERE player_uuid = '" + ALEX + "'"));
+    }
+
+    @Test
+    void archiveModeCopiesThePartitionBeforeDroppingIt() throws SQLException {
+        connection.close();
+        config.set("database.partitions.retention_mode", "archive");
+        connection = open(config);
+
+        write(oldPartition(), List.of(whisper(STEVE, null, "keep me")));
+        partitions.applyRetention();
+
+        assertFalse(tableExists(OLD_TABLE));
+        File archive = dataFolder.resolve("archive").resolve(OLD_TABLE + ".db").toFile();
+        assertTrue(archive.isFile());
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + archive.getAbsolutePath());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT message FROM " + OLD_TABLE)) {
+            assertTrue(rs.next());
+            assertEquals("keep me", rs.getString(1));
+            assertFalse(rs.next());
+        }
+    }
+}
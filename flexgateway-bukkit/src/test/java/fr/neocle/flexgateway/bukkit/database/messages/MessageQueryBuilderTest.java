@@ -0,0 +1,91 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageQueryBuilderTest {
+
+    private static final String UUID = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+
+    @Test
+    void offsetPagesOrderByTimestampThenId() throws SQLException {
+        MessageQueryBuilder query = new MessageQueryBuilder().withPagination(50, 100);
+
+        assertEquals("SELECT * FROM messages WHERE 1=1 ORDER BY timestamp DESC, id DESC LIMIT ? OFFSET ?",
+                query.build());
+        assertEquals(List.of(50, 100), StatementParameters.of(query::setParameters));
+    }
+
+    @Test
+    void offsetPagesOverSeveralPartitions() throws SQLException {
+        MessageQueryBuilder query = new MessageQueryBuilder()
+                .fromTables(List.of("messages_2024_06", "messages_2024_05"))
+                .withMessageTypeFilter("chat")
+                .withPagination(10, 0);
+
+        assertEquals("SELECT * FROM (SELECT * FROM messages_2024_06 WHERE 1=1 AND message_type = ?"
+                        + " UNION ALL SELECT * FROM messages_2024_05 WHERE 1=1 AND message_type = ?)"
+                        + " ORDER BY timestamp DESC, id DESC LIMIT ? OFFSET ?",
+                query.build());
+        assertEquals(List.of("chat", "chat", 10, 0), StatementParameters.of(query::setParameters));
+    }
+
+    @Test
+    void keysetPageBeforeAnId() throws SQLException {
+        MessageQueryBuilder query = new MessageQueryBuilder().withCursor(20, 500L, null);
+
+        assertEquals("SELECT * FROM messages WHERE 1=1 AND id < ? ORDER BY id DESC LIMIT ?", query.build());
+        assertEquals(List.of(500L, 20), StatementParameters.of(query::setParameters));
+        assertFalse(query.isAscending());
+    }
+
+    @Test
+    void keysetPageAfterAnIdIsAscending() throws SQLException {
+        MessageQueryBuilder query = new MessageQueryBuilder().withCursor(20, null, 500L);
+
+        assertEquals("SELECT * FROM messages WHERE 1=1 AND id > ? ORDER BY id ASC LIMIT ?", query.build());
+        assertEquals(List.of(500L, 20), StatementParameters.of(query::setParameters));
+        assertTrue(query.isAscending());
+    }
+
+    @Test
+    void keysetPageBetweenTwoIdsIsDescending() {
+        MessageQueryBuilder query = new MessageQueryBuilder().withCursor(20, 900L, 500L);
+
+        assertEquals("SELECT * FROM messages WHERE 1=1 AND id < ? AND id > ? ORDER BY id DESC LIMIT ?", query.build());
+        assertFalse(query.isAscending());
+    }
+
+    @Test
+    void keysetPlayerFilterMergesSenderAndRecipientScans() throws SQLException {
+        MessageQueryBuilder query = new MessageQueryBuilder()
+                .withPlayerFilter(UUID)
+                .withTimeRange(0L, 86_400_000L)
+                .withCursor(20, null, null);
+
+        assertEquals("SELECT * FROM (SELECT * FROM messages WHERE 1=1 AND sender_uuid = ?"
+                        + " AND timestamp >= ? AND timestamp < ? ORDER BY id DESC LIMIT ?)"
+                        + " UNION SELECT * FROM (SELECT * FROM messages WHERE 1=1 AND recipient_uuid = ?"
+                        + " AND timestamp >= ? AND timestamp < ? ORDER BY id DESC LIMIT ?)"
+                        + " ORDER BY id DESC LIMIT ?",
+                query.build());
+        assertEquals(List.of(UUID, "1970-01-01 00:00:00", "1970-01-02 00:00:00", 20,
+                        UUID, "1970-01-01 00:00:00", "1970-01-02 00:00:00", 20, 20),
+                StatementParameters.of(query::setParameters));
+    }
+
+    @Test
+    void buildingTwiceDoesNotRepeatParameters() throws SQLException {
+        MessageQueryBuilder query = new MessageQueryBuilder().withCursor(20, 500L, null);
+        query.build();
+        query.build();
+
+        assertEquals(List.of(500L, 20), StatementParameters.of(query::setParameters));
+    }
+}
@@ -0,0 +1,63 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageSearchQueryTest {
+
+    @Test
+    void everyWordIsQuoted() {
+        assertEquals("\"hello\" \"world\"", MessageSearchQuery.toMatchExpression("  hello   world "));
+    }
+
+    @Test
+    void queryKeywordsAreSearchedAsText() {
+        assertEquals("\"diamond\" \"OR\" \"NEAR(x\" \"-y)\"", MessageSearchQuery.toMatchExpression("diamond OR NEAR(x -y)"));
+    }
+
+    @Test
+    void quotesAreEscaped() {
+        assertEquals("\"say\"\"hi\"", MessageSearchQuery.toMatchExpression("say\"hi"));
+    }
+
+    @Test
+    void trailingStarIsAPrefixSearch() {
+        assertEquals("\"diam\"* \"sword\"", MessageSearchQuery.toMatchExpression("diam* sword"));
+    }
+
+    @Test
+    void loneStarsAreDropped() {
+        assertEquals("\"hello\"", MessageSearchQuery.toMatchExpression("* hello **"));
+    }
+
+    @Test
+    void pagesByIdWithinOnePartition() throws SQLException {
+        MessageSearchQuery query = new MessageSearchQuery()
+                .fromTable("messages_2024_06")
+                .withText("hello")
+                .withMessageTypeFilter("chat")
+                .withCursor(25, 1234L);
+
+        assertEquals("SELECT m.*, messages_2024_06_fts.rank AS score FROM messages_2024_06_fts"
+                        + " JOIN messages_2024_06 m ON m.id = messages_2024_06_fts.rowid"
+                        + " WHERE messages_2024_06_fts MATCH ? AND m.message_type = ? AND m.id < ?"
+                        + " ORDER BY m.id DESC LIMIT ?",
+                query.build());
+        assertEquals(List.of("\"hello\"", "chat", 1234L, 25), StatementParameters.of(query::setParameters));
+    }
+
+    @Test
+    void firstPageHasNoIdBound() throws SQLException {
+        MessageSearchQuery query = new MessageSearchQuery().withText("hello").withCursor(25, null);
+
+        assertEquals("SELECT m.*, messages_fts.rank AS score FROM messages_fts"
+                        + " JOIN messages m ON m.id = messages_fts.rowid"
+                        + " WHERE messages_fts MATCH ? ORDER BY m.id DESC LIMIT ?",
+                query.build());
+        assertEquals(List.of("\"hello\"", 25), StatementParameters.of(query::setParameters));
+    }
+}
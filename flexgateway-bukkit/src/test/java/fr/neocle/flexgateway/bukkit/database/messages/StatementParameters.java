@@ -0,0 +1,40 @@
+package fr.neocle.flexgateway.bukkit.database.messages;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records what the query builders bind, in parameter index order.
+ */
+final class StatementParameters {
+
+    @FunctionalInterface
+    interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private StatementParameters() {
+    }
+
+    static List<Object> of(Binder binder) throws SQLException {
+        List<Object> parameters = new ArrayList<>();
+        PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                StatementParameters.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("set") || args == null || args.length != 2) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    int index = (Integer) args[0];
+                    if (index != parameters.size() + 1) {
+                        throw new IllegalStateException("Parameter " + index + " bound out of order");
+                    }
+                    parameters.add(args[1]);
+                    return null;
+                });
+        binder.bind(stmt);
+        return parameters;
+    }
+}
@@ -0,0 +1,142 @@
+package fr.neocle.flexgateway.common.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response encoded once, so it can be cached and shared: the UTF-8 body, a gzipped copy
+ * when it is worth it and an ETag. Sending it is a single write, or a 304 when the client
+ * already has it. Instances are immutable.
+ */
+public final class EncodedResponse {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final int status;
+    private final byte[] body;
+    private final byte[] gzipped;
+    private final String etag;
+
+    private EncodedResponse(int status, byte[] body, byte[] gzipped, String etag) {
+        this.status = status;
+        this.body = body;
+        this.gzipped = gzipped;
+        this.etag = etag;
+    }
+
+    /**
+     * Encode a JSON body, also keeping a gzipped copy when it is at least gzipMinBytes long
+     * and compression actually helps. A threshold of 0 disables compression.
+     */
+    public static EncodedResponse of(int status, String json, int gzipMinBytes) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        byte[] gzipped = gzipMinBytes > 0 && body.length >= gzipMinBytes ? gzip(body) : null;
+        if (gzipped != null && gzipped.length >= body.length) {
+            gzipped = null;
+        }
+        return new EncodedResponse(status, body, gzipped, etag(body));
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * Get the bytes held in memory, for cache budgets.
+     */
+    public int getSize() {
+        return body.length + (gzipped != null ? gzipped.length : 0);
+    }
+
+    /**
+     * Send the response. Headers set by the caller (content type, CORS, metadata) are kept.
+     */
+    public void send(HttpExchange exchange) throws IOException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("ETag", etag);
+
+        String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        if (status == 200 && ifNoneMatch != null && matches(ifNoneMatch)) {
+            try {
+                exchange.sendResponseHeaders(304, -1);
+            } finally {
+                exchange.close();
+            }
+            return;
+        }
+
+        byte[] payload = body;
+        if (gzipped != null) {
+            responseHeaders.set("Vary", "Accept-Encoding");
+            String acceptEncoding = requestHeaders.getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+                responseHeaders.set("Content-Encoding", "gzip");
+                payload = gzipped;
+            }
+        }
+
+        // Closed even when the client is gone, an exchange left open keeps its request slot
+        try (OutputStream os = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, payload.length);
+            os.write(payload);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean matches(String ifNoneMatch) {
+        if ("*".equals(ifNoneMatch.trim())) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            // 128 bits are plenty to tell two versions of a response apart
+            char[] hex = new char[34];
+            hex[0] = '"';
+            for (int i = 0; i < 16; i++) {
+                hex[1 + i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[2 + i * 2] = HEX[digest[i] & 0xF];
+            }
+            hex[33] = '"';
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package fr.neocle.flexgateway.common.http;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor for the HTTP servers. Requests run either on a virtual thread each (when the JVM
+ * has them) or on a bounded platform pool. Past the configured limit (concurrent requests for
+ * virtual threads, queue depth for the pool) requests are not dropped but run on a shedding
+ * thread, where {@link LoadSheddingFilter} answers them with a 503 without calling the handler.
+ * In virtual mode a request counts until its exchange is closed, so handlers that finish
+ * asynchronously still hold their slot. When the shedding thread falls behind as well, new
+ * requests are closed right away on the dispatcher thread.
+ */
+public class HttpExecutor implements Executor {
+
+    public enum Mode {
+        VIRTUAL,
+        POOL;
+
+        public static Mode parse(String value) {
+            return "pool".equalsIgnoreCase(value) ? POOL : VIRTUAL;
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final int SHED_QUEUE_CAPACITY = 256;
+
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> DROPPING = new ThreadLocal<>();
+    private static final ThreadLocal<Slot> SLOT = new ThreadLocal<>();
+
+    private final Mode mode;
+    private final ExecutorService delegate;
+    private final ExecutorService shedder;
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong shed = new AtomicLong();
+
+    /**
+     * @param threads        pool size, only used in pool mode
+     * @param queueCapacity  requests waiting for a pool thread before shedding, pool mode
+     * @param maxConcurrent  requests running at once before shedding, virtual mode
+     */
+    public HttpExecutor(Mode mode, String name, int threads, int queueCapacity, int maxConcurrent) {
+        ExecutorService virtual = mode == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+        this.mode = virtual != null ? Mode.VIRTUAL : Mode.POOL;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+
+        if (virtual != null) {
+            this.delegate = virtual;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            this.delegate = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    runnable -> daemon(runnable, name + "-" + count.incrementAndGet()));
+        }
+        this.shedder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(SHED_QUEUE_CAPACITY), runnable -> daemon(runnable, name + "-Shedder"));
+    }
+
+    /** Get the mode actually in use, pool when virtual threads were asked for but are missing. */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Whether the current request is being shed, see {@link LoadSheddingFilter}. */
+    public static boolean isShedding() {
+        return Boolean.TRUE.equals(SHEDDING.get());
+    }
+
+    /** Whether the current request has to be closed without an answer, see {@link LoadSheddingFilter}. */
+    public static boolean isDropping() {
+        return Boolean.TRUE.equals(DROPPING.get());
+    }
+
+    /**
+     * Keep the current request's virtual mode slot after the task returns, the returned callback
+     * gives it back. Null when the request does not hold a slot.
+     */
+    static Runnable holdSlot() {
+        Slot slot = SLOT.get();
+        if (slot == null) {
+            return null;
+        }
+        slot.held = true;
+        return slot;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (mode == Mode.VIRTUAL) {
+            if (inFlight.incrementAndGet() > maxConcurrent) {
+                inFlight.decrementAndGet();
+                shed(command);
+                return;
+            }
+            Slot slot = new Slot();
+            try {
+                delegate.execute(() -> {
+                    SLOT.set(slot);
+                    try {
+                        command.run();
+                    } finally {
+                        SLOT.remove();
+                        if (!slot.held) {
+                            slot.run();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                slot.run();
+                throw e;
+            }
+            return;
+        }
+
+        try {
+            delegate.execute(command);
+        } catch (RejectedExecutionException e) {
+            shed(command);
+        }
+    }
+
+    public long getShedCount() {
+        return shed.get();
+    }
+
+    public int getInFlight() {
+        return mode == Mode.VIRTUAL ? inFlight.get() : ((ThreadPoolExecutor) delegate).getActiveCount();
+    }
+
+    public int getQueued() {
+        return mode == Mode.VIRTUAL ? 0 : ((ThreadPoolExecutor) delegate).getQueue().size();
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+        shedder.shutdown();
+    }
+
+    private void shed(Runnable command) {
+        shed.incrementAndGet();
+        try {
+            shedder.execute(() -> {
+                SHEDDING.set(Boolean.TRUE);
+                try {
+                    command.run();
+                } finally {
+                    SHEDDING.remove();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Not even a 503 can keep up, the filter closes the exchange without calling anything
+            DROPPING.set(Boolean.TRUE);
+            try {
+                command.run();
+            } finally {
+                DROPPING.remove();
+            }
+        }
+    }
+
+    // A virtual mode request slot, given back once whether the exchange closes or the task ends first
+    private final class Slot implements Runnable {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean held;
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    // Looked up by reflection, the modules still compile for Java 11
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,64 @@
+package fr.neocle.flexgateway.common.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers requests shed by {@link HttpExecutor} with a 503 instead of running the handler, and
+ * keeps the executor's count of running requests until the exchange is closed.
+ */
+public class LoadSheddingFilter extends Filter {
+    private static final byte[] BODY = "{\"error\":\"Server overloaded, retry later\",\"status\":503}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (HttpExecutor.isDropping()) {
+            exchange.close();
+            return;
+        }
+        if (!HttpExecutor.isShedding()) {
+            handle(exchange, chain);
+            return;
+        }
+
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(503, BODY.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(BODY);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange, Chain chain) throws IOException {
+        Runnable release = HttpExecutor.holdSlot();
+        if (release == null) {
+            chain.doFilter(exchange);
+            return;
+        }
+
+        boolean handled = false;
+        try {
+            chain.doFilter(new ReleasingExchange(exchange, release));
+            handled = true;
+        } finally {
+            if (!handled) {
+                // The server closes the connection itself, never through our exchange
+                release.run();
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Answers shed requests with 503";
+    }
+}
@@ -0,0 +1,149 @@
+package fr.neocle.flexgateway.common.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * Exchange that runs a callback once it is over, handed to handlers by {@link LoadSheddingFilter}.
+ * Handlers end an exchange by closing it, by closing the response body or by sending headers
+ * without a body; the callback may run more than once and has to ignore repeats.
+ */
+class ReleasingExchange extends HttpExchange {
+    private final HttpExchange exchange;
+    private final Runnable onClose;
+    private OutputStream responseBody;
+
+    ReleasingExchange(HttpExchange exchange, Runnable onClose) {
+        this.exchange = exchange;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void close() {
+        try {
+            exchange.close();
+        } finally {
+            onClose.run();
+        }
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return exchange.getRequestHeaders();
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return exchange.getResponseHeaders();
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return exchange.getRequestURI();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return exchange.getRequestMethod();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return exchange.getHttpContext();
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return exchange.getRequestBody();
+    }
+
+    @Override
+    public synchronized OutputStream getResponseBody() {
+        if (responseBody == null) {
+            responseBody = releasing(exchange.getResponseBody());
+        }
+        return responseBody;
+    }
+
+    private OutputStream releasing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    onClose.run();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        try {
+            exchange.sendResponseHeaders(rCode, responseLength);
+        } finally {
+            if (responseLength == -1) {
+                // No body, the exchange is already over
+                onClose.run();
+            }
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return exchange.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return exchange.getResponseCode();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return exchange.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return exchange.getProtocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return exchange.getAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        exchange.setAttribute(name, value);
+    }
+
+    @Override
+    public synchronized void setStreams(InputStream i, OutputStream o) {
+        exchange.setStreams(i, o);
+        if (o != null) {
+            responseBody = null;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return exchange.getPrincipal();
+    }
+}
@@ -0,0 +1,80 @@
+package fr.neocle.flexgateway.common.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * One message of the proxy/backend protocol. The payload is a slice of a byte array that is
+ * never copied, {@link #openPayload()} reads it back and takes care of decompression.
+ */
+public final class Frame {
+    /** The payload is gzip compressed. */
+    public static final byte FLAG_COMPRESSED = 0x01;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final FrameType type;
+    private final byte flags;
+    private final long requestId;
+    private final byte[] payload;
+    private final int offset;
+    private final int length;
+
+    public Frame(FrameType type, byte flags, long requestId, byte[] payload, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > payload.length) {
+            throw new IllegalArgumentException("Payload slice out of bounds");
+        }
+        this.type = type;
+        this.flags = flags;
+        this.requestId = requestId;
+        this.payload = payload;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public Frame(FrameType type, long requestId, byte[] payload) {
+        this(type, (byte) 0, requestId, payload, 0, payload.length);
+    }
+
+    /** Get a frame without payload, e.g. a ping. */
+    public static Frame empty(FrameType type, long requestId) {
+        return new Frame(type, requestId, EMPTY);
+    }
+
+    public FrameType getType() {
+        return type;
+    }
+
+    public byte getFlags() {
+        return flags;
+    }
+
+    public boolean isCompressed() {
+        return (flags & FLAG_COMPRESSED) != 0;
+    }
+
+    public long getRequestId() {
+        return requestId;
+    }
+
+    public byte[] getPayloadArray() {
+        return payload;
+    }
+
+    public int getPayloadOffset() {
+        return offset;
+    }
+
+    /** Get the payload length as sent, i.e. compressed if the frame is. */
+    public int getPayloadLength() {
+        return length;
+    }
+
+    /** Read the uncompressed payload. */
+    public InputStream openPayload() throws IOException {
+        InputStream in = new ByteArrayInputStream(payload, offset, length);
+        return isCompressed() ? new GZIPInputStream(in) : in;
+    }
+}
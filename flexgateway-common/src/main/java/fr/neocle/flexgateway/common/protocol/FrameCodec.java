@@ -0,0 +1,146 @@
+package fr.neocle.flexgateway.common.protocol;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes frames, for blocking streams as well as NIO buffers.
+ *
+ * <pre>
+ * int   length      bytes after this field
+ * byte  version     {@link #VERSION}
+ * byte  type        {@link FrameType}
+ * byte  flags       {@link Frame#FLAG_COMPRESSED}
+ * long  requestId   matches a response to its request
+ * byte[] payload    length - {@link #HEADER_SIZE} bytes
+ * </pre>
+ */
+public class FrameCodec {
+    public static final byte VERSION = 1;
+
+    /** Version, type, flags and request id. */
+    public static final int HEADER_SIZE = 1 + 1 + 1 + 8;
+
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    private final int maxFrameSize;
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold payloads of at least this many bytes are compressed, 0 disables compression
+     */
+    public FrameCodec(int maxFrameSize, int compressionThreshold) {
+        this.maxFrameSize = maxFrameSize;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public FrameCodec(int compressionThreshold) {
+        this(DEFAULT_MAX_FRAME_SIZE, compressionThreshold);
+    }
+
+    /** Write a frame, compressing its payload if it is large enough. The stream is not flushed. */
+    public void write(OutputStream out, Frame frame) throws IOException {
+        frame = compressIfNeeded(frame);
+
+        byte[] header = new byte[4 + HEADER_SIZE];
+        ByteBuffer.wrap(header)
+                .putInt(HEADER_SIZE + frame.getPayloadLength())
+                .put(VERSION)
+                .put(frame.getType().getId())
+                .put(frame.getFlags())
+                .putLong(frame.getRequestId());
+        out.write(header);
+        out.write(frame.getPayloadArray(), frame.getPayloadOffset(), frame.getPayloadLength());
+    }
+
+    /** Encode a frame into a buffer ready to be written to a channel. */
+    public ByteBuffer encode(Frame frame) throws IOException {
+        frame = compressIfNeeded(frame);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + HEADER_SIZE + frame.getPayloadLength());
+        buffer.putInt(HEADER_SIZE + frame.getPayloadLength())
+                .put(VERSION)
+                .put(frame.getType().getId())
+                .put(frame.getFlags())
+                .putLong(frame.getRequestId())
+                .put(frame.getPayloadArray(), frame.getPayloadOffset(), frame.getPayloadLength());
+        buffer.flip();
+        return buffer;
+    }
+
+    /** Read the next frame, or return null if the stream ended cleanly between two frames. */
+    public Frame read(InputStream in) throws IOException {
+        DataInputStream data = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+
+        int first = data.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = (first << 24) | (data.readUnsignedByte() << 16) | (data.readUnsignedByte() << 8) | data.readUnsignedByte();
+        checkLength(length);
+
+        byte[] frame = new byte[length];
+        data.readFully(frame);
+        return parse(ByteBuffer.wrap(frame), frame, length);
+    }
+
+    /**
+     * Decode the next frame from a buffer in read mode. Returns null and leaves the buffer
+     * untouched when the frame is not complete yet.
+     */
+    public Frame decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        checkLength(length);
+        if (buffer.remaining() < 4 + length) {
+            return null;
+        }
+
+        buffer.position(buffer.position() + 4);
+        byte[] frame = new byte[length];
+        buffer.get(frame);
+        return parse(ByteBuffer.wrap(frame), frame, length);
+    }
+
+    private Frame parse(ByteBuffer header, byte[] frame, int length) throws IOException {
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported protocol version: " + version);
+        }
+        FrameType type = FrameType.fromId(header.get());
+        if (type == null) {
+            throw new IOException("Unknown frame type");
+        }
+        byte flags = header.get();
+        long requestId = header.getLong();
+        return new Frame(type, flags, requestId, frame, HEADER_SIZE, length - HEADER_SIZE);
+    }
+
+    private void checkLength(int length) throws IOException {
+        if (length < HEADER_SIZE || length > maxFrameSize) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+    }
+
+    private Frame compressIfNeeded(Frame frame) throws IOException {
+        if (compressionThreshold <= 0 || frame.isCompressed() || frame.getPayloadLength() < compressionThreshold) {
+            return frame;
+        }
+
+        PayloadOutputStream compressed = new PayloadOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(frame.getPayloadArray(), frame.getPayloadOffset(), frame.getPayloadLength());
+        }
+        if (compressed.size() >= frame.getPayloadLength()) {
+            return frame;
+        }
+        return compressed.toFrame(frame.getType(), (byte) (frame.getFlags() | Frame.FLAG_COMPRESSED), frame.getRequestId());
+    }
+}
@@ -0,0 +1,32 @@
+package fr.neocle.flexgateway.common.protocol;
+
+/**
+ * Kind of frame exchanged between the proxy and a backend.
+ */
+public enum FrameType {
+    REQUEST(1),
+    RESPONSE(2),
+    PING(3),
+    PONG(4),
+    // Backend state change sent to a subscribed proxy without a request
+    PUSH(5);
+
+    private final byte id;
+
+    FrameType(int id) {
+        this.id = (byte) id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    public static FrameType fromId(byte id) {
+        for (FrameType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
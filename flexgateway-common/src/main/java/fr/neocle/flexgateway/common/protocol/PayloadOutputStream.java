@@ -0,0 +1,21 @@
+package fr.neocle.flexgateway.common.protocol;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Buffer a payload is serialized into, turned into a frame without copying the bytes.
+ */
+public class PayloadOutputStream extends ByteArrayOutputStream {
+
+    public PayloadOutputStream() {
+        super(256);
+    }
+
+    public Frame toFrame(FrameType type, long requestId) {
+        return toFrame(type, (byte) 0, requestId);
+    }
+
+    public Frame toFrame(FrameType type, byte flags, long requestId) {
+        return new Frame(type, flags, requestId, buf, 0, count);
+    }
+}
@@ -0,0 +1,42 @@
+package fr.neocle.flexgateway.common.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight computation between concurrent callers asking for the same key.
+ * The key is forgotten as soon as the computation completes, so nothing is cached.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            call.get().whenComplete((value, error) -> {
+                inFlight.remove(key, shared);
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(value);
+                }
+            });
+        } catch (Throwable t) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(t);
+        }
+        return shared;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
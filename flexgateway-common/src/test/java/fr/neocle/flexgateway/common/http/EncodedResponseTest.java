@@ -0,0 +1,129 @@
+package fr.neocle.flexgateway.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponseTest {
+
+    private static final String LARGE_JSON = "{\"players\":[" + "{\"name\":\"Steve\"},".repeat(100) + "{}]}";
+
+    private HttpServer server;
+    private HttpClient client;
+    private volatile EncodedResponse response;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> response.send(exchange));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private HttpResponse<byte[]> get(String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void etagDependsOnTheBody() {
+        EncodedResponse first = EncodedResponse.of(200, "{\"a\":1}", 0);
+
+        assertEquals(first.getETag(), EncodedResponse.of(200, "{\"a\":1}", 0).getETag());
+        assertNotEquals(first.getETag(), EncodedResponse.of(200, "{\"a\":2}", 0).getETag());
+        assertTrue(first.getETag().startsWith("\"") && first.getETag().endsWith("\""));
+    }
+
+    @Test
+    void sendsBodyWithEtag() throws Exception {
+        response = EncodedResponse.of(200, "{\"a\":1}", 0);
+
+        HttpResponse<byte[]> result = get();
+        assertEquals(200, result.statusCode());
+        assertEquals(response.getETag(), result.headers().firstValue("ETag").orElse(null));
+        assertArrayEquals("{\"a\":1}".getBytes(StandardCharsets.UTF_8), result.body());
+    }
+
+    @Test
+    void matchingIfNoneMatchGetsNotModified() throws Exception {
+        response = EncodedResponse.of(200, "{\"a\":1}", 0);
+
+        HttpResponse<byte[]> result = get("If-None-Match", "\"other\", W/" + response.getETag());
+        assertEquals(304, result.statusCode());
+        assertEquals(0, result.body().length);
+        assertEquals(response.getETag(), result.headers().firstValue("ETag").orElse(null));
+    }
+
+    @Test
+    void staleIfNoneMatchGetsTheBody() throws Exception {
+        response = EncodedResponse.of(200, "{\"a\":2}", 0);
+
+        HttpResponse<byte[]> result = get("If-None-Match", EncodedResponse.of(200, "{\"a\":1}", 0).getETag());
+        assertEquals(200, result.statusCode());
+        assertArrayEquals("{\"a\":2}".getBytes(StandardCharsets.UTF_8), result.body());
+    }
+
+    @Test
+    void errorsAreNeverNotModified() throws Exception {
+        response = EncodedResponse.of(404, "{\"error\":\"Player not found\"}", 0);
+
+        HttpResponse<byte[]> result = get("If-None-Match", response.getETag());
+        assertEquals(404, result.statusCode());
+    }
+
+    @Test
+    void gzipOnlyWhenAccepted() throws Exception {
+        response = EncodedResponse.of(200, LARGE_JSON, 64);
+        byte[] expected = LARGE_JSON.getBytes(StandardCharsets.UTF_8);
+        assertTrue(response.getSize() > expected.length);
+
+        HttpResponse<byte[]> plain = get();
+        assertFalse(plain.headers().firstValue("Content-Encoding").isPresent());
+        assertArrayEquals(expected, plain.body());
+
+        HttpResponse<byte[]> compressed = get("Accept-Encoding", "gzip, deflate");
+        assertEquals("gzip", compressed.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("Accept-Encoding", compressed.headers().firstValue("Vary").orElse(null));
+        assertTrue(compressed.body().length < expected.length);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.body()))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void smallBodiesAreNotCompressed() throws Exception {
+        response = EncodedResponse.of(200, "{}", 64);
+        assertEquals(2, response.getSize());
+
+        HttpResponse<byte[]> result = get("Accept-Encoding", "gzip");
+        assertFalse(result.headers().firstValue("Content-Encoding").isPresent());
+    }
+}
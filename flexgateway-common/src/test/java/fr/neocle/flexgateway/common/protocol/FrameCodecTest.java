@@ -0,0 +1,144 @@
+package fr.neocle.flexgateway.common.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameCodecTest {
+
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readPayload(Frame frame) throws IOException {
+        try (InputStream in = frame.openPayload()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void streamRoundTrip() throws IOException {
+        FrameCodec codec = new FrameCodec(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(out, new Frame(FrameType.REQUEST, 42L, payload("{\"action\":\"server\"}")));
+        codec.write(out, Frame.empty(FrameType.PING, 43L));
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        Frame request = codec.read(in);
+        assertEquals(FrameType.REQUEST, request.getType());
+        assertEquals(42L, request.getRequestId());
+        assertFalse(request.isCompressed());
+        assertArrayEquals(payload("{\"action\":\"server\"}"), readPayload(request));
+
+        Frame ping = codec.read(in);
+        assertEquals(FrameType.PING, ping.getType());
+        assertEquals(43L, ping.getRequestId());
+        assertEquals(0, ping.getPayloadLength());
+
+        assertNull(codec.read(in));
+    }
+
+    @Test
+    void bufferRoundTripKeepsPayloadSlice() throws IOException {
+        FrameCodec codec = new FrameCodec(0);
+        byte[] array = payload("xxhelloxx");
+        ByteBuffer encoded = codec.encode(new Frame(FrameType.RESPONSE, (byte) 0, 7L, array, 2, 5));
+
+        Frame frame = codec.decode(encoded);
+        assertNotNull(frame);
+        assertEquals(FrameType.RESPONSE, frame.getType());
+        assertEquals(7L, frame.getRequestId());
+        assertArrayEquals(payload("hello"), readPayload(frame));
+        assertFalse(encoded.hasRemaining());
+    }
+
+    @Test
+    void partialFrameIsLeftInTheBuffer() throws IOException {
+        FrameCodec codec = new FrameCodec(0);
+        ByteBuffer encoded = codec.encode(new Frame(FrameType.PUSH, 1L, payload("players")));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length * 2);
+        for (int i = 0; i < bytes.length - 1; i++) {
+            buffer.put(bytes[i]);
+            buffer.flip();
+            int position = buffer.position();
+            assertNull(codec.decode(buffer), "decoded after " + (i + 1) + " bytes");
+            assertEquals(position, buffer.position());
+            buffer.compact();
+        }
+
+        buffer.put(bytes[bytes.length - 1]);
+        buffer.flip();
+        Frame frame = codec.decode(buffer);
+        assertNotNull(frame);
+        assertArrayEquals(payload("players"), readPayload(frame));
+    }
+
+    @Test
+    void decodesSeveralFramesFromOneBuffer() throws IOException {
+        FrameCodec codec = new FrameCodec(0);
+        ByteBuffer first = codec.encode(new Frame(FrameType.REQUEST, 1L, payload("a")));
+        ByteBuffer second = codec.encode(new Frame(FrameType.REQUEST, 2L, payload("b")));
+        ByteBuffer buffer = ByteBuffer.allocate(first.remaining() + second.remaining());
+        buffer.put(first).put(second).flip();
+
+        assertEquals(1L, codec.decode(buffer).getRequestId());
+        assertEquals(2L, codec.decode(buffer).getRequestId());
+        assertNull(codec.decode(buffer));
+    }
+
+    @Test
+    void largePayloadsAreCompressed() throws IOException {
+        FrameCodec codec = new FrameCodec(64);
+        byte[] json = payload("{\"players\":[" + "{\"name\":\"Steve\"},".repeat(200) + "{}]}");
+
+        ByteBuffer encoded = codec.encode(new Frame(FrameType.RESPONSE, 9L, json));
+        assertTrue(encoded.remaining() < json.length);
+
+        Frame frame = codec.decode(encoded);
+        assertTrue(frame.isCompressed());
+        assertArrayEquals(json, readPayload(frame));
+    }
+
+    @Test
+    void smallPayloadsAreNotCompressed() throws IOException {
+        FrameCodec codec = new FrameCodec(64);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(out, new Frame(FrameType.RESPONSE, 9L, payload("{}")));
+
+        Frame frame = codec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertFalse(frame.isCompressed());
+        assertArrayEquals(payload("{}"), readPayload(frame));
+    }
+
+    @Test
+    void rejectsOversizedFrames() throws IOException {
+        ByteBuffer encoded = new FrameCodec(0).encode(new Frame(FrameType.REQUEST, 1L, new byte[100]));
+        FrameCodec strict = new FrameCodec(50, 0);
+
+        assertThrows(IOException.class, () -> strict.decode(encoded));
+    }
+
+    @Test
+    void rejectsUnknownVersion() throws IOException {
+        ByteBuffer encoded = new FrameCodec(0).encode(new Frame(FrameType.REQUEST, 1L, payload("{}")));
+        encoded.put(4, (byte) (FrameCodec.VERSION + 1));
+
+        assertThrows(IOException.class, () -> new FrameCodec(0).decode(encoded));
+    }
+}
@@ -0,0 +1,90 @@
+package fr.neocle.flexgateway.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("players", () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = flight.execute("players", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getInFlightCount());
+
+        pending.complete("done");
+        assertEquals("done", first.get());
+        assertEquals("done", second.get());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> players = flight.execute("players", CompletableFuture::new);
+        CompletableFuture<String> worlds = flight.execute("worlds", CompletableFuture::new);
+
+        assertNotSame(players, worlds);
+        assertEquals(2, flight.getInFlightCount());
+    }
+
+    @Test
+    void keyIsForgottenOnceCompleted() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        int first = flight.execute("key", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).get();
+        int second = flight.execute("key", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).get();
+
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void failuresReachEveryCallerAndAreNotKept() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("key", () -> pending);
+        CompletableFuture<String> second = flight.execute("key", () -> pending);
+
+        pending.completeExceptionally(new IllegalStateException("backend down"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, first::get);
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(ExecutionException.class, second::get);
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void supplierExceptionCompletesTheFuture() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> result = flight.execute("key", () -> {
+            throw new IllegalArgumentException("bad request");
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, flight.getInFlightCount());
+    }
+}
@@ -51,7 +51,7 @@ public class FlexGatewayVelocity {
             configManager.loadConfig();
 
             // Initialize data manager
-            dataManager = new ServerDataManager(logger);
+            dataManager = new ServerDataManager(logger, configManager);
 
             // Initialize TCP message manager (no plugin messaging needed)
             messageManager = new TcpMessageManager(logger, dataManager, configManager);
@@ -60,7 +60,7 @@ public class FlexGatewayVelocity {
             String host = configManager.getApiHost();
             int port = configManager.getApiPort();
 
-            apiServer = new VelocityRestApiServer(server, logger, dataManager, messageManager, host, port);
+            apiServer = new VelocityRestApiServer(server, logger, dataManager, messageManager, configManager, host, port);
 
             apiServer.start();
             logger.info("FlexGateway Velocity REST API server started on {}:{}", host, port);
@@ -1,80 +1,163 @@
 package fr.neocle.flexgateway.velocity.communication;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import fr.neocle.flexgateway.common.protocol.FrameCodec;
 import org.slf4j.Logger;
 
-import java.io.*;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.UUID;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps one persistent connection per backend, opened on first use and reopened after a failure.
+ * Idle connections are kept alive with ping requests and closed when the backend stops answering.
+ * All socket I/O runs on one event loop thread; returned futures always complete on the callback
+ * executor, never on the event loop or the common pool, and always with a JSON object.
+ */
 public class TcpCommunicationClient {
-    private final Logger logger;
-    private final JsonParser jsonParser = new JsonParser();
+    // Missed heartbeats before a connection is considered dead
+    private static final int MAX_MISSED_HEARTBEATS = 3;
 
-    public TcpCommunicationClient(Logger logger) {
+    private final Logger logger;
+    private final long heartbeatIntervalMs;
+    private final int requestTimeoutSeconds;
+    private final FrameCodec codec;
+    private final Map<String, TcpConnection> connections = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final TcpEventLoop eventLoop;
+    private final ExecutorService callbackExecutor;
+
+    public TcpCommunicationClient(Logger logger, int heartbeatIntervalSeconds, int requestTimeoutSeconds,
+                                  int compressionThreshold, int callbackThreads) throws IOException {
         this.logger = logger;
+        this.eventLoop = new TcpEventLoop(logger);
+
+        AtomicInteger callbackCount = new AtomicInteger();
+        this.callbackExecutor = Executors.newFixedThreadPool(Math.max(1, callbackThreads), runnable -> {
+            Thread thread = new Thread(runnable, "FlexGateway-TCP-Callback-" + callbackCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.codec = new FrameCodec(compressionThreshold);
+        this.heartbeatIntervalMs = TimeUnit.SECONDS.toMillis(Math.max(1, heartbeatIntervalSeconds));
+        this.requestTimeoutSeconds = Math.max(1, requestTimeoutSeconds);
+
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FlexGateway-TCP-Heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatScheduler.scheduleWithFixedDelay(this::sendHeartbeats,
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
     }
 
     public CompletableFuture<JsonObject> sendRequest(String serverHost, int serverPort, String action, JsonObject requestData) {
-        CompletableFuture<JsonObject> future = new CompletableFuture<>();
-
-        // Set timeout
-        future.orTimeout(30, TimeUnit.SECONDS);
-
-        // Process in separate thread to avoid blocking
-        CompletableFuture.runAsync(() -> {
-            try (Socket socket = new Socket(serverHost, serverPort);
-                 PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
-                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
-
-                String requestId = UUID.randomUUID().toString();
-
-                // Create request
-                JsonObject request = new JsonObject();
-                request.addProperty("action", action);
-                request.addProperty("requestId", requestId);
-                request.add("data", requestData);
-
-                logger.info("=== SENDING TCP REQUEST ===");
-                logger.info("Server: {}:{}", serverHost, serverPort);
-                logger.info("Action: {}", action);
-                logger.info("Request ID: {}", requestId);
-
-                // Send request
-                writer.println(request.toString());
-                logger.info("✅ TCP request sent");
-
-                // Read response
-                String responseLine = reader.readLine();
-                if (responseLine == null) {
-                    throw new IOException("No response received from server");
-                }
-
-                logger.info("✅ TCP response received: {} characters", responseLine.length());
-
-                JsonObject response = jsonParser.parse(responseLine).getAsJsonObject();
-
-                // Verify request ID matches
-                if (response.has("requestId") && !requestId.equals(response.get("requestId").getAsString())) {
-                    throw new IOException("Response request ID mismatch");
-                }
-
-                future.complete(response);
-                logger.info("✅ TCP request completed successfully");
-
-            } catch (Exception e) {
-                logger.error("❌ TCP request failed: {}", e.getMessage());
-                JsonObject error = new JsonObject();
-                error.addProperty("error", "TCP communication failed: " + e.getMessage());
-                error.addProperty("status", 500);
-                future.complete(error);
+        return sendRequest(serverHost, serverPort, action, requestData, TimeUnit.SECONDS.toMillis(requestTimeoutSeconds));
+    }
+
+    /**
+     * Send a request with its own timeout, answered with a 504 error object when it expires.
+     */
+    public CompletableFuture<JsonObject> sendRequest(String serverHost, int serverPort, String action, JsonObject requestData,
+                                                     long timeoutMillis) {
+        String key = serverHost + ":" + serverPort;
+
+        CompletableFuture<JsonObject> future;
+        try {
+            // Connecting does not block, requests are queued until the connection is up
+            future = getOrConnect(key, serverHost, serverPort).send(action, requestData);
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return withTimeout(key, future, timeoutMillis);
+    }
+
+    /**
+     * Subscribe to the state changes of a backend. The future completes with the snapshot the
+     * pushes apply to, the listener hears about every push and about the connection closing.
+     */
+    public CompletableFuture<JsonObject> subscribe(String serverHost, int serverPort, TcpConnection.PushListener listener) {
+        String key = serverHost + ":" + serverPort;
+
+        CompletableFuture<JsonObject> future;
+        try {
+            TcpConnection connection = getOrConnect(key, serverHost, serverPort);
+            connection.setPushListener(listener);
+            future = connection.send("subscribe", new JsonObject());
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return withTimeout(key, future, TimeUnit.SECONDS.toMillis(requestTimeoutSeconds));
+    }
+
+    private CompletableFuture<JsonObject> withTimeout(String key, CompletableFuture<JsonObject> future, long timeoutMillis) {
+        // Timeouts fire on the JDK delay thread, hop to the callback executor before anyone reacts
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handleAsync((response, throwable) -> {
+                    if (throwable == null) {
+                        return response;
+                    }
+                    Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+                    JsonObject error = new JsonObject();
+                    if (cause instanceof TimeoutException) {
+                        error.addProperty("error", "TCP request to " + key + " timed out");
+                        error.addProperty("status", 504);
+                    } else {
+                        logger.error("❌ TCP connection to {} failed: {}", key, cause.getMessage());
+                        error.addProperty("error", "TCP communication failed: " + cause.getMessage());
+                        error.addProperty("status", 500);
+                    }
+                    return error;
+                }, callbackExecutor);
+    }
+
+    public void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        for (TcpConnection connection : connections.values()) {
+            connection.close("proxy shutting down");
+        }
+        connections.clear();
+        eventLoop.shutdown();
+        callbackExecutor.shutdown();
+    }
+
+    private TcpConnection getOrConnect(String key, String serverHost, int serverPort) {
+        return connections.compute(key, (address, existing) -> {
+            if (existing != null && existing.isOpen()) {
+                return existing;
+            }
+            try {
+                return new TcpConnection(logger, serverHost, serverPort, codec, eventLoop, callbackExecutor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         });
+    }
 
-        return future;
+    private void sendHeartbeats() {
+        for (Map.Entry<String, TcpConnection> entry : connections.entrySet()) {
+            TcpConnection connection = entry.getValue();
+            if (!connection.isOpen()) {
+                connections.remove(entry.getKey(), connection);
+                continue;
+            }
+
+            long idle = connection.getIdleMillis();
+            if (idle > heartbeatIntervalMs * MAX_MISSED_HEARTBEATS) {
+                connection.close("no heartbeat for " + idle + "ms");
+                connections.remove(entry.getKey(), connection);
+            } else if (idle >= heartbeatIntervalMs) {
+                connection.ping()
+                        .orTimeout(heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
     }
-}
\ No newline at end of file
+}
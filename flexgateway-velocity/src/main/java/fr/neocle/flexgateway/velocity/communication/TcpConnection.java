@@ -0,0 +1,345 @@
+package fr.neocle.flexgateway.velocity.communication;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import fr.neocle.flexgateway.common.protocol.Frame;
+import fr.neocle.flexgateway.common.protocol.FrameCodec;
+import fr.neocle.flexgateway.common.protocol.FrameType;
+import fr.neocle.flexgateway.common.protocol.PayloadOutputStream;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived connection to one backend. Every frame carries a request id and responses are
+ * matched by it, so any number of requests share the socket and may complete out of order.
+ * The socket is only touched by the {@link TcpEventLoop}; futures are completed on the
+ * callback executor so slow callers never hold up the event loop.
+ */
+public class TcpConnection {
+
+    /**
+     * Receives the state changes a subscribed backend pushes. Called on the event loop, in order.
+     */
+    public interface PushListener {
+        void onPush(JsonObject push);
+
+        void onClosed(String reason);
+    }
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int INITIAL_READ_BUFFER = 8 * 1024;
+    private static final Gson GSON = new Gson();
+
+    private final Logger logger;
+    private final String address;
+    private final FrameCodec codec;
+    private final TcpEventLoop eventLoop;
+    private final Executor callbackExecutor;
+    private final Map<Long, CompletableFuture<JsonObject>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+
+    private final SocketChannel channel;
+    // Event loop thread only
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    private volatile long lastReceived;
+    private volatile PushListener pushListener;
+
+    /**
+     * Start connecting, requests sent before the connection is established are queued.
+     */
+    TcpConnection(Logger logger, String host, int port, FrameCodec codec,
+                  TcpEventLoop eventLoop, Executor callbackExecutor) throws IOException {
+        this.logger = logger;
+        this.address = host + ":" + port;
+        this.codec = codec;
+        this.eventLoop = eventLoop;
+        this.callbackExecutor = callbackExecutor;
+        this.lastReceived = System.currentTimeMillis();
+
+        channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            boolean immediate = channel.connect(new InetSocketAddress(host, port));
+            eventLoop.execute(() -> register(immediate));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        connected.orTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                close(throwable instanceof TimeoutException ? "connect timed out" : "connect failed: " + throwable.getMessage());
+            }
+        });
+    }
+
+    public CompletableFuture<JsonObject> send(String action, JsonObject requestData) {
+        JsonObject request = new JsonObject();
+        request.addProperty("action", action);
+        request.add("data", requestData);
+
+        long requestId = nextRequestId.incrementAndGet();
+        PayloadOutputStream payload = new PayloadOutputStream();
+        try (Writer writer = new OutputStreamWriter(payload, StandardCharsets.UTF_8)) {
+            GSON.toJson(request, writer);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<JsonObject> future = track(requestId);
+        write(payload.toFrame(FrameType.REQUEST, requestId));
+        logger.debug("TCP request {} ({}) queued for {}", requestId, action, address);
+        return future;
+    }
+
+    /**
+     * Send a heartbeat, the future completes with an empty object when the backend answers.
+     */
+    public CompletableFuture<JsonObject> ping() {
+        long requestId = nextRequestId.incrementAndGet();
+        CompletableFuture<JsonObject> future = track(requestId);
+        write(Frame.empty(FrameType.PING, requestId));
+        return future;
+    }
+
+    public void setPushListener(PushListener pushListener) {
+        this.pushListener = pushListener;
+    }
+
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    /**
+     * Get the time since anything was last received, heartbeat responses included.
+     */
+    public long getIdleMillis() {
+        return System.currentTimeMillis() - lastReceived;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Close the socket and answer every in-flight request with an error.
+     */
+    public void close(String reason) {
+        if (!open.compareAndSet(true, false)) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        writeQueue.clear();
+        connected.completeExceptionally(new IOException(reason));
+
+        if (!pending.isEmpty()) {
+            logger.warn("TCP connection to {} closed ({}), failing {} pending requests", address, reason, pending.size());
+        } else {
+            logger.info("TCP connection to {} closed ({})", address, reason);
+        }
+
+        for (CompletableFuture<JsonObject> future : pending.values()) {
+            complete(future, closedError(reason));
+        }
+        pending.clear();
+
+        PushListener listener = pushListener;
+        if (listener != null) {
+            listener.onClosed(reason);
+        }
+    }
+
+    void finishConnect() throws IOException {
+        if (channel.finishConnect()) {
+            onConnected();
+        }
+    }
+
+    void read() throws IOException {
+        if (!readBuffer.hasRemaining()) {
+            // A frame larger than the buffer, the codec rejects anything above its maximum
+            ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            close("closed by server");
+            return;
+        }
+        if (read == 0) {
+            return;
+        }
+        lastReceived = System.currentTimeMillis();
+
+        readBuffer.flip();
+        Frame frame;
+        while ((frame = codec.decode(readBuffer)) != null) {
+            dispatch(frame);
+        }
+        readBuffer.compact();
+    }
+
+    /**
+     * Write as much of the queue as the socket accepts, waiting for OP_WRITE for the rest.
+     */
+    void flush() throws IOException {
+        if (key == null || !key.isValid() || !channel.isConnected()) {
+            // Written once connected
+            return;
+        }
+
+        ByteBuffer buffer;
+        while ((buffer = writeQueue.peek()) != null) {
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            writeQueue.poll();
+        }
+        key.interestOps(writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void register(boolean alreadyConnected) {
+        if (!open.get()) {
+            return;
+        }
+        try {
+            key = eventLoop.register(channel, alreadyConnected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            if (alreadyConnected) {
+                onConnected();
+            }
+        } catch (IOException e) {
+            close("connect failed: " + e.getMessage());
+        }
+    }
+
+    private void onConnected() throws IOException {
+        lastReceived = System.currentTimeMillis();
+        key.interestOps(SelectionKey.OP_READ);
+        logger.info("TCP connection opened to {}", address);
+        connected.complete(null);
+        flush();
+    }
+
+    private void dispatch(Frame frame) throws IOException {
+        if (frame.getType() == FrameType.PUSH) {
+            // Small deltas, parsed here so they are applied in the order they were sent
+            PushListener listener = pushListener;
+            if (listener != null) {
+                try (Reader reader = new InputStreamReader(frame.openPayload(), StandardCharsets.UTF_8)) {
+                    listener.onPush(JsonParser.parseReader(reader).getAsJsonObject());
+                }
+            }
+            return;
+        }
+
+        CompletableFuture<JsonObject> future = pending.remove(frame.getRequestId());
+        if (future == null) {
+            // Already timed out
+            return;
+        }
+
+        if (frame.getType() != FrameType.RESPONSE) {
+            complete(future, new JsonObject());
+            return;
+        }
+
+        // Decompressing and parsing happen off the event loop
+        execute(() -> {
+            try (Reader reader = new InputStreamReader(frame.openPayload(), StandardCharsets.UTF_8)) {
+                future.complete(JsonParser.parseReader(reader).getAsJsonObject());
+            } catch (IOException | RuntimeException e) {
+                future.complete(closedError("invalid response: " + e.getMessage()));
+            }
+        });
+    }
+
+    private JsonObject closedError(String reason) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", "TCP communication failed: " + reason);
+        error.addProperty("status", 500);
+        return error;
+    }
+
+    private CompletableFuture<JsonObject> track(long requestId) {
+        CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        pending.put(requestId, future);
+        // Timed out or cancelled requests must not stay in the map
+        future.whenComplete((response, throwable) -> pending.remove(requestId));
+        if (!open.get()) {
+            complete(future, closedError("connection closed"));
+        }
+        return future;
+    }
+
+    private void write(Frame frame) {
+        try {
+            writeQueue.add(codec.encode(frame));
+        } catch (IOException e) {
+            close("encode failed: " + e.getMessage());
+            return;
+        }
+
+        // One flush task covers every request queued before it runs
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(() -> {
+                flushScheduled.set(false);
+                try {
+                    flush();
+                } catch (IOException e) {
+                    close("write failed: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void complete(CompletableFuture<JsonObject> future, JsonObject response) {
+        execute(() -> future.complete(response));
+    }
+
+    private void execute(Runnable task) {
+        try {
+            callbackExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            task.run();
+        }
+    }
+}
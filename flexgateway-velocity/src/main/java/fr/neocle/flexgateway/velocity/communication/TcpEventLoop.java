@@ -0,0 +1,95 @@
+package fr.neocle.flexgateway.velocity.communication;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single thread doing all socket I/O with the backends: connecting, reading frames and
+ * writing queued requests. Nothing on this thread blocks, response handling is handed to
+ * the callback executor by {@link TcpConnection}.
+ */
+class TcpEventLoop implements Runnable {
+    private final Logger logger;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    TcpEventLoop(Logger logger) throws IOException {
+        this.logger = logger;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, "FlexGateway-TCP-EventLoop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Run a task on the event loop thread. */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /** Must be called on the event loop thread. */
+    SelectionKey register(SocketChannel channel, int ops, TcpConnection connection) throws ClosedChannelException {
+        return channel.register(selector, ops, connection);
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                logger.error("TCP event loop select failed", e);
+                break;
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("TCP event loop task failed", e);
+                }
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                TcpConnection connection = (TcpConnection) key.attachment();
+                try {
+                    if (key.isValid() && key.isConnectable()) {
+                        connection.finishConnect();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        connection.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.flush();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    connection.close(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                }
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
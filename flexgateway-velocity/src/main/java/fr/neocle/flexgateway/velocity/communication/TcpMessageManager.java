@@ -6,43 +6,65 @@ import fr.neocle.flexgateway.velocity.config.ConfigManager;
 import fr.neocle.flexgateway.velocity.data.ServerDataManager;
 import org.slf4j.Logger;
 
+import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class TcpMessageManager {
     private final Logger logger;
     private final ServerDataManager dataManager;
     private final ConfigManager configManager;
     private final TcpCommunicationClient tcpClient;
+    private ScheduledExecutorService replicationScheduler;
 
-    public TcpMessageManager(Logger logger, ServerDataManager dataManager, ConfigManager configManager) {
+    public TcpMessageManager(Logger logger, ServerDataManager dataManager, ConfigManager configManager) throws IOException {
         this.logger = logger;
         this.dataManager = dataManager;
         this.configManager = configManager;
-        this.tcpClient = new TcpCommunicationClient(logger);
+        this.tcpClient = new TcpCommunicationClient(logger,
+                configManager.getTcpHeartbeatIntervalSeconds(), configManager.getTcpRequestTimeoutSeconds(),
+                configManager.getTcpCompressionThreshold(), configManager.getTcpCallbackThreads());
 
-        logger.info("TcpMessageManager initialized - using direct TCP communication");
+        logger.info("TcpMessageManager initialized - using persistent TCP connections");
         logger.info("No plugin messaging channels required");
         logger.info("Communication works regardless of online players");
+
+        if (configManager.isTcpReplicationEnabled()) {
+            replicationScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "FlexGateway-Replication");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, configManager.getTcpHeartbeatIntervalSeconds());
+            replicationScheduler.scheduleWithFixedDelay(this::subscribeToBackends, 1, interval, TimeUnit.SECONDS);
+        }
     }
 
     public CompletableFuture<JsonObject> sendRequest(String serverName, String action, JsonObject requestData) {
-        logger.info("=== TCP REQUEST TO SERVER ===");
-        logger.info("Server: {}", serverName);
-        logger.info("Action: {}", action);
-        logger.info("Communication method: Direct TCP connection");
+        return sendRequest(serverName, action, requestData, -1);
+    }
 
+    /**
+     * Send a request to a backend, a positive timeout replaces the configured request timeout.
+     */
+    public CompletableFuture<JsonObject> sendRequest(String serverName, String action, JsonObject requestData, long timeoutMillis) {
         // Get server connection info from config
         String serverHost = configManager.getServerHost(serverName);
         int serverPort = getServerTcpPort(serverName);
 
-        logger.info("Target: {}:{}", serverHost, serverPort);
+        logger.debug("TCP request to server {} ({}:{}), action: {}", serverName, serverHost, serverPort, action);
 
-        return tcpClient.sendRequest(serverHost, serverPort, action, requestData)
+        CompletableFuture<JsonObject> future = timeoutMillis > 0
+                ? tcpClient.sendRequest(serverHost, serverPort, action, requestData, timeoutMillis)
+                : tcpClient.sendRequest(serverHost, serverPort, action, requestData);
+        return future
                 .whenComplete((result, throwable) -> {
                     if (throwable != null) {
                         logger.error("TCP request failed for server {}: {}", serverName, throwable.getMessage());
                     } else {
-                        logger.info("TCP request completed successfully for server {}", serverName);
+                        logger.debug("TCP request completed successfully for server {}", serverName);
                     }
                 });
     }
@@ -72,8 +94,49 @@ public class TcpMessageManager {
         }
     }
 
+    /**
+     * Subscribe to every configured backend that is not replicated yet, after startup and
+     * whenever a connection was lost or an update was missed.
+     */
+    private void subscribeToBackends() {
+        for (String serverName : configManager.getConfiguredServers()) {
+            if (!dataManager.isReplicating(serverName)) {
+                subscribe(serverName);
+            }
+        }
+    }
+
+    private void subscribe(String serverName) {
+        dataManager.beginReplication(serverName);
+
+        TcpConnection.PushListener listener = new TcpConnection.PushListener() {
+            @Override
+            public void onPush(JsonObject push) {
+                dataManager.applyReplicaPush(serverName, push);
+            }
+
+            @Override
+            public void onClosed(String reason) {
+                dataManager.invalidateReplica(serverName);
+            }
+        };
+
+        tcpClient.subscribe(configManager.getServerHost(serverName), getServerTcpPort(serverName), listener)
+                .thenAccept(snapshot -> {
+                    if (snapshot.has("error")) {
+                        logger.debug("Could not replicate server {}: {}", serverName, snapshot.get("error").getAsString());
+                        dataManager.invalidateReplica(serverName);
+                    } else {
+                        dataManager.applyReplicaSnapshot(serverName, snapshot);
+                    }
+                });
+    }
+
     public void shutdown() {
+        if (replicationScheduler != null) {
+            replicationScheduler.shutdownNow();
+        }
+        tcpClient.shutdown();
         logger.info("TcpMessageManager shutdown complete");
-        // TCP client doesn't need explicit cleanup as it uses per-request connections
     }
 }
\ No newline at end of file
@@ -8,8 +8,10 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class ConfigManager {
     private final Path dataDirectory;
@@ -57,6 +59,11 @@ public class ConfigManager {
         Map<String, Object> apiConfig = new HashMap<>();
         apiConfig.put("host", "localhost");
         apiConfig.put("port", 8081);
+        apiConfig.put("executor", "virtual");
+        apiConfig.put("threads", 10);
+        apiConfig.put("queue_capacity", 200);
+        apiConfig.put("max_concurrent_requests", 500);
+        apiConfig.put("gzip_min_bytes", 1024);
         defaultConfig.put("api", apiConfig);
 
         // Server mappings for TCP communication
@@ -79,6 +86,39 @@ public class ConfigManager {
 
         defaultConfig.put("servers", serversConfig);
 
+        // Persistent TCP links to the backends
+        Map<String, Object> tcpConfig = new HashMap<>();
+        tcpConfig.put("heartbeat_interval_seconds", 15);
+        tcpConfig.put("request_timeout_seconds", 30);
+        tcpConfig.put("compression_threshold_bytes", 8192);
+        tcpConfig.put("callback_threads", 4);
+        tcpConfig.put("replication", true);
+        defaultConfig.put("tcp", tcpConfig);
+
+        // Network-wide endpoints fanning out to every backend
+        Map<String, Object> networkConfig = new HashMap<>();
+        networkConfig.put("backend_timeout_ms", 2000);
+        networkConfig.put("cache_ttl_ms", 5000);
+        defaultConfig.put("network", networkConfig);
+
+        // Backend responses cached by the proxy, bounded by the size of their JSON
+        Map<String, Object> cacheConfig = new HashMap<>();
+        cacheConfig.put("max_bytes", 16 * 1024 * 1024);
+        cacheConfig.put("max_entry_bytes", 1024 * 1024);
+        cacheConfig.put("default_ttl_ms", 60000);
+        cacheConfig.put("stale_ms", 30000);
+        Map<String, Object> ttlConfig = new HashMap<>();
+        ttlConfig.put("players", 5000);
+        ttlConfig.put("player", 10000);
+        ttlConfig.put("server", 10000);
+        ttlConfig.put("status", 5000);
+        ttlConfig.put("messages", 5000);
+        ttlConfig.put("worlds", 300000);
+        ttlConfig.put("world", 60000);
+        ttlConfig.put("extensions", 300000);
+        cacheConfig.put("ttl_ms", ttlConfig);
+        defaultConfig.put("cache", cacheConfig);
+
         Yaml yaml = new Yaml();
         try (FileWriter writer = new FileWriter(configFile.toFile())) {
             writer.write("# FlexGateway Velocity Configuration\n");
@@ -122,6 +162,39 @@ public class ConfigManager {
         return 8081;
     }
 
+    /**
+     * "virtual" runs each request on its own virtual thread when the JVM supports it,
+     * "pool" uses a fixed pool of api.threads threads.
+     */
+    public String getApiExecutorMode() {
+        Map<String, Object> apiConfig = (Map<String, Object>) config.get("api");
+        if (apiConfig != null) {
+            Object value = apiConfig.get("executor");
+            if (value instanceof String) {
+                return (String) value;
+            }
+        }
+        return "virtual";
+    }
+
+    public int getApiSetting(String key, int defaultValue) {
+        Map<String, Object> apiConfig = (Map<String, Object>) config.get("api");
+        if (apiConfig != null) {
+            Object value = apiConfig.get(key);
+            if (value instanceof Integer) {
+                return (Integer) value;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Responses at least this large are also kept gzipped for clients accepting it, 0 disables gzip.
+     */
+    public int getApiGzipMinBytes() {
+        return getApiSetting("gzip_min_bytes", 1024);
+    }
+
     public String getServerHost(String serverName) {
         Map<String, Object> servers = getServersConfig();
         if (servers != null && servers.containsKey(serverName)) {
@@ -143,6 +216,125 @@ public class ConfigManager {
         return -1; // Not configured
     }
 
+    public int getTcpHeartbeatIntervalSeconds() {
+        return getTcpSetting("heartbeat_interval_seconds", 15);
+    }
+
+    public int getTcpRequestTimeoutSeconds() {
+        return getTcpSetting("request_timeout_seconds", 30);
+    }
+
+    /**
+     * Frames at least this large are gzip compressed, 0 disables compression.
+     */
+    public int getTcpCompressionThreshold() {
+        return getTcpSetting("compression_threshold_bytes", 8192);
+    }
+
+    /**
+     * Threads completing backend responses and writing them to HTTP clients.
+     */
+    public int getTcpCallbackThreads() {
+        return getTcpSetting("callback_threads", 4);
+    }
+
+    /**
+     * How long a network-wide request waits for each backend before reporting it as failed.
+     */
+    public int getNetworkBackendTimeoutMillis() {
+        return getNetworkSetting("backend_timeout_ms", 2000);
+    }
+
+    public int getNetworkCacheTtlMillis() {
+        return getNetworkSetting("cache_ttl_ms", 5000);
+    }
+
+    private int getNetworkSetting(String key, int defaultValue) {
+        Map<String, Object> networkConfig = (Map<String, Object>) config.get("network");
+        if (networkConfig != null) {
+            Object value = networkConfig.get(key);
+            if (value instanceof Integer) {
+                return (Integer) value;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Whether backends are asked to push their state, so players and server requests are
+     * answered from memory.
+     */
+    public boolean isTcpReplicationEnabled() {
+        Map<String, Object> tcpConfig = (Map<String, Object>) config.get("tcp");
+        if (tcpConfig != null) {
+            Object value = tcpConfig.get("replication");
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            }
+        }
+        return true;
+    }
+
+    public Set<String> getConfiguredServers() {
+        Map<String, Object> servers = getServersConfig();
+        return servers != null ? servers.keySet() : Collections.emptySet();
+    }
+
+    public long getCacheMaxBytes() {
+        return getCacheSetting("max_bytes", 16 * 1024 * 1024);
+    }
+
+    /**
+     * How long an expired response may still be served while one request refreshes it.
+     */
+    public long getCacheStaleMillis() {
+        return getCacheSetting("stale_ms", 30000);
+    }
+
+    public long getCacheMaxEntryBytes() {
+        return getCacheSetting("max_entry_bytes", 1024 * 1024);
+    }
+
+    /**
+     * Get how long responses of an endpoint are cached, by its first path segment
+     * ("player/Steve" uses the "player" entry). 0 disables caching for the endpoint.
+     */
+    public long getCacheTtlMillis(String endpoint) {
+        int slash = endpoint.indexOf('/');
+        String name = slash >= 0 ? endpoint.substring(0, slash) : endpoint;
+
+        Map<String, Object> cacheConfig = (Map<String, Object>) config.get("cache");
+        if (cacheConfig != null && cacheConfig.get("ttl_ms") instanceof Map) {
+            Object value = ((Map<String, Object>) cacheConfig.get("ttl_ms")).get(name);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        }
+        return getCacheSetting("default_ttl_ms", 60000);
+    }
+
+    private long getCacheSetting(String key, long defaultValue) {
+        Map<String, Object> cacheConfig = (Map<String, Object>) config.get("cache");
+        if (cacheConfig != null) {
+            Object value = cacheConfig.get(key);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        }
+        return defaultValue;
+    }
+
+    private int getTcpSetting(String key, int defaultValue) {
+        Map<String, Object> tcpConfig = (Map<String, Object>) config.get("tcp");
+        if (tcpConfig != null) {
+            Object value = tcpConfig.get(key);
+            if (value instanceof Integer) {
+                return (Integer) value;
+            }
+        }
+        return defaultValue;
+    }
+
     private Map<String, Object> getServersConfig() {
         return (Map<String, Object>) config.get("servers");
     }
@@ -0,0 +1,24 @@
+package fr.neocle.flexgateway.velocity.data;
+
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+
+/**
+ * A cache hit. A stale response may still be served while it is refreshed in the background.
+ */
+public final class CachedResponse {
+    private final EncodedResponse response;
+    private final boolean stale;
+
+    CachedResponse(EncodedResponse response, boolean stale) {
+        this.response = response;
+        this.stale = stale;
+    }
+
+    public EncodedResponse getResponse() {
+        return response;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+}
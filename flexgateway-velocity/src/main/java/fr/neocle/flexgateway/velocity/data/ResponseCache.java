@@ -0,0 +1,137 @@
+package fr.neocle.flexgateway.velocity.data;
+
+import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encoded backend responses kept for a per-endpoint time, bounded by their total size.
+ * When the budget is exceeded the least recently used responses are dropped first. Expired
+ * responses stay usable as stale for a while so they can be served during their refresh.
+ */
+class ResponseCache {
+    // Map entry, key and bookkeeping, on top of the encoded bytes
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final class Entry {
+        final EncodedResponse response;
+        final long size;
+        final long expiresAt;
+        final long staleUntil;
+
+        Entry(EncodedResponse response, long size, long expiresAt, long staleUntil) {
+            this.response = response;
+            this.size = size;
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long staleMillis;
+    // Access order, the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalBytes;
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long rejections;
+
+    ResponseCache(long maxBytes, long maxEntryBytes, long staleMillis) {
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxEntryBytes = Math.min(this.maxBytes, Math.max(1, maxEntryBytes));
+        this.staleMillis = Math.max(0, staleMillis);
+    }
+
+    /**
+     * Get a fresh or stale response, or null when there is none.
+     */
+    synchronized CachedResponse get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now > entry.staleUntil) {
+            remove(key, entry);
+            expirations++;
+            misses++;
+            return null;
+        }
+        if (now > entry.expiresAt) {
+            staleHits++;
+            return new CachedResponse(entry.response, true);
+        }
+        hits++;
+        return new CachedResponse(entry.response, false);
+    }
+
+    void put(String key, EncodedResponse response, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        long size = response.getSize() + key.length() + ENTRY_OVERHEAD;
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+
+        synchronized (this) {
+            if (size > maxEntryBytes) {
+                rejections++;
+                return;
+            }
+            Entry previous = entries.put(key, new Entry(response, size, expiresAt, expiresAt + staleMillis));
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            totalBytes += size;
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                totalBytes -= evicted.size;
+                evictions++;
+            }
+        }
+    }
+
+    synchronized void removeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now > entry.staleUntil) {
+                iterator.remove();
+                totalBytes -= entry.size;
+                expirations++;
+            }
+        }
+    }
+
+    synchronized JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("entries", entries.size());
+        stats.addProperty("bytes", totalBytes);
+        stats.addProperty("max_bytes", maxBytes);
+        stats.addProperty("hits", hits);
+        stats.addProperty("stale_hits", staleHits);
+        stats.addProperty("misses", misses);
+        stats.addProperty("evictions", evictions);
+        stats.addProperty("expirations", expirations);
+        stats.addProperty("rejected_too_large", rejections);
+        long lookups = hits + staleHits + misses;
+        stats.addProperty("hit_ratio", lookups == 0 ? 0.0 : (double) (hits + staleHits) / lookups);
+        return stats;
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.size;
+    }
+}
@@ -1,6 +1,8 @@
 package fr.neocle.flexgateway.velocity.data;
 
 import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+import fr.neocle.flexgateway.velocity.config.ConfigManager;
 import org.slf4j.Logger;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -10,14 +12,20 @@ import java.util.concurrent.TimeUnit;
 
 public class ServerDataManager {
     private final Logger logger;
+    private final ConfigManager configManager;
+    private final ResponseCache responseCache;
     private final ConcurrentHashMap<String, ServerData> serverDataMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ServerReplica> replicas = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
 
-    public ServerDataManager(Logger logger) {
+    public ServerDataManager(Logger logger, ConfigManager configManager) {
         this.logger = logger;
+        this.configManager = configManager;
+        this.responseCache = new ResponseCache(configManager.getCacheMaxBytes(), configManager.getCacheMaxEntryBytes(),
+                configManager.getCacheStaleMillis());
 
         // Start cleanup task for expired cache entries
-        scheduler.scheduleAtFixedRate(this::cleanupExpiredData, 5, 5, TimeUnit.MINUTES);
+        scheduler.scheduleAtFixedRate(this::cleanupExpiredData, 1, 1, TimeUnit.MINUTES);
     }
 
     public void handleServerUpdate(String serverName, String dataType, JsonObject data) {
@@ -40,27 +48,91 @@ public class ServerDataManager {
         return serverData != null && serverData.hasCachedData(dataType);
     }
 
-    public void cacheResponse(String serverName, String cacheKey, JsonObject response) {
-        ServerData serverData = serverDataMap.computeIfAbsent(serverName, k -> new ServerData(serverName));
-        serverData.cacheResponse(cacheKey, response);
+    /**
+     * Cache a response for the time configured for its endpoint (cache.ttl_ms).
+     */
+    public void cacheResponse(String serverName, String endpoint, String cacheKey, EncodedResponse response) {
+        cacheResponse(serverName, cacheKey, response, configManager.getCacheTtlMillis(endpoint));
     }
 
-    public JsonObject getCachedResponse(String serverName, String cacheKey) {
-        ServerData serverData = serverDataMap.get(serverName);
-        if (serverData != null) {
-            return serverData.getCachedResponse(cacheKey);
+    public void cacheResponse(String serverName, String cacheKey, EncodedResponse response, long ttlMillis) {
+        responseCache.put(serverName + "/" + cacheKey, response, ttlMillis);
+    }
+
+    /**
+     * Get a cached response only if it is still fresh.
+     */
+    public EncodedResponse getCachedResponse(String serverName, String cacheKey) {
+        CachedResponse cached = responseCache.get(serverName + "/" + cacheKey);
+        return cached != null && !cached.isStale() ? cached.getResponse() : null;
+    }
+
+    /**
+     * Get a cached response, possibly stale. The caller serves it and refreshes stale ones.
+     */
+    public CachedResponse lookupCachedResponse(String serverName, String cacheKey) {
+        return responseCache.get(serverName + "/" + cacheKey);
+    }
+
+    /**
+     * Get the size and hit/miss/eviction counters of the response cache.
+     */
+    public JsonObject getCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * Start replicating a backend, pushes are held until its snapshot arrives.
+     */
+    public void beginReplication(String serverName) {
+        replicas.computeIfAbsent(serverName, k -> newReplica()).beginSync();
+    }
+
+    // Locations and health in the player list only change on full refreshes, never older than a cached answer
+    private ServerReplica newReplica() {
+        return new ServerReplica(configManager.getApiGzipMinBytes(), configManager.getCacheTtlMillis("players"));
+    }
+
+    public void applyReplicaSnapshot(String serverName, JsonObject snapshot) {
+        replicas.computeIfAbsent(serverName, k -> newReplica()).applySnapshot(snapshot);
+        logger.info("Replicating state of server {}", serverName);
+    }
+
+    public void applyReplicaPush(String serverName, JsonObject push) {
+        ServerReplica replica = replicas.get(serverName);
+        if (replica != null && !replica.applyPush(push)) {
+            logger.warn("Missed a state update from server {}, resynchronizing", serverName);
         }
-        return null;
     }
 
-    public boolean hasCachedResponse(String serverName, String cacheKey) {
-        ServerData serverData = serverDataMap.get(serverName);
-        return serverData != null && serverData.hasCachedResponse(cacheKey);
+    public void invalidateReplica(String serverName) {
+        ServerReplica replica = replicas.get(serverName);
+        if (replica != null) {
+            replica.invalidate();
+        }
+    }
+
+    /**
+     * Whether the backend is replicated or a snapshot is on its way.
+     */
+    public boolean isReplicating(String serverName) {
+        ServerReplica replica = replicas.get(serverName);
+        return replica != null && (replica.isLive() || replica.isSyncing());
+    }
+
+    /**
+     * Get the replicated answer to a players, server or worlds request, or null when the
+     * backend is not replicated or enhances that endpoint and has to be asked.
+     */
+    public EncodedResponse getReplicatedResponse(String serverName, String endpoint) {
+        ServerReplica replica = replicas.get(serverName);
+        return replica != null ? replica.getResponse(endpoint) : null;
     }
 
     private void cleanupExpiredData() {
         long currentTime = System.currentTimeMillis();
         serverDataMap.values().forEach(serverData -> serverData.cleanupExpiredData(currentTime));
+        responseCache.removeExpired(currentTime);
 
         // Remove servers with no data
         serverDataMap.entrySet().removeIf(entry -> entry.getValue().isEmpty());
@@ -83,7 +155,6 @@ public class ServerDataManager {
     private static class ServerData {
         private final String serverName;
         private final ConcurrentHashMap<String, CachedData> dataCache = new ConcurrentHashMap<>();
-        private final ConcurrentHashMap<String, CachedData> responseCache = new ConcurrentHashMap<>();
         private static final long CACHE_TTL = TimeUnit.MINUTES.toMillis(5);
 
         public ServerData(String serverName) {
@@ -107,30 +178,12 @@ public class ServerDataManager {
             return cached != null && !cached.isExpired();
         }
 
-        public void cacheResponse(String cacheKey, JsonObject response) {
-            responseCache.put(cacheKey, new CachedData(response, System.currentTimeMillis() + CACHE_TTL));
-        }
-
-        public JsonObject getCachedResponse(String cacheKey) {
-            CachedData cached = responseCache.get(cacheKey);
-            if (cached != null && !cached.isExpired()) {
-                return cached.data;
-            }
-            return null;
-        }
-
-        public boolean hasCachedResponse(String cacheKey) {
-            CachedData cached = responseCache.get(cacheKey);
-            return cached != null && !cached.isExpired();
-        }
-
         public void cleanupExpiredData(long currentTime) {
             dataCache.entrySet().removeIf(entry -> entry.getValue().isExpired(currentTime));
-            responseCache.entrySet().removeIf(entry -> entry.getValue().isExpired(currentTime));
         }
 
         public boolean isEmpty() {
-            return dataCache.isEmpty() && responseCache.isEmpty();
+            return dataCache.isEmpty();
         }
 
         private static class CachedData {
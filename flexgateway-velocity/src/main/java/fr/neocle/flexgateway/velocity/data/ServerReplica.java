@@ -0,0 +1,248 @@
+package fr.neocle.flexgateway.velocity.data;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory copy of one backend's players, server info and worlds, kept up to date by the
+ * deltas the backend pushes. Pushes received before the snapshot are held back and replayed
+ * on top of it; a missing sequence number makes the replica stale until the next snapshot.
+ * Endpoints the backend enhances through extensions are never answered from here, nor is a
+ * player list whose last full refresh is older than the players cache TTL.
+ */
+class ServerReplica {
+    private static final int MAX_HELD_PUSHES = 1000;
+
+    private final Map<String, JsonElement> players = new LinkedHashMap<>();
+    private final List<JsonObject> heldPushes = new ArrayList<>();
+    // Responses encoded since the last change, by endpoint
+    private final Map<String, EncodedResponse> encoded = new HashMap<>();
+    // Endpoints with extension enhancers on the backend, the replica lacks their fields
+    private final Set<String> enhanced = new HashSet<>();
+    private final int gzipMinBytes;
+    private final long playersMaxAgeMillis;
+    private JsonObject serverInfo;
+    private JsonArray worlds;
+    private long sequence;
+    private boolean live = false;
+    private boolean syncing = false;
+    private long updatedAt;
+    private long playersRefreshedAt;
+
+    ServerReplica(int gzipMinBytes, long playersMaxAgeMillis) {
+        this.gzipMinBytes = gzipMinBytes;
+        this.playersMaxAgeMillis = playersMaxAgeMillis;
+    }
+
+    /**
+     * Forget the current state and hold pushes until {@link #applySnapshot} is called.
+     */
+    synchronized void beginSync() {
+        live = false;
+        syncing = true;
+        heldPushes.clear();
+    }
+
+    synchronized void applySnapshot(JsonObject snapshot) {
+        players.clear();
+        putPlayers(snapshot.getAsJsonArray("players"));
+        serverInfo = snapshot.getAsJsonObject("server");
+        worlds = snapshot.getAsJsonArray("worlds");
+        setEnhanced(snapshot.getAsJsonArray("enhanced"));
+        sequence = snapshot.get("seq").getAsLong();
+        updatedAt = System.currentTimeMillis();
+        playersRefreshedAt = updatedAt;
+        encoded.clear();
+        live = true;
+        syncing = false;
+
+        List<JsonObject> held = new ArrayList<>(heldPushes);
+        heldPushes.clear();
+        for (JsonObject push : held) {
+            applyPush(push);
+        }
+    }
+
+    /**
+     * Apply a delta. Returns false when a delta was missed and the replica went stale.
+     */
+    synchronized boolean applyPush(JsonObject push) {
+        if (syncing) {
+            if (heldPushes.size() < MAX_HELD_PUSHES) {
+                heldPushes.add(push);
+            }
+            return true;
+        }
+        if (!live) {
+            return true;
+        }
+
+        long seq = push.get("seq").getAsLong();
+        if (seq <= sequence) {
+            // Already part of the snapshot
+            return true;
+        }
+        if (seq != sequence + 1) {
+            invalidate();
+            return false;
+        }
+        sequence = seq;
+        updatedAt = System.currentTimeMillis();
+        encoded.clear();
+
+        String type = push.get("type").getAsString();
+        switch (type) {
+            case "player_join": {
+                JsonObject player = push.getAsJsonObject("player");
+                players.put(player.get("uuid").getAsString(), player);
+                break;
+            }
+            case "player_quit":
+                players.remove(push.get("uuid").getAsString());
+                break;
+            case "players":
+                players.clear();
+                putPlayers(push.getAsJsonArray("players"));
+                playersRefreshedAt = updatedAt;
+                break;
+            case "server":
+                serverInfo = push.getAsJsonObject("server");
+                if (push.has("enhanced")) {
+                    setEnhanced(push.getAsJsonArray("enhanced"));
+                }
+                break;
+            case "worlds":
+                worlds = push.getAsJsonArray("worlds");
+                break;
+            default:
+                // Newer backend, nothing to update
+                break;
+        }
+        return true;
+    }
+
+    synchronized void invalidate() {
+        live = false;
+        syncing = false;
+        heldPushes.clear();
+        encoded.clear();
+        players.clear();
+        enhanced.clear();
+        serverInfo = null;
+        worlds = null;
+    }
+
+    synchronized boolean isLive() {
+        return live;
+    }
+
+    synchronized boolean isSyncing() {
+        return syncing;
+    }
+
+    /**
+     * Get the response a players, server or worlds request would get, or null when the replica
+     * is not live, the backend enhances that endpoint or the player list is too old. Encoded
+     * once per change, however many requests read it.
+     */
+    synchronized EncodedResponse getResponse(String endpoint) {
+        if (!live || enhanced.contains(endpoint)) {
+            return null;
+        }
+        if ("players".equals(endpoint) && System.currentTimeMillis() - playersRefreshedAt > playersMaxAgeMillis) {
+            return null;
+        }
+        EncodedResponse response = encoded.get(endpoint);
+        if (response != null) {
+            return response;
+        }
+
+        JsonObject json;
+        switch (endpoint) {
+            case "players":
+                json = getPlayersResponse();
+                break;
+            case "server":
+                json = getServerResponse();
+                break;
+            case "worlds":
+                json = getWorldsResponse();
+                break;
+            default:
+                json = null;
+                break;
+        }
+        if (json == null) {
+            return null;
+        }
+        response = EncodedResponse.of(200, json.toString(), gzipMinBytes);
+        encoded.put(endpoint, response);
+        return response;
+    }
+
+    private JsonObject getPlayersResponse() {
+        JsonArray list = new JsonArray();
+        for (JsonElement player : players.values()) {
+            list.add(player);
+        }
+        JsonObject response = new JsonObject();
+        response.add("players", list);
+        response.addProperty("count", list.size());
+        response.addProperty("replicated_at", updatedAt);
+        return response;
+    }
+
+    private JsonObject getServerResponse() {
+        if (serverInfo == null) {
+            return null;
+        }
+        JsonObject response = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : serverInfo.entrySet()) {
+            response.add(entry.getKey(), entry.getValue());
+        }
+        response.addProperty("onlinePlayers", players.size());
+        response.addProperty("replicated_at", updatedAt);
+        return response;
+    }
+
+    private JsonObject getWorldsResponse() {
+        if (worlds == null) {
+            return null;
+        }
+        JsonObject response = new JsonObject();
+        response.add("worlds", worlds);
+        response.addProperty("count", worlds.size());
+        response.addProperty("replicated_at", updatedAt);
+        return response;
+    }
+
+    private void setEnhanced(JsonArray list) {
+        enhanced.clear();
+        if (list == null) {
+            return;
+        }
+        for (JsonElement endpoint : list) {
+            enhanced.add(endpoint.getAsString());
+        }
+    }
+
+    private void putPlayers(JsonArray list) {
+        if (list == null) {
+            return;
+        }
+        for (JsonElement element : list) {
+            JsonObject player = element.getAsJsonObject();
+            players.put(player.get("uuid").getAsString(), player);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package fr.neocle.flexgateway.velocity.server;
 
+import com.sun.net.httpserver.Filter;
 import com.sun.net.httpserver.HttpServer;
 import com.velocitypowered.api.proxy.ProxyServer;
+import fr.neocle.flexgateway.common.http.HttpExecutor;
+import fr.neocle.flexgateway.common.http.LoadSheddingFilter;
+import fr.neocle.flexgateway.velocity.config.ConfigManager;
 import fr.neocle.flexgateway.velocity.data.ServerDataManager;
 import fr.neocle.flexgateway.velocity.communication.TcpMessageManager;
 import fr.neocle.flexgateway.velocity.server.handlers.ServerApiHandler;
@@ -9,23 +13,25 @@ import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
 
 public class VelocityRestApiServer {
     private final ProxyServer server;
     private final Logger logger;
     private final ServerDataManager dataManager;
     private final TcpMessageManager messageManager;
+    private final ConfigManager configManager;
     private final String host;
     private final int port;
     private HttpServer httpServer;
+    private HttpExecutor executor;
 
     public VelocityRestApiServer(ProxyServer server, Logger logger, ServerDataManager dataManager,
-                                 TcpMessageManager messageManager, String host, int port) {
+                                 TcpMessageManager messageManager, ConfigManager configManager, String host, int port) {
         this.server = server;
         this.logger = logger;
         this.dataManager = dataManager;
         this.messageManager = messageManager;
+        this.configManager = configManager;
         this.host = host;
         this.port = port;
     }
@@ -33,13 +39,27 @@ public class VelocityRestApiServer {
     public void start() throws IOException {
         httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
 
-        // Register handlers
-        httpServer.createContext("/api/", new ServerApiHandler(server, logger, dataManager, messageManager));
-        httpServer.createContext("/api/servers", new fr.neocle.flexgateway.velocity.server.handlers.ServersListHandler(server, logger));
-        httpServer.createContext("/health", new fr.neocle.flexgateway.velocity.server.handlers.HealthHandler(server, logger));
+        // Register handlers, shed requests are answered by the filter before reaching them
+        Filter sheddingFilter = new LoadSheddingFilter();
+        httpServer.createContext("/api/", new ServerApiHandler(server, logger, dataManager, messageManager, configManager))
+                .getFilters().add(sheddingFilter);
+        httpServer.createContext("/api/network/", new fr.neocle.flexgateway.velocity.server.handlers.NetworkHandler(
+                        server, logger, dataManager, messageManager, configManager))
+                .getFilters().add(sheddingFilter);
+        httpServer.createContext("/api/servers", new fr.neocle.flexgateway.velocity.server.handlers.ServersListHandler(server, logger))
+                .getFilters().add(sheddingFilter);
+        httpServer.createContext("/health", new fr.neocle.flexgateway.velocity.server.handlers.HealthHandler(server, logger, dataManager))
+                .getFilters().add(sheddingFilter);
 
-        httpServer.setExecutor(Executors.newFixedThreadPool(10));
+        executor = new HttpExecutor(
+                HttpExecutor.Mode.parse(configManager.getApiExecutorMode()),
+                "FlexGateway-HTTP",
+                configManager.getApiSetting("threads", 10),
+                configManager.getApiSetting("queue_capacity", 200),
+                configManager.getApiSetting("max_concurrent_requests", 500));
+        httpServer.setExecutor(executor);
         httpServer.start();
+        logger.info("HTTP requests run on {} threads", executor.getMode());
 
         logger.info("FlexGateway Velocity REST API server started on {}:{}", host, port);
         logAvailableEndpoints();
@@ -50,11 +70,15 @@ public class VelocityRestApiServer {
             httpServer.stop(0);
             logger.info("HTTP server stopped");
         }
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     private void logAvailableEndpoints() {
         logger.info("=== AVAILABLE ENDPOINTS ===");
         logger.info("  - GET  /api/{server-name}/{endpoint} (proxy server data via TCP)");
+        logger.info("  - GET  /api/network/{endpoint} (players, server, worlds or status of every server at once)");
         logger.info("  - GET  /api/servers (list of connected servers)");
         logger.info("  - GET  /health (proxy health check)");
         logger.info("  - GET  /debug/tcp (TCP communication debug info)");
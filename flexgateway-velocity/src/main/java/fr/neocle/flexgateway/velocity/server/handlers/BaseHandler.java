@@ -4,12 +4,16 @@ import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.velocitypowered.api.proxy.ProxyServer;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 public abstract class BaseHandler implements HttpHandler {
     protected final ProxyServer server;
@@ -25,19 +29,34 @@ public abstract class BaseHandler implements HttpHandler {
     }
 
     protected void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
+        addJsonHeaders(exchange);
 
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
-
         try (OutputStream os = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(statusCode, responseBytes.length);
             os.write(responseBytes);
+        } finally {
+            exchange.close();
         }
     }
 
+    /**
+     * Send a response encoded ahead of time, answering 304 when the client already has it.
+     */
+    protected void sendEncoded(HttpExchange exchange, EncodedResponse response) throws IOException {
+        addJsonHeaders(exchange);
+        exchange.getResponseHeaders().add("Access-Control-Expose-Headers", "ETag, X-FlexGateway-Proxy, "
+                + "X-FlexGateway-Backend, X-FlexGateway-Cache, X-FlexGateway-Request-Timestamp");
+        response.send(exchange);
+    }
+
+    private void addJsonHeaders(HttpExchange exchange) {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
+    }
+
     protected void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
         JsonObject error = new JsonObject();
         error.addProperty("error", message);
@@ -49,7 +68,7 @@ public abstract class BaseHandler implements HttpHandler {
     protected void handleCorsPreflightRequest(HttpExchange exchange) throws IOException {
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
         exchange.sendResponseHeaders(200, -1);
     }
 
@@ -58,4 +77,43 @@ public abstract class BaseHandler implements HttpHandler {
             return new String(is.readAllBytes(), StandardCharsets.UTF_8);
         }
     }
-}
\ No newline at end of file
+
+    protected String generateCacheKey(String method, String endpoint, Map<String, String> queryParams) {
+        StringBuilder key = new StringBuilder();
+        key.append(method).append(":").append(endpoint);
+
+        if (!queryParams.isEmpty()) {
+            key.append("?");
+            queryParams.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> key.append(entry.getKey()).append("=").append(entry.getValue()).append("&"));
+
+            // Remove trailing &
+            if (key.charAt(key.length() - 1) == '&') {
+                key.setLength(key.length() - 1);
+            }
+        }
+
+        return key.toString();
+    }
+
+    protected Map<String, String> parseQueryParameters(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null && !query.isEmpty()) {
+            String[] pairs = query.split("&");
+            for (String pair : pairs) {
+                String[] keyValue = pair.split("=", 2);
+                if (keyValue.length == 2) {
+                    try {
+                        String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8);
+                        String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
+                        params.put(key, value);
+                    } catch (Exception e) {
+                        logger.warn("Error parsing query parameter: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+        return params;
+    }
+}
@@ -3,14 +3,17 @@ package fr.neocle.flexgateway.velocity.server.handlers;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import com.velocitypowered.api.proxy.ProxyServer;
+import fr.neocle.flexgateway.velocity.data.ServerDataManager;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 
 public class HealthHandler extends BaseHandler {
+    private final ServerDataManager dataManager;
 
-    public HealthHandler(ProxyServer server, Logger logger) {
+    public HealthHandler(ProxyServer server, Logger logger, ServerDataManager dataManager) {
         super(server, logger);
+        this.dataManager = dataManager;
     }
 
     @Override
@@ -27,6 +30,7 @@ public class HealthHandler extends BaseHandler {
         health.addProperty("proxy_version", server.getVersion().getVersion());
         health.addProperty("connected_players", server.getPlayerCount());
         health.addProperty("registered_servers", server.getAllServers().size());
+        health.add("cache", dataManager.getCacheStats());
 
         sendJsonResponse(exchange, 200, health);
     }
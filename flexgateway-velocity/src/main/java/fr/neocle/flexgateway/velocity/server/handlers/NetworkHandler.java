@@ -0,0 +1,203 @@
+package fr.neocle.flexgateway.velocity.server.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.velocitypowered.api.proxy.ProxyServer;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+import fr.neocle.flexgateway.common.util.SingleFlight;
+import fr.neocle.flexgateway.velocity.communication.TcpMessageManager;
+import fr.neocle.flexgateway.velocity.config.ConfigManager;
+import fr.neocle.flexgateway.velocity.data.ServerDataManager;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Network-wide view: /api/network/{endpoint} asks every configured server in parallel and
+ * merges the answers. Servers that fail or miss the per-backend timeout are listed under
+ * "failures" instead of failing the whole request.
+ */
+public class NetworkHandler extends BaseHandler {
+    private static final String PATH_PREFIX = "/api/network/";
+    private static final String CACHE_BUCKET = "network";
+
+    // Endpoints whose list is merged into one, every element tagged with its server
+    private static final Map<String, String> LIST_ENDPOINTS = Map.of("players", "players", "worlds", "worlds");
+    // Endpoints answered with one object per server
+    private static final Set<String> PER_SERVER_ENDPOINTS = Set.of("server", "status");
+
+    private final ServerDataManager dataManager;
+    private final TcpMessageManager messageManager;
+    private final ConfigManager configManager;
+    private final SingleFlight<String, EncodedResponse> inFlight = new SingleFlight<>();
+    private final long backendTimeoutMillis;
+    private final long cacheTtlMillis;
+    private final int gzipMinBytes;
+
+    public NetworkHandler(ProxyServer server, Logger logger, ServerDataManager dataManager,
+                          TcpMessageManager messageManager, ConfigManager configManager) {
+        super(server, logger);
+        this.dataManager = dataManager;
+        this.messageManager = messageManager;
+        this.configManager = configManager;
+        this.backendTimeoutMillis = configManager.getNetworkBackendTimeoutMillis();
+        this.cacheTtlMillis = configManager.getNetworkCacheTtlMillis();
+        this.gzipMinBytes = configManager.getApiGzipMinBytes();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if ("OPTIONS".equals(method)) {
+            handleCorsPreflightRequest(exchange);
+            return;
+        }
+        if (!"GET".equals(method)) {
+            sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        String endpoint = exchange.getRequestURI().getPath().substring(PATH_PREFIX.length());
+        if (endpoint.endsWith("/")) {
+            endpoint = endpoint.substring(0, endpoint.length() - 1);
+        }
+        if (!LIST_ENDPOINTS.containsKey(endpoint) && !PER_SERVER_ENDPOINTS.contains(endpoint)) {
+            sendError(exchange, 404, "Unknown network endpoint: " + endpoint + ". Expected players, server, worlds or status");
+            return;
+        }
+
+        Map<String, String> queryParams = parseQueryParameters(exchange.getRequestURI().getQuery());
+        String cacheKey = generateCacheKey(method, endpoint, queryParams);
+        EncodedResponse cachedResponse = dataManager.getCachedResponse(CACHE_BUCKET, cacheKey);
+        if (cachedResponse != null) {
+            sendFromProxy(exchange, "HIT", cachedResponse);
+            return;
+        }
+
+        JsonObject requestData = new JsonObject();
+        requestData.addProperty("endpoint", endpoint);
+        requestData.addProperty("method", method);
+        if (!queryParams.isEmpty()) {
+            JsonObject paramsObj = new JsonObject();
+            queryParams.forEach(paramsObj::addProperty);
+            requestData.add("params", paramsObj);
+        }
+
+        String action = endpoint;
+        // Concurrent misses share one fan-out, completes on the TCP callback threads
+        inFlight.execute(cacheKey, () -> fanOut(action, requestData, cacheKey)).whenComplete((response, throwable) -> {
+            try {
+                if (throwable != null) {
+                    logger.error("Network request failed for {}", action, throwable);
+                    sendError(exchange, 500, "Internal server error: " + throwable.getMessage());
+                    return;
+                }
+                sendFromProxy(exchange, "MISS", response);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to send network response for {}", action, e);
+            }
+        });
+    }
+
+    // Only the servers in the FlexGateway config have a backend to ask, in name order
+    private CompletableFuture<EncodedResponse> fanOut(String endpoint, JsonObject requestData, String cacheKey) {
+        Map<String, CompletableFuture<JsonObject>> futures = new LinkedHashMap<>();
+        for (String serverName : new TreeSet<>(configManager.getConfiguredServers())) {
+            futures.put(serverName, messageManager.sendRequest(serverName, endpoint, requestData.deepCopy(), backendTimeoutMillis));
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).handle((ignored, throwable) -> {
+            JsonObject response = merge(endpoint, futures);
+            int failed = response.getAsJsonObject("failures").size();
+            EncodedResponse encoded = EncodedResponse.of(failed > 0 && failed == futures.size() ? 502 : 200,
+                    response.toString(), gzipMinBytes);
+            if (failed == 0) {
+                dataManager.cacheResponse(CACHE_BUCKET, cacheKey, encoded, cacheTtlMillis);
+            }
+            return encoded;
+        });
+    }
+
+    private JsonObject merge(String endpoint, Map<String, CompletableFuture<JsonObject>> futures) {
+        JsonObject failures = new JsonObject();
+        JsonObject perServer = new JsonObject();
+        JsonArray merged = new JsonArray();
+        JsonObject counts = new JsonObject();
+        String listField = LIST_ENDPOINTS.get(endpoint);
+
+        for (Map.Entry<String, CompletableFuture<JsonObject>> entry : futures.entrySet()) {
+            String serverName = entry.getKey();
+            JsonObject result = resultOf(entry.getValue());
+            if (result.has("error")) {
+                JsonObject failure = new JsonObject();
+                failure.add("error", result.get("error"));
+                failure.addProperty("status", result.has("status") ? result.get("status").getAsInt() : 500);
+                failures.add(serverName, failure);
+                continue;
+            }
+
+            if (listField == null) {
+                perServer.add(serverName, result);
+                continue;
+            }
+
+            int count = 0;
+            if (result.has(listField) && result.get(listField).isJsonArray()) {
+                for (JsonElement element : result.getAsJsonArray(listField)) {
+                    if (element.isJsonObject()) {
+                        element.getAsJsonObject().addProperty("server", serverName);
+                    }
+                    merged.add(element);
+                    count++;
+                }
+            }
+            counts.addProperty(serverName, count);
+        }
+
+        JsonObject response = new JsonObject();
+        if (listField != null) {
+            response.add(listField, merged);
+            response.addProperty("count", merged.size());
+            response.add("per_server", counts);
+        } else {
+            response.add("servers", perServer);
+        }
+        response.add("failures", failures);
+        response.addProperty("backend_count", futures.size());
+        response.addProperty("merged_at", System.currentTimeMillis());
+        return response;
+    }
+
+    private void sendFromProxy(HttpExchange exchange, String source, EncodedResponse response) throws IOException {
+        exchange.getResponseHeaders().set("X-FlexGateway-Proxy", server.getVersion().getName());
+        exchange.getResponseHeaders().set("X-FlexGateway-Cache", source);
+        exchange.getResponseHeaders().set("X-FlexGateway-Request-Timestamp", String.valueOf(System.currentTimeMillis()));
+        sendEncoded(exchange, response);
+    }
+
+    private JsonObject resultOf(CompletableFuture<JsonObject> future) {
+        try {
+            JsonObject result = future.join();
+            if (result != null) {
+                return result;
+            }
+        } catch (CompletionException e) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "TCP communication failed: " + e.getCause().getMessage());
+            error.addProperty("status", 500);
+            return error;
+        }
+        JsonObject error = new JsonObject();
+        error.addProperty("error", "Empty response");
+        error.addProperty("status", 502);
+        return error;
+    }
+}
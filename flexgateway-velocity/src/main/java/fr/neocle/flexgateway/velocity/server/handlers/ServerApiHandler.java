@@ -4,25 +4,30 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.velocitypowered.api.proxy.ProxyServer;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+import fr.neocle.flexgateway.common.util.SingleFlight;
 import fr.neocle.flexgateway.velocity.communication.TcpMessageManager;
+import fr.neocle.flexgateway.velocity.config.ConfigManager;
+import fr.neocle.flexgateway.velocity.data.CachedResponse;
 import fr.neocle.flexgateway.velocity.data.ServerDataManager;
 import org.slf4j.Logger;
 
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class ServerApiHandler extends BaseHandler {
     private final TcpMessageManager messageManager;
     private final ServerDataManager dataManager;
+    private final SingleFlight<String, EncodedResponse> inFlight = new SingleFlight<>();
+    private final int gzipMinBytes;
 
-    public ServerApiHandler(ProxyServer server, Logger logger, ServerDataManager dataManager, TcpMessageManager messageManager) {
+    public ServerApiHandler(ProxyServer server, Logger logger, ServerDataManager dataManager, TcpMessageManager messageManager,
+                            ConfigManager configManager) {
         super(server, logger);
         this.dataManager = dataManager;
         this.messageManager = messageManager;
+        this.gzipMinBytes = configManager.getApiGzipMinBytes();
     }
 
     @Override
@@ -30,7 +35,7 @@ public class ServerApiHandler extends BaseHandler {
         String method = exchange.getRequestMethod();
         String path = exchange.getRequestURI().getPath();
 
-        logger.info("Received request: {} {}", method, path);
+        logger.debug("Received request: {} {}", method, path);
 
         if ("OPTIONS".equals(method)) {
             handleCorsPreflightRequest(exchange);
@@ -48,7 +53,7 @@ public class ServerApiHandler extends BaseHandler {
         String serverName = pathParts[2];
         String endpoint = String.join("/", java.util.Arrays.copyOfRange(pathParts, 3, pathParts.length));
 
-        logger.info("Routing request to server: {}, endpoint: {}", serverName, endpoint);
+        logger.debug("Routing request to server: {}, endpoint: {}", serverName, endpoint);
 
         // Check if server exists
         if (!server.getServer(serverName).isPresent()) {
@@ -60,16 +65,23 @@ public class ServerApiHandler extends BaseHandler {
         Map<String, String> queryParams = parseQueryParameters(exchange.getRequestURI().getQuery());
         String cacheKey = generateCacheKey(method, endpoint, queryParams);
 
-        // Check cache first for GET requests
-        if ("GET".equals(method) && dataManager.hasCachedResponse(serverName, cacheKey)) {
-            JsonObject cachedResponse = dataManager.getCachedResponse(serverName, cacheKey);
-            if (cachedResponse != null) {
-                logger.info("Returning cached response for {}/{}", serverName, endpoint);
-                sendJsonResponse(exchange, 200, cachedResponse);
+        // Plain players, server and worlds requests are answered from the state the backend pushes
+        if ("GET".equals(method) && queryParams.isEmpty()) {
+            EncodedResponse replicated = dataManager.getReplicatedResponse(serverName, endpoint);
+            if (replicated != null) {
+                sendFromProxy(exchange, serverName, "REPLICA", replicated);
                 return;
             }
         }
 
+        // Check cache first for GET requests, a stale response is served while one request refreshes it
+        CachedResponse cached = "GET".equals(method) ? dataManager.lookupCachedResponse(serverName, cacheKey) : null;
+        if (cached != null && !cached.isStale()) {
+            logger.debug("Returning cached response for {}/{}", serverName, endpoint);
+            sendFromProxy(exchange, serverName, "HIT", cached.getResponse());
+            return;
+        }
+
         // Prepare request data
         JsonObject requestData = new JsonObject();
         requestData.addProperty("endpoint", endpoint);
@@ -126,6 +138,26 @@ public class ServerApiHandler extends BaseHandler {
                     requestData.addProperty("offset", Integer.parseInt(queryParams.get("offset")));
                 } catch (NumberFormatException ignored) {}
             }
+            if (queryParams.containsKey("before")) {
+                try {
+                    requestData.addProperty("before", Long.parseLong(queryParams.get("before")));
+                } catch (NumberFormatException ignored) {}
+            }
+            if (queryParams.containsKey("after")) {
+                try {
+                    requestData.addProperty("after", Long.parseLong(queryParams.get("after")));
+                } catch (NumberFormatException ignored) {}
+            }
+            if (queryParams.containsKey("since")) {
+                try {
+                    requestData.addProperty("since", Long.parseLong(queryParams.get("since")));
+                } catch (NumberFormatException ignored) {}
+            }
+            if (queryParams.containsKey("until")) {
+                try {
+                    requestData.addProperty("until", Long.parseLong(queryParams.get("until")));
+                } catch (NumberFormatException ignored) {}
+            }
             if (queryParams.containsKey("player")) {
                 requestData.addProperty("player", queryParams.get("player"));
             }
@@ -134,33 +166,23 @@ public class ServerApiHandler extends BaseHandler {
             }
         }
 
-        logger.info("Sending request to backend server {} with action: {}", serverName, action);
-
-        // Send request to backend server
-        CompletableFuture<JsonObject> future = messageManager.sendRequest(serverName, action, requestData);
+        String backendAction = action;
+        CompletableFuture<EncodedResponse> future;
+        if ("GET".equals(method)) {
+            // Concurrent misses for the same response share one backend request
+            future = inFlight.execute(serverName + "/" + cacheKey,
+                    () -> fetch(serverName, endpoint, backendAction, requestData, cacheKey, true));
+            if (cached != null) {
+                sendFromProxy(exchange, serverName, "STALE", cached.getResponse());
+                return;
+            }
+        } else {
+            future = fetch(serverName, endpoint, backendAction, requestData, cacheKey, false);
+        }
 
         future.thenAccept(response -> {
             try {
-                logger.info("Received response from server {}: {}", serverName, response.has("error") ? "error" : "success");
-
-                // Cache successful GET responses
-                if ("GET".equals(method) && !response.has("error")) {
-                    dataManager.cacheResponse(serverName, cacheKey, response);
-                }
-
-                // Determine status code
-                int statusCode = 200;
-                if (response.has("status")) {
-                    statusCode = response.get("status").getAsInt();
-                }
-
-                // Add proxy metadata
-                response.addProperty("proxy_server", server.getVersion().getName());
-                response.addProperty("backend_server", serverName);
-                response.addProperty("request_timestamp", System.currentTimeMillis());
-
-                sendJsonResponse(exchange, statusCode, response);
-
+                sendFromProxy(exchange, serverName, "MISS", response);
             } catch (IOException e) {
                 logger.error("Failed to send response for server {} endpoint {}", serverName, endpoint, e);
             }
@@ -175,6 +197,35 @@ public class ServerApiHandler extends BaseHandler {
         });
     }
 
+    /**
+     * Ask the backend. The response is encoded once and cached before the future completes,
+     * every request sharing it sends the same bytes.
+     */
+    private CompletableFuture<EncodedResponse> fetch(String serverName, String endpoint, String action,
+                                                JsonObject requestData, String cacheKey, boolean cacheable) {
+        logger.debug("Sending request to backend server {} with action: {}", serverName, action);
+
+        return messageManager.sendRequest(serverName, action, requestData).thenApply(response -> {
+            logger.debug("Received response from server {}: {}", serverName, response.has("error") ? "error" : "success");
+
+            int statusCode = response.has("status") ? response.get("status").getAsInt() : 200;
+            EncodedResponse encoded = EncodedResponse.of(statusCode, response.toString(), gzipMinBytes);
+            if (cacheable && !response.has("error")) {
+                dataManager.cacheResponse(serverName, endpoint, cacheKey, encoded);
+            }
+            return encoded;
+        });
+    }
+
+    // Proxy metadata travels in headers so the cached bytes are the same for every request
+    private void sendFromProxy(HttpExchange exchange, String serverName, String source, EncodedResponse response) throws IOException {
+        exchange.getResponseHeaders().set("X-FlexGateway-Proxy", server.getVersion().getName());
+        exchange.getResponseHeaders().set("X-FlexGateway-Backend", serverName);
+        exchange.getResponseHeaders().set("X-FlexGateway-Cache", source);
+        exchange.getResponseHeaders().set("X-FlexGateway-Request-Timestamp", String.valueOf(System.currentTimeMillis()));
+        sendEncoded(exchange, response);
+    }
+
     private String mapEndpointToAction(String endpoint) {
         if (endpoint.equals("server")) return "server";
         if (endpoint.equals("players")) return "players";
@@ -182,6 +233,7 @@ public class ServerApiHandler extends BaseHandler {
         if (endpoint.equals("worlds")) return "worlds";
         if (endpoint.startsWith("world/")) return "world";
         if (endpoint.equals("messages")) return "messages";
+        if (endpoint.equals("messages/search")) return "search-messages";
         if (endpoint.equals("send-message")) return "send-message";
         if (endpoint.equals("status")) return "status";
         if (endpoint.equals("extensions")) return "extensions";
@@ -190,43 +242,4 @@ public class ServerApiHandler extends BaseHandler {
         // For other endpoints, use the first part as action
         return endpoint.split("/")[0];
     }
-
-    private String generateCacheKey(String method, String endpoint, Map<String, String> queryParams) {
-        StringBuilder key = new StringBuilder();
-        key.append(method).append(":").append(endpoint);
-
-        if (!queryParams.isEmpty()) {
-            key.append("?");
-            queryParams.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> key.append(entry.getKey()).append("=").append(entry.getValue()).append("&"));
-
-            // Remove trailing &
-            if (key.charAt(key.length() - 1) == '&') {
-                key.setLength(key.length() - 1);
-            }
-        }
-
-        return key.toString();
-    }
-
-    private Map<String, String> parseQueryParameters(String query) {
-        Map<String, String> params = new HashMap<>();
-        if (query != null && !query.isEmpty()) {
-            String[] pairs = query.split("&");
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("=", 2);
-                if (keyValue.length == 2) {
-                    try {
-                        String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8);
-                        String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
-                        params.put(key, value);
-                    } catch (Exception e) {
-                        logger.warn("Error parsing query parameter: {}", e.getMessage());
-                    }
-                }
-            }
-        }
-        return params;
-    }
-}
\ No newline at end of file
+}
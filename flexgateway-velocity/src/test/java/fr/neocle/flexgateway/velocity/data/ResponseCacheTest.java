@@ -0,0 +1,112 @@
+package fr.neocle.flexgateway.velocity.data;
+
+import com.google.gson.JsonObject;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private static final EncodedResponse RESPONSE = EncodedResponse.of(200, "{}", 0);
+    // Single character keys, see ResponseCache.ENTRY_OVERHEAD
+    private static final long ENTRY_SIZE = RESPONSE.getSize() + 1 + 64;
+
+    @Test
+    void freshHit() {
+        ResponseCache cache = new ResponseCache(1024 * 1024, 1024, 0);
+        cache.put("a", RESPONSE, 60_000);
+
+        CachedResponse cached = cache.get("a");
+        assertNotNull(cached);
+        assertSame(RESPONSE, cached.getResponse());
+        assertFalse(cached.isStale());
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvictedFirst() {
+        ResponseCache cache = new ResponseCache(ENTRY_SIZE * 2, ENTRY_SIZE, 0);
+        cache.put("a", RESPONSE, 60_000);
+        cache.put("b", RESPONSE, 60_000);
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", RESPONSE, 60_000);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        JsonObject stats = cache.getStats();
+        assertEquals(1, stats.get("evictions").getAsLong());
+        assertEquals(ENTRY_SIZE * 2, stats.get("bytes").getAsLong());
+    }
+
+    @Test
+    void replacingAnEntryKeepsTheSizeRight() {
+        ResponseCache cache = new ResponseCache(ENTRY_SIZE * 2, ENTRY_SIZE, 0);
+        cache.put("a", RESPONSE, 60_000);
+        cache.put("a", RESPONSE, 60_000);
+
+        assertEquals(ENTRY_SIZE, cache.getStats().get("bytes").getAsLong());
+        assertEquals(1, cache.getStats().get("entries").getAsInt());
+    }
+
+    @Test
+    void oversizedResponsesAreRejected() {
+        ResponseCache cache = new ResponseCache(1024 * 1024, ENTRY_SIZE - 1, 0);
+        cache.put("a", RESPONSE, 60_000);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStats().get("rejected_too_large").getAsLong());
+    }
+
+    @Test
+    void nothingIsStoredWithoutTtl() {
+        ResponseCache cache = new ResponseCache(1024 * 1024, 1024, 60_000);
+        cache.put("a", RESPONSE, 0);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void expiredResponseIsServedStaleWithinTheWindow() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(1024 * 1024, 1024, 60_000);
+        cache.put("a", RESPONSE, 20);
+        Thread.sleep(50);
+
+        CachedResponse cached = cache.get("a");
+        assertNotNull(cached);
+        assertTrue(cached.isStale());
+        assertEquals(1, cache.getStats().get("stale_hits").getAsLong());
+    }
+
+    @Test
+    void expiredResponseIsDroppedAfterTheStaleWindow() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(1024 * 1024, 1024, 0);
+        cache.put("a", RESPONSE, 20);
+        Thread.sleep(50);
+
+        assertNull(cache.get("a"));
+        JsonObject stats = cache.getStats();
+        assertEquals(1, stats.get("expirations").getAsLong());
+        assertEquals(0, stats.get("bytes").getAsLong());
+    }
+
+    @Test
+    void removeExpiredOnlyDropsEntriesPastTheirStaleWindow() {
+        ResponseCache cache = new ResponseCache(1024 * 1024, 1024, 1_000);
+        cache.put("short", RESPONSE, 1_000);
+        cache.put("long", RESPONSE, 60_000);
+
+        cache.removeExpired(System.currentTimeMillis() + 10_000);
+
+        assertNull(cache.get("short"));
+        assertNotNull(cache.get("long"));
+        assertEquals(1, cache.getStats().get("expirations").getAsLong());
+    }
+}
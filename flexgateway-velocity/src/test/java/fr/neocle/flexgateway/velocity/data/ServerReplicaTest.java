@@ -0,0 +1,309 @@
+package fr.neocle.flexgateway.velocity.data;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import fr.neocle.flexgateway.common.http.EncodedResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerReplicaTest {
+
+    private static final long PLAYERS_MAX_AGE = 60_000;
+
+    private static JsonObject player(String uuid, String name) {
+        JsonObject player = new JsonObject();
+        player.addProperty("uuid", uuid);
+        player.addProperty("name", name);
+        return player;
+    }
+
+    private static JsonObject snapshot(long seq, JsonObject... players) {
+        JsonArray list = new JsonArray();
+        for (JsonObject player : players) {
+            list.add(player);
+        }
+        JsonObject server = new JsonObject();
+        server.addProperty("name", "lobby");
+        server.addProperty("maxPlayers", 100);
+        JsonArray worlds = new JsonArray();
+        worlds.add("world");
+
+        JsonObject snapshot = new JsonObject();
+        snapshot.addProperty("seq", seq);
+        snapshot.add("players", list);
+        snapshot.add("server", server);
+        snapshot.add("worlds", worlds);
+        snapshot.add("enhanced", new JsonArray());
+        return snapshot;
+    }
+
+    private static JsonObject join(long seq, JsonObject player) {
+        JsonObject push = new JsonObject();
+        push.addProperty("seq", seq);
+        push.addProperty("type", "player_join");
+        push.add("player", player);
+        return push;
+    }
+
+    private static JsonObject quit(long seq, String uuid) {
+        JsonObject push = new JsonObject();
+        push.addProperty("seq", seq);
+        push.addProperty("type", "player_quit");
+        push.addProperty("uuid", uuid);
+        return push;
+    }
+
+    private static ServerReplica liveReplica(long seq, JsonObject... players) {
+        ServerReplica replica = new ServerReplica(0, PLAYERS_MAX_AGE);
+        replica.beginSync();
+        replica.applySnapshot(snapshot(seq, players));
+        return replica;
+    }
+
+    private static JsonObject read(EncodedResponse response) throws IOException {
+        CapturingExchange exchange = new CapturingExchange();
+        response.send(exchange);
+        return JsonParser.parseString(exchange.body.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private static int playerCount(ServerReplica replica) throws IOException {
+        return read(replica.getResponse("players")).get("count").getAsInt();
+    }
+
+    @Test
+    void notLiveBeforeTheSnapshot() {
+        ServerReplica replica = new ServerReplica(0, PLAYERS_MAX_AGE);
+        replica.beginSync();
+
+        assertTrue(replica.isSyncing());
+        assertFalse(replica.isLive());
+        assertNull(replica.getResponse("players"));
+    }
+
+    @Test
+    void snapshotIsServed() throws IOException {
+        ServerReplica replica = liveReplica(10, player("a", "Steve"), player("b", "Alex"));
+
+        assertTrue(replica.isLive());
+        JsonObject players = read(replica.getResponse("players"));
+        assertEquals(2, players.get("count").getAsInt());
+        assertEquals("Steve", players.getAsJsonArray("players").get(0).getAsJsonObject().get("name").getAsString());
+
+        JsonObject server = read(replica.getResponse("server"));
+        assertEquals("lobby", server.get("name").getAsString());
+        assertEquals(2, server.get("onlinePlayers").getAsInt());
+        assertEquals(1, read(replica.getResponse("worlds")).get("count").getAsInt());
+        assertNull(replica.getResponse("messages"));
+    }
+
+    @Test
+    void deltasUpdateThePlayerList() throws IOException {
+        ServerReplica replica = liveReplica(10, player("a", "Steve"));
+
+        assertTrue(replica.applyPush(join(11, player("b", "Alex"))));
+        assertEquals(2, playerCount(replica));
+
+        assertTrue(replica.applyPush(quit(12, "a")));
+        JsonObject players = read(replica.getResponse("players"));
+        assertEquals(1, players.get("count").getAsInt());
+        assertEquals("b", players.getAsJsonArray("players").get(0).getAsJsonObject().get("uuid").getAsString());
+    }
+
+    @Test
+    void responsesAreEncodedOncePerChange() {
+        ServerReplica replica = liveReplica(10, player("a", "Steve"));
+        EncodedResponse first = replica.getResponse("players");
+
+        assertSame(first, replica.getResponse("players"));
+        replica.applyPush(join(11, player("b", "Alex")));
+        assertNotSame(first, replica.getResponse("players"));
+    }
+
+    @Test
+    void deltasAlreadyInTheSnapshotAreIgnored() throws IOException {
+        ServerReplica replica = liveReplica(10, player("a", "Steve"));
+
+        assertTrue(replica.applyPush(quit(9, "a")));
+        assertTrue(replica.applyPush(join(10, player("b", "Alex"))));
+        assertEquals(1, playerCount(replica));
+    }
+
+    @Test
+    void missedDeltaMakesTheReplicaStale() {
+        ServerReplica replica = liveReplica(10, player("a", "Steve"));
+
+        assertFalse(replica.applyPush(join(12, player("b", "Alex"))));
+        assertFalse(replica.isLive());
+        assertNull(replica.getResponse("players"));
+        assertNull(replica.getResponse("server"));
+    }
+
+    @Test
+    void pushesReceivedDuringSyncAreReplayedOnTheSnapshot() throws IOException {
+        ServerReplica replica = new ServerReplica(0, PLAYERS_MAX_AGE);
+        replica.beginSync();
+        assertTrue(replica.applyPush(join(10, player("b", "Alex"))));
+        assertTrue(replica.applyPush(join(11, player("c", "Herobrine"))));
+
+        replica.applySnapshot(snapshot(10, player("a", "Steve"), player("b", "Alex")));
+
+        assertTrue(replica.isLive());
+        assertEquals(3, playerCount(replica));
+    }
+
+    @Test
+    void enhancedEndpointsAreNotServed() {
+        ServerReplica replica = new ServerReplica(0, PLAYERS_MAX_AGE);
+        JsonObject snapshot = snapshot(1, player("a", "Steve"));
+        JsonArray enhanced = new JsonArray();
+        enhanced.add("players");
+        snapshot.add("enhanced", enhanced);
+        replica.beginSync();
+        replica.applySnapshot(snapshot);
+
+        assertNull(replica.getResponse("players"));
+        assertNotNull(replica.getResponse("server"));
+    }
+
+    @Test
+    void playerListOlderThanTheMaxAgeIsNotServed() throws InterruptedException {
+        ServerReplica replica = new ServerReplica(0, 20);
+        replica.beginSync();
+        replica.applySnapshot(snapshot(1, player("a", "Steve")));
+        assertNotNull(replica.getResponse("players"));
+
+        Thread.sleep(50);
+        assertNull(replica.getResponse("players"));
+        assertNotNull(replica.getResponse("server"));
+
+        JsonObject refresh = new JsonObject();
+        refresh.addProperty("seq", 2);
+        refresh.addProperty("type", "players");
+        JsonArray players = new JsonArray();
+        players.add(player("a", "Steve"));
+        refresh.add("players", players);
+        replica.applyPush(refresh);
+        assertNotNull(replica.getResponse("players"));
+    }
+
+    @Test
+    void joinDoesNotRefreshThePlayerListAge() throws InterruptedException {
+        ServerReplica replica = new ServerReplica(0, 20);
+        replica.beginSync();
+        replica.applySnapshot(snapshot(1, player("a", "Steve")));
+
+        Thread.sleep(50);
+        replica.applyPush(join(2, player("b", "Alex")));
+        assertNull(replica.getResponse("players"));
+    }
+
+    private static final class CapturingExchange extends HttpExchange {
+        private final Headers requestHeaders = new Headers();
+        private final Headers responseHeaders = new Headers();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status = -1;
+
+        @Override
+        public Headers getRequestHeaders() {
+            return requestHeaders;
+        }
+
+        @Override
+        public Headers getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public URI getRequestURI() {
+            return URI.create("/");
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return "GET";
+        }
+
+        @Override
+        public HttpContext getHttpContext() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public InputStream getRequestBody() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return body;
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) {
+            status = rCode;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return status;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public String getProtocol() {
+            return "HTTP/1.1";
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return null;
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+        }
+
+        @Override
+        public void setStreams(InputStream i, OutputStream o) {
+        }
+
+        @Override
+        public HttpPrincipal getPrincipal() {
+            return null;
+        }
+    }
+}